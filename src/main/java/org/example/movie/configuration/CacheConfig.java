@@ -0,0 +1,85 @@
+package org.example.movie.configuration;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.movie.dto.request.BookingSearchRequest;
+import org.example.movie.service.TicketBookingService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Cache cho các phương thức @Cacheable dùng Caffeine: mỗi vùng giới hạn số phần tử, hết hạn sau ttl
+ * và ghi thống kê hit/miss/eviction (Spring Boot Actuator gắn thành các metric cache.* theo tag cache=tên vùng).
+ * Vùng có refresh-after-write được nạp lại ở nền bằng loader gọi phần không cache của phương thức tương ứng.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    // Lấy lười vì TicketBookingService cần CacheManager khi tạo proxy
+    @Autowired
+    private ObjectProvider<TicketBookingService> ticketBookingService;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(builder(cacheProperties.getDefaults()));
+
+        Map<String, CacheLoader<Object, Object>> loaders = loaders();
+        cacheProperties.getRegions().forEach((name, configured) -> {
+            CacheProperties.Region region = withDefaults(configured);
+            Caffeine<Object, Object> builder = builder(region);
+            if (region.getRefreshAfterWrite() == null) {
+                cacheManager.registerCustomCache(name, builder.build());
+                return;
+            }
+            CacheLoader<Object, Object> loader = loaders.get(name);
+            if (loader == null) {
+                throw new IllegalStateException("Cache region " + name + " has refresh-after-write but no loader");
+            }
+            if (region.getTtl() != null && region.getRefreshAfterWrite().compareTo(region.getTtl()) >= 0) {
+                throw new IllegalStateException("Cache region " + name + " must refresh before its ttl");
+            }
+            cacheManager.registerCustomCache(name, builder.refreshAfterWrite(region.getRefreshAfterWrite()).build(loader));
+        });
+        return cacheManager;
+    }
+
+    /**
+     * Loader theo vùng, khóa giống khóa của @Cacheable tương ứng.
+     */
+    private Map<String, CacheLoader<Object, Object>> loaders() {
+        return Map.of(
+                "bookingsCache", key -> ticketBookingService.getObject().loadBookings((BookingSearchRequest) key),
+                "ticketInfoCache", key -> ticketBookingService.getObject().loadTicketInfo((Long) key));
+    }
+
+    private CacheProperties.Region withDefaults(CacheProperties.Region region) {
+        CacheProperties.Region defaults = cacheProperties.getDefaults();
+        return new CacheProperties.Region(
+                region.getMaximumSize() != null ? region.getMaximumSize() : defaults.getMaximumSize(),
+                region.getTtl() != null ? region.getTtl() : defaults.getTtl(),
+                region.getRefreshAfterWrite());
+    }
+
+    private Caffeine<Object, Object> builder(CacheProperties.Region region) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (region.getMaximumSize() != null) {
+            builder.maximumSize(region.getMaximumSize());
+        }
+        if (region.getTtl() != null) {
+            builder.expireAfterWrite(region.getTtl());
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.movie.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình các vùng cache (booking.cache). Vùng không khai báo trong regions dùng giá trị của defaults;
+ * thuộc tính bỏ trống trong một vùng cũng lấy theo defaults.
+ */
+@Data
+@ConfigurationProperties(prefix = "booking.cache")
+public class CacheProperties {
+
+    private Region defaults = new Region(1000L, Duration.ofMinutes(10), null);
+
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Region {
+        private Long maximumSize;
+        private Duration ttl;
+        // Sau khoảng này, lần đọc kế tiếp trả giá trị cũ và nạp lại ở nền; cần loader cho vùng đó
+        private Duration refreshAfterWrite;
+    }
+}
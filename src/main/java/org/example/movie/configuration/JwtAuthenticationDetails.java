@@ -0,0 +1,19 @@
+package org.example.movie.configuration;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Getter;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+/**
+ * Thông tin request kèm accountId đã đọc từ JWT trong JwtFilter, để service không phải parse lại token.
+ */
+@Getter
+public class JwtAuthenticationDetails extends WebAuthenticationDetails {
+
+    private final Long accountId;
+
+    public JwtAuthenticationDetails(HttpServletRequest request, Long accountId) {
+        super(request);
+        this.accountId = accountId;
+    }
+}
@@ -1,7 +1,6 @@
 package org.example.movie.configuration;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,13 +10,13 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.Collections;
 
 @Component
@@ -25,6 +24,10 @@ public class JwtFilter extends OncePerRequestFilter {
 
     @Autowired
     private JwtUtil jwtUtil;
+
+    // Cùng request attribute mà SecurityConfig đọc lại khi async dispatch
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -38,7 +41,15 @@ public class JwtFilter extends OncePerRequestFilter {
         String token = header.substring(7);
         logger.info("Processing token: " + token.substring(0, Math.min(token.length(), 20)) + "..."); // Log một phần token để tránh log dài
         try {
-            if (!jwtUtil.validateToken(token)) {
+            // Token chỉ được parse một lần cho mỗi request, accountId được giữ lại trong JwtAuthenticationDetails
+            Claims claims;
+            try {
+                claims = jwtUtil.parseClaims(token);
+            } catch (Exception e) {
+                claims = null;
+                logger.error("Error validating token: " + e.getMessage());
+            }
+            if (claims == null || jwtUtil.isTokenExpired(claims)) {
                 logger.warn("Token validation failed for token: " + token.substring(0, Math.min(token.length(), 20)) + "...");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
@@ -46,10 +57,6 @@ public class JwtFilter extends OncePerRequestFilter {
                 return;
             }
 
-            Claims claims = Jwts.parser()
-                    .setSigningKey(Base64.getEncoder().encodeToString(jwtUtil.getSecret().getBytes()))
-                    .parseClaimsJws(token)
-                    .getBody();
             String username = claims.getSubject();
             String role = claims.get("role", String.class);
             Long accountId = claims.get("accountId", Long.class);
@@ -60,8 +67,10 @@ public class JwtFilter extends OncePerRequestFilter {
                 User userDetails = new User(username, "", Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, token, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                authentication.setDetails(new JwtAuthenticationDetails(request, accountId));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                // Giữ lại cho async dispatch của cùng request (filter này không chạy lại khi async dispatch)
+                securityContextRepository.saveContext(SecurityContextHolder.getContext(), request, response);
                 logger.info("Authentication set in SecurityContextHolder - Authorities: " + authentication.getAuthorities());
             }
         } catch (Exception e) {
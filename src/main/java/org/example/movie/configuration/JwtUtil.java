@@ -36,6 +36,17 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Kiểm tra chữ ký và đọc claims trong một lần parse. Ném exception nếu token sai hoặc đã hết hạn quá độ lệch cho phép.
+     */
+    public Claims parseClaims(String token) {
+        return Jwts.parser()
+                .setSigningKey(Base64.getEncoder().encodeToString(secret.getBytes()))
+                .setAllowedClockSkewSeconds(60)
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
     public String getUsernameFromToken(String token) {
         Claims claims = Jwts.parser()
                 .setSigningKey(Base64.getEncoder().encodeToString(secret.getBytes()))
@@ -81,7 +92,7 @@ public class JwtUtil {
         }
     }
 
-    private boolean isTokenExpired(Claims claims) {
+    public boolean isTokenExpired(Claims claims) {
         return claims.getExpiration().before(new Date());
     }
 
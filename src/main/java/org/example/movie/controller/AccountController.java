@@ -20,7 +20,6 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api")
@@ -174,24 +173,28 @@ public class AccountController {
             @ApiResponse(responseCode = "401", description = "User not authenticated", content = @Content),
             @ApiResponse(responseCode = "403", description = "User does not have admin role", content = @Content)
     })
-    public ResponseEntity<List<MemberListResponse>> getAllMembers() {
-        return ResponseEntity.ok(accountService.getAllMembers());
+    public ResponseEntity<PageResponse<MemberListResponse>> getAllMembers(
+            @Parameter(description = "Cursor from the previous page (nextCursor)") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped by booking.pagination.max-size") @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(accountService.getAllMembers(cursor, size));
     }
 
     @GetMapping("/member/booked-tickets")
-    @Operation(summary = "Get booked tickets for current user", description = "Retrieves a list of booked tickets for the currently authenticated member.")
+    @Operation(summary = "Get booked tickets for current user", description = "Retrieves the booked tickets of the currently authenticated member, one page at a time ordered by invoice ID.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of booked tickets retrieved successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = BookedTicketResponse.class))),
             @ApiResponse(responseCode = "401", description = "User not authenticated", content = @Content),
             @ApiResponse(responseCode = "403", description = "User does not have member role", content = @Content)
     })
-    public ResponseEntity<List<BookedTicketResponse>> getBookedTickets() {
-        return ResponseEntity.ok(accountService.getBookedTicketsForCurrentUser());
+    public ResponseEntity<PageResponse<BookedTicketResponse>> getBookedTickets(
+            @Parameter(description = "Cursor from the previous page (nextCursor)") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped by booking.pagination.max-size") @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(accountService.getBookedTicketsForCurrentUser(cursor, size));
     }
 
     @GetMapping("/member/score-history")
-    @Operation(summary = "Get score history for current user", description = "Retrieves the score history (e.g., points earned or used) for the currently authenticated member, filtered by type and date range.")
+    @Operation(summary = "Get score history for current user", description = "Retrieves the score history (e.g., points earned or used) for the currently authenticated member, filtered by type and date range, one page at a time ordered by invoice ID.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Score history retrieved successfully",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ScoreHistoryResponse.class))),
@@ -199,12 +202,14 @@ public class AccountController {
             @ApiResponse(responseCode = "401", description = "User not authenticated", content = @Content),
             @ApiResponse(responseCode = "403", description = "User does not have member role", content = @Content)
     })
-    public ResponseEntity<List<ScoreHistoryResponse>> getScoreHistory(
+    public ResponseEntity<PageResponse<ScoreHistoryResponse>> getScoreHistory(
             @Parameter(description = "Type of score history (e.g., 'earned', 'used')") @RequestParam String type,
             @Parameter(description = "Start date of the history (optional)", example = "2025-01-01")
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @Parameter(description = "End date of the history (optional)", example = "2025-12-31")
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
-        return ResponseEntity.ok(accountService.getScoreHistory(type, fromDate, toDate));
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @Parameter(description = "Cursor from the previous page (nextCursor)") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped by booking.pagination.max-size") @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(accountService.getScoreHistory(type, fromDate, toDate, cursor, size));
     }
 }
\ No newline at end of file
@@ -5,21 +5,36 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.example.movie.dto.request.AddMovieRequest;
+import org.example.movie.dto.request.BestAvailableRequest;
 import org.example.movie.dto.request.SelectSeatsRequest;
 import org.example.movie.dto.request.TicketConfirmationRequest;
 import org.example.movie.dto.response.*;
 import org.example.movie.entity.Movie;
 import org.example.movie.exception.AppException;
 import org.example.movie.exception.ErrorCode;
+import org.example.movie.service.BookingLaneService;
 import org.example.movie.service.BookingService;
+import org.example.movie.service.CatalogVersion;
+import org.example.movie.service.IdempotencyService;
+import org.example.movie.service.NowShowingSnapshot;
+import org.example.movie.service.SeatMapStreamService;
+import org.example.movie.service.WaitingRoomService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @Tag(name = "Booking API", description = "APIs for managing movie ticket bookings")
@@ -28,61 +43,123 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private SeatMapStreamService seatMapStreamService;
+
+    @Autowired
+    private BookingLaneService bookingLaneService;
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private NowShowingSnapshot nowShowingSnapshot;
+
 
     @Operation(summary = "Get list of movies", description = "Retrieves a list of current movies, optionally filtered by search query")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of movies returned successfully"),
+            @ApiResponse(responseCode = "304", description = "Catalog has not changed"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/api/public/movies")
-    public ResponseEntity<?> getMovies(@RequestParam(required = false) String q) {
-        List<MovieResponse> movies = bookingService.getMovies(q);
-        if (movies.isEmpty()) {
-            return ResponseEntity.ok("Không tìm thấy phim nào khớp với truy vấn.");
+    public ResponseEntity<?> getMovies(@RequestParam(required = false) String q,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(required = false) Integer size,
+                                       WebRequest webRequest) {
+        if (notModified(webRequest, catalogVersion.current())) {
+            return null;
         }
-        return ResponseEntity.ok(movies);
+        PageResponse<MovieResponse> movies = bookingService.getMovies(q, cursor, size);
+        if (movies.getItems().isEmpty() && cursor == null) {
+            return ResponseEntity.ok().cacheControl(catalogVersion.cacheControl())
+                    .body("Không tìm thấy phim nào khớp với truy vấn.");
+        }
+        return ResponseEntity.ok().cacheControl(catalogVersion.cacheControl()).body(movies);
     }
 
     @Operation(summary = "Get available show dates for a movie", description = "Retrieves a list of available show dates for a specific movie")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of show dates returned successfully"),
+            @ApiResponse(responseCode = "304", description = "Catalog has not changed"),
             @ApiResponse(responseCode = "400", description = "Movie not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/api/public/show-dates")
-    public ResponseEntity<List<LocalDate>> getShowDates(@RequestParam Long movieId) {
-        return ResponseEntity.ok(bookingService.getAvailableShowDates(movieId));
+    public ResponseEntity<List<LocalDate>> getShowDates(@RequestParam Long movieId, WebRequest webRequest) {
+        if (notModified(webRequest, catalogVersion.current())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(catalogVersion.cacheControl())
+                .body(bookingService.getAvailableShowDates(movieId));
     }
 
     @Operation(summary = "Get showtimes for a movie", description = "Retrieves showtimes for a specific movie, optionally filtered by date")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of showtimes returned successfully"),
+            @ApiResponse(responseCode = "304", description = "Showtimes and available seats have not changed"),
             @ApiResponse(responseCode = "400", description = "Movie not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/api/public/showtimes")
     public ResponseEntity<List<ShowtimeResponse>> getShowtimes(
             @RequestParam Long movieId,
-            @RequestParam(required = false) String date) {
-        return ResponseEntity.ok(bookingService.getShowtimes(movieId, date));
+            @RequestParam(required = false) String date,
+            WebRequest webRequest) {
+        if (notModified(webRequest, catalogVersion.forShowtimes(bookingService.getSeatVersion(movieId)))) {
+            return null;
+        }
+        // Số ghế trống đổi liên tục nên client phải hỏi lại mỗi lần (thường nhận 304)
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                .body(bookingService.getShowtimes(movieId, date));
     }
 
     @Operation(summary = "Get showtimes for a movie on a specific date", description = "Retrieves showtimes for a specific movie on a given date")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of showtimes returned successfully"),
+            @ApiResponse(responseCode = "304", description = "Showtimes and available seats have not changed"),
             @ApiResponse(responseCode = "400", description = "Movie not found or invalid date format"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/api/public/showtimes-by-date")
     public ResponseEntity<List<ShowtimeResponse>> getShowtimesByDate(
             @RequestParam Long movieId,
-            @RequestParam String date) {
+            @RequestParam String date,
+            WebRequest webRequest) {
+        LocalDate localDate;
         try {
-            LocalDate localDate = LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
-            return ResponseEntity.ok(bookingService.getShowtimesByDate(movieId, localDate));
+            localDate = LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
         } catch (DateTimeParseException e) {
             throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid date format. Expected yyyy-MM-dd");
         }
+        if (notModified(webRequest, catalogVersion.forShowtimes(bookingService.getSeatVersion(movieId)))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                .body(bookingService.getShowtimesByDate(movieId, localDate));
+    }
+
+    @Operation(summary = "Get now-showing movies (public)", description = "Returns every movie running today with its upcoming show dates and showtimes, served from a precomputed snapshot. Available seats are not included")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Now-showing snapshot returned successfully"),
+            @ApiResponse(responseCode = "304", description = "Snapshot has not changed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/api/public/now-showing", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getNowShowing(WebRequest webRequest) {
+        NowShowingSnapshot.Snapshot snapshot = nowShowingSnapshot.get();
+        if (webRequest.checkNotModified(snapshot.eTag())) {
+            return null;
+        }
+        // Trả thẳng JSON đã serialize sẵn trong ảnh chụp
+        return ResponseEntity.ok().cacheControl(catalogVersion.cacheControl())
+                .contentType(MediaType.APPLICATION_JSON).body(snapshot.json());
     }
 
     @Operation(summary = "Get available seats (public)", description = "Retrieves the seat map for a specific showtime without authentication")
@@ -107,26 +184,151 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.getSeats(scheduleId));
     }
 
-    @Operation(summary = "Select seats", description = "Selects seats for a showtime and proceeds to confirmation")
+    @Operation(summary = "Get seat status bitmap (public)", description = "Returns a packed seat status bitmap with the schedule version as ETag. Send If-None-Match for a 304, or since=<version> to receive only the seats changed since that version")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Seat bitmap or changes returned successfully"),
+            @ApiResponse(responseCode = "304", description = "Seat map has not changed"),
+            @ApiResponse(responseCode = "400", description = "Showtime not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/api/public/seats/bitmap")
+    public ResponseEntity<SeatBitmapResponse> getSeatBitmap(@RequestParam Long scheduleId,
+                                                            @RequestParam(required = false) String since,
+                                                            WebRequest webRequest) {
+        SeatBitmapResponse response = bookingService.getSeatBitmap(scheduleId, since);
+        if (webRequest.checkNotModified(response.getVersion())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(response);
+    }
+
+    @Operation(summary = "Get seat layout (public)", description = "Returns the static seat layout of a cinema room, indexed by bitmap slot")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Seat layout returned successfully"),
+            @ApiResponse(responseCode = "304", description = "Seat layout has not changed"),
+            @ApiResponse(responseCode = "400", description = "Seats not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/api/public/seats/layout")
+    public ResponseEntity<SeatLayoutResponse> getSeatLayout(@RequestParam Long cinemaRoomId, WebRequest webRequest) {
+        SeatLayoutResponse response = bookingService.getSeatLayout(cinemaRoomId);
+        if (webRequest.checkNotModified(response.getVersion())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.maxAge(Duration.ofMinutes(5))).body(response);
+    }
+
+    @Operation(summary = "Stream seat map (public)", description = "Sends the seat map once (event 'snapshot'), then pushes seat status changes (event 'delta') as Server-Sent Events")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Seat map stream opened successfully"),
+            @ApiResponse(responseCode = "400", description = "Showtime not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/api/public/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPublicSeats(@RequestParam Long scheduleId) {
+        return seatMapStreamService.subscribe(scheduleId);
+    }
+
+    @Operation(summary = "Stream seat map", description = "Sends the seat map once (event 'snapshot'), then pushes seat status changes (event 'delta') as Server-Sent Events")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Seat map stream opened successfully"),
+            @ApiResponse(responseCode = "400", description = "Showtime not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/api/member/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeats(@RequestParam Long scheduleId) {
+        return seatMapStreamService.subscribe(scheduleId);
+    }
+
+    @Operation(summary = "Join the waiting room", description = "Issues a queue token for a showtime, bound to the caller's account, and reports the caller's position")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Queue token issued successfully"),
+            @ApiResponse(responseCode = "400", description = "Showtime not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/api/member/waiting-room")
+    public ResponseEntity<WaitingRoomResponse> joinWaitingRoom(@RequestParam Long scheduleId) {
+        return ResponseEntity.ok(waitingRoomService.join(scheduleId));
+    }
+
+    @Operation(summary = "Get waiting room status", description = "Reports the position of a queue token and whether it has been admitted")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Queue status returned successfully"),
+            @ApiResponse(responseCode = "400", description = "Queue token is invalid or has expired"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/api/member/waiting-room")
+    public ResponseEntity<WaitingRoomResponse> getWaitingRoomStatus(@RequestParam String token) {
+        return ResponseEntity.ok(waitingRoomService.status(token));
+    }
+
+    @Operation(summary = "Select seats", description = "Selects seats for a showtime and proceeds to confirmation. Callers must join the waiting room first and send their queue token in the X-Queue-Token header; until the token is admitted they receive 429 with their queue position. An admitted token stays valid for the admission window. A repeated Idempotency-Key returns the original invoice ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Seat selection successful, returns invoice ID"),
-            @ApiResponse(responseCode = "400", description = "Invalid seat selection"),
+            @ApiResponse(responseCode = "400", description = "Invalid seat selection, or queue token missing, invalid or expired"),
+            @ApiResponse(responseCode = "429", description = "Waiting in the waiting room, returns queue position"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/api/member/select-seats")
-    public ResponseEntity<Long> selectSeats(@RequestBody SelectSeatsRequest request) {
-        return ResponseEntity.ok(bookingService.selectSeats(request));
+    public CompletableFuture<ResponseEntity<?>> selectSeats(
+            @RequestBody SelectSeatsRequest request,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // Request lặp lại nhận kết quả cũ mà không phải qua phòng chờ lần nữa
+        CompletableFuture<Long> replay = idempotencyService.replay(idempotencyKey, "member-select-seats", request, Long.class);
+        if (replay != null) {
+            return replay.thenApply(ResponseEntity::ok);
+        }
+        WaitingRoomResponse waiting = waitingRoomService.admit(request.getScheduleId(), queueToken);
+        if (waiting != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, waiting.getEstimatedWaitSeconds())))
+                    .body(waiting));
+        }
+        return idempotencyService.executeAsync(idempotencyKey, "member-select-seats", request, Long.class,
+                recorder -> bookingLaneService.selectSeats(request, recorder)).thenApply(ResponseEntity::ok);
     }
 
-    @Operation(summary = "Confirm a booking", description = "Confirms a booking and optionally applies promotions or member score")
+    @Operation(summary = "Select best available seats", description = "Holds the best block of adjacent seats in one row for a showtime (closest to the middle of the room), optionally of one seat type. Waiting room and Idempotency-Key behave as for select-seats")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Seats held successfully, returns invoice ID"),
+            @ApiResponse(responseCode = "400", description = "Invalid quantity, no adjacent seats available, or queue token missing, invalid or expired"),
+            @ApiResponse(responseCode = "429", description = "Waiting in the waiting room, returns queue position"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/api/member/select-seats/best-available")
+    public CompletableFuture<ResponseEntity<?>> selectBestAvailable(
+            @RequestBody BestAvailableRequest request,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // Request lặp lại nhận kết quả cũ mà không phải qua phòng chờ lần nữa
+        CompletableFuture<Long> replay = idempotencyService.replay(idempotencyKey, "member-select-best-available", request, Long.class);
+        if (replay != null) {
+            return replay.thenApply(ResponseEntity::ok);
+        }
+        WaitingRoomResponse waiting = waitingRoomService.admit(request.getScheduleId(), queueToken);
+        if (waiting != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, waiting.getEstimatedWaitSeconds())))
+                    .body(waiting));
+        }
+        return idempotencyService.executeAsync(idempotencyKey, "member-select-best-available", request, Long.class,
+                recorder -> bookingLaneService.selectBestAvailable(request, recorder)).thenApply(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Confirm a booking", description = "Confirms a booking and optionally applies promotions or member score. A repeated Idempotency-Key returns the original confirmation without charging again")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Booking confirmed successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid request or insufficient score"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/api/member/confirm-booking")
-    public ResponseEntity<TicketConfirmationResponse> confirmBooking(@RequestBody TicketConfirmationRequest request) {
-        return ResponseEntity.ok(bookingService.confirmBooking(request));
+    public ResponseEntity<TicketConfirmationResponse> confirmBooking(
+            @RequestBody TicketConfirmationRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(waitingRoomService.withBookingPermit(() -> idempotencyService.execute(
+                idempotencyKey, "member-confirm-booking", request, TicketConfirmationResponse.class,
+                () -> bookingService.confirmBooking(request))));
     }
 
     @Operation(summary = "Get ticket info", description = "Retrieves detailed ticket information for a specific invoice ID")
@@ -139,4 +341,11 @@ public class BookingController {
     public ResponseEntity<TicketInfoResponse> getTicketInfo(@RequestParam Long invoiceId) {
         return ResponseEntity.ok(bookingService.getTicketInfo(invoiceId));
     }
-}
\ No newline at end of file
+
+    /**
+     * Kiểm tra If-None-Match/If-Modified-Since với phiên bản danh mục; true thì Spring đã đặt trạng thái 304.
+     */
+    private boolean notModified(WebRequest webRequest, CatalogVersion.Stamp stamp) {
+        return webRequest.checkNotModified(stamp.eTag(), stamp.lastModified().toEpochMilli());
+    }
+}
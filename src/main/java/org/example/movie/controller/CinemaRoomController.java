@@ -12,6 +12,7 @@ import jakarta.validation.Valid;
 import org.example.movie.dto.request.AddCinemaRoomRequest;
 import org.example.movie.dto.request.UpdateSeatTypeRequest;
 import org.example.movie.dto.response.CinemaRoomResponse;
+import org.example.movie.dto.response.PageResponse;
 import org.example.movie.dto.response.SeatDetailResponse;
 import org.example.movie.service.CinemaRoomService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,10 +41,12 @@ public class CinemaRoomController {
             @ApiResponse(responseCode = "403", description = "User does not have ADMIN role", content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
     })
-    public ResponseEntity<List<CinemaRoomResponse>> getCinemaRoomList(
+    public ResponseEntity<PageResponse<CinemaRoomResponse>> getCinemaRoomList(
             @Parameter(description = "Optional search keyword to filter cinema rooms by name", example = "Room 1")
-            @RequestParam(required = false) String search) {
-        return ResponseEntity.ok(cinemaRoomService.getCinemaRoomList(search));
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Cursor from the previous page (nextCursor)") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped by booking.pagination.max-size") @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(cinemaRoomService.getCinemaRoomList(search, cursor, size));
     }
 
     @GetMapping("/detail/{cinemaRoomId}")
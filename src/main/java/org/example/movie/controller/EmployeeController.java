@@ -12,6 +12,7 @@ import jakarta.validation.Valid;
 import org.example.movie.dto.request.AddEmployeeRequest;
 import org.example.movie.dto.request.EditEmployeeRequest;
 import org.example.movie.dto.response.EmployeeResponse;
+import org.example.movie.dto.response.PageResponse;
 import org.example.movie.service.EmployeeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -19,8 +20,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/admin/employee")
 @Tag(name = "Employee Management", description = "APIs for managing employee accounts, restricted to ADMIN role")
@@ -40,10 +39,12 @@ public class EmployeeController {
             @ApiResponse(responseCode = "403", description = "User does not have ADMIN role", content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content)
     })
-    public ResponseEntity<List<EmployeeResponse>> getEmployeeList(
+    public ResponseEntity<PageResponse<EmployeeResponse>> getEmployeeList(
             @Parameter(description = "Optional search keyword to filter employees by name or other attributes", example = "John")
-            @RequestParam(required = false) String search) {
-        return ResponseEntity.ok(employeeService.getEmployeeList(search));
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Cursor from the previous page (nextCursor)") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped by booking.pagination.max-size") @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(employeeService.getEmployeeList(search, cursor, size));
     }
 
     @PostMapping("/add")
@@ -2,14 +2,13 @@ package org.example.movie.controller;
 
 import org.example.movie.dto.request.AddPromotionRequest;
 import org.example.movie.dto.request.UpdatePromotionRequest;
+import org.example.movie.dto.response.PageResponse;
 import org.example.movie.dto.response.PromotionResponse;
 import org.example.movie.service.PromotionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/admin/promotions")
 public class PromotionController {
@@ -18,9 +17,11 @@ public class PromotionController {
     private PromotionService promotionService;
 
     @GetMapping
-    public ResponseEntity<List<PromotionResponse>> getPromotionList(
-            @RequestParam(value = "search", required = false) String searchKeyword) {
-        List<PromotionResponse> promotions = promotionService.getPromotionList(searchKeyword);
+    public ResponseEntity<PageResponse<PromotionResponse>> getPromotionList(
+            @RequestParam(value = "search", required = false) String searchKeyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        PageResponse<PromotionResponse> promotions = promotionService.getPromotionList(searchKeyword, cursor, size);
         return ResponseEntity.ok(promotions);
     }
 
@@ -4,20 +4,39 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.movie.dto.request.BestAvailableRequest;
 import org.example.movie.dto.request.BookingSearchRequest;
+import org.example.movie.dto.request.BulkBookingRequest;
 import org.example.movie.dto.request.SelectSeatsRequest;
 import org.example.movie.dto.request.TicketConfirmationRequest;
 import org.example.movie.dto.response.BookingConfirmationResponse;
 import org.example.movie.dto.response.BookingListResponse;
+import org.example.movie.dto.response.BulkBookingResponse;
+import org.example.movie.dto.response.PageResponse;
 import org.example.movie.dto.response.TicketConfirmationResponse;
 import org.example.movie.dto.response.TicketInfoResponse;
+import org.example.movie.enums.BulkBookingStatus;
+import org.example.movie.enums.ExportFormat;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.service.BookingExportService;
+import org.example.movie.service.BulkBookingService;
+import org.example.movie.service.IdempotencyService;
 import org.example.movie.service.TicketBookingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/employee/bookings")
@@ -27,7 +46,16 @@ public class TicketBookingController {
     @Autowired
     private TicketBookingService ticketBookingService;
 
-    @Operation(summary = "Confirm a booking", description = "Confirms a booking and optionally converts it to a ticket using member score with identity card or phone number")
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BulkBookingService bulkBookingService;
+
+    @Autowired
+    private BookingExportService bookingExportService;
+
+    @Operation(summary = "Confirm a booking", description = "Confirms a booking and optionally converts it to a ticket using member score with identity card or phone number. A repeated Idempotency-Key returns the original result without charging the member again")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Booking confirmed successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid request or insufficient score or member not found"),
@@ -37,19 +65,23 @@ public class TicketBookingController {
     public ResponseEntity<TicketInfoResponse> confirmBooking(
             @RequestBody TicketConfirmationRequest request,
             @RequestParam(required = false) String identityCard,
-            @RequestParam(required = false) String phoneNumber) {
-        TicketInfoResponse response = ticketBookingService.confirmBooking(request, identityCard, phoneNumber);
+            @RequestParam(required = false) String phoneNumber,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        TicketInfoResponse response = idempotencyService.execute(idempotencyKey, "employee-confirm-booking",
+                Arrays.asList(request, identityCard, phoneNumber), TicketInfoResponse.class,
+                () -> ticketBookingService.confirmBooking(request, identityCard, phoneNumber));
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
-    @Operation(summary = "Search bookings", description = "Searches bookings by keyword (e.g., movie name, seat, identity card, phone number)")
+    @Operation(summary = "Search bookings", description = "Searches bookings by keyword (e.g., movie name, seat, identity card, phone number), one page at a time ordered by booking ID. Pass nextCursor back as cursor for the next page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "List of bookings returned successfully"),
+            @ApiResponse(responseCode = "200", description = "Page of bookings returned successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/search")
-    public ResponseEntity<List<BookingListResponse>> searchBookings(@ModelAttribute BookingSearchRequest request) {
-        List<BookingListResponse> responses = ticketBookingService.searchBookings(request);
+    public ResponseEntity<PageResponse<BookingListResponse>> searchBookings(@ModelAttribute BookingSearchRequest request) {
+        PageResponse<BookingListResponse> responses = ticketBookingService.searchBookings(request);
         return new ResponseEntity<>(responses, HttpStatus.OK);
     }
 
@@ -59,11 +91,40 @@ public class TicketBookingController {
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping
-    public ResponseEntity<List<BookingListResponse>> getBookingList() {
-        List<BookingListResponse> responses = ticketBookingService.getBookingList();
+    public ResponseEntity<PageResponse<BookingListResponse>> getBookingList(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        PageResponse<BookingListResponse> responses = ticketBookingService.getBookingList(cursor, size);
         return new ResponseEntity<>(responses, HttpStatus.OK);
     }
 
+    @Operation(summary = "Export bookings", description = "Streams every booking with a booking date in [from, to] (both optional, yyyy-MM-dd) as CSV or NDJSON, ordered by booking ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Bookings exported successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid format or date range"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/export")
+    public void exportBookings(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Unsupported export format. Expected csv or ndjson");
+        }
+        bookingExportService.checkRange(from, to);
+        // Ghi trực tiếp trên luồng của request (không dùng async) để file lớn không bị cắt bởi timeout của async request
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("bookings." + exportFormat.name().toLowerCase(Locale.ROOT)).build().toString());
+        bookingExportService.export(exportFormat, from, to, response.getOutputStream());
+    }
+
     @Operation(summary = "Get ticket info", description = "Retrieves detailed ticket information for a specific booking ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Ticket information returned successfully"),
@@ -76,15 +137,62 @@ public class TicketBookingController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
-    @Operation(summary = "Select seats for booking", description = "Selects available seats for a movie schedule and creates a booking invoice")
+    @Operation(summary = "Select seats for booking", description = "Selects available seats for a movie schedule and creates a booking invoice. A repeated Idempotency-Key returns the original invoice")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Seats selected and booking created successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid request, seat not found, or seat limit exceeded"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/select-seats")
-    public ResponseEntity<TicketConfirmationResponse> selectSeats(@RequestBody SelectSeatsRequest request) {
-        TicketConfirmationResponse response = ticketBookingService.selectSeats(request);
+    public ResponseEntity<TicketConfirmationResponse> selectSeats(
+            @RequestBody SelectSeatsRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        TicketConfirmationResponse response = idempotencyService.execute(idempotencyKey, "employee-select-seats",
+                request, TicketConfirmationResponse.class, () -> ticketBookingService.selectSeats(request));
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Select best available seats for booking", description = "Picks the best block of adjacent seats in one row (closest to the middle of the room), optionally of one seat type, and creates a booking invoice")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Seats selected and booking created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid quantity or no adjacent seats available"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/select-seats/best-available")
+    public ResponseEntity<TicketConfirmationResponse> selectBestAvailable(
+            @RequestBody BestAvailableRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        TicketConfirmationResponse response = idempotencyService.execute(idempotencyKey,
+                "employee-select-best-available", request, TicketConfirmationResponse.class,
+                () -> ticketBookingService.selectBestAvailable(request));
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Bulk booking for groups", description = "Books many seats across several schedules for one member (school, company) as a single all-or-nothing operation. Small orders return the final result; large orders return 202 with a job id to poll for progress. A repeated Idempotency-Key returns the original job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Bulk booking finished (COMPLETED or FAILED)"),
+            @ApiResponse(responseCode = "202", description = "Bulk booking is running, poll the job for progress"),
+            @ApiResponse(responseCode = "400", description = "Invalid request or member not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkBookingResponse> bulkBooking(
+            @RequestBody BulkBookingRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        BulkBookingResponse response = idempotencyService.executeRecorded(idempotencyKey, "employee-bulk-booking",
+                request, BulkBookingResponse.class, recorder -> bulkBookingService.submit(request, recorder));
+        HttpStatus status = response.getStatus() == BulkBookingStatus.RUNNING ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        return new ResponseEntity<>(response, status);
+    }
+
+    @Operation(summary = "Get bulk booking progress", description = "Returns the status, processed seat count and, once completed, the invoice ids of a bulk booking job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job status returned successfully"),
+            @ApiResponse(responseCode = "400", description = "Job not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<BulkBookingResponse> getBulkBooking(@PathVariable String jobId) {
+        return new ResponseEntity<>(bulkBookingService.getStatus(jobId), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.movie.dto.projection;
+
+import org.example.movie.enums.InvoiceStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một vé đã đặt của tài khoản đang đăng nhập.
+ */
+public record BookedTicketRow(Long invoiceId, String movieName, LocalDateTime bookingDate, Integer totalMoney,
+                              InvoiceStatus status) {
+}
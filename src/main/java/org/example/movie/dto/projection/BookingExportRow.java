@@ -0,0 +1,13 @@
+package org.example.movie.dto.projection;
+
+import org.example.movie.enums.InvoiceStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một hóa đơn trong file xuất đặt vé; các cột tài khoản là null nếu hóa đơn không có tài khoản.
+ */
+public record BookingExportRow(Long invoiceId, LocalDateTime bookingDate, InvoiceStatus status, String movieName,
+                               LocalDateTime scheduleShowTime, String seat, Integer totalMoney, Integer useScore,
+                               Integer addScore, String fullName, String identityCard, String phoneNumber) {
+}
@@ -0,0 +1,10 @@
+package org.example.movie.dto.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng của danh sách đặt vé (admin); identityCard và phoneNumber là null nếu hóa đơn không có tài khoản.
+ */
+public record BookingRow(Long invoiceId, String identityCard, String phoneNumber, String movieName,
+                         LocalDateTime scheduleShowTime) {
+}
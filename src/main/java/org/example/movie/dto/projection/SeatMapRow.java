@@ -0,0 +1,12 @@
+package org.example.movie.dto.projection;
+
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.enums.SeatType;
+
+/**
+ * Một ghế của sơ đồ ghế: ghế mẫu của phòng chiếu kèm dòng ScheduleSeat của lịch chiếu nếu có
+ * (scheduleSeatId và seatStatus là null khi ghế chưa có dòng ScheduleSeat).
+ */
+public record SeatMapRow(Long seatId, Long scheduleSeatId, String seatColumn, Integer seatRow,
+                         SeatStatus seatStatus, SeatType seatType) {
+}
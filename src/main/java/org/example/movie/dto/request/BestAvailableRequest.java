@@ -0,0 +1,11 @@
+package org.example.movie.dto.request;
+
+import lombok.Data;
+import org.example.movie.enums.SeatType;
+
+@Data
+public class BestAvailableRequest {
+    private Long scheduleId;
+    private Integer quantity;
+    private SeatType seatType; // Bỏ trống để tìm mọi loại ghế
+}
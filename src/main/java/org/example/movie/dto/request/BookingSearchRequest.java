@@ -5,4 +5,6 @@ import lombok.Data;
 @Data
 public class BookingSearchRequest {
     private String keyword; // Booking ID, Account ID, Phone Number, Identity Card
+    private String cursor; // nextCursor của trang trước
+    private Integer size;
 }
\ No newline at end of file
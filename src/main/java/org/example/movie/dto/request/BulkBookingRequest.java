@@ -0,0 +1,13 @@
+package org.example.movie.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkBookingRequest {
+    // Thành viên đứng tên đơn đặt (trường học, công ty), tìm theo CMND hoặc số điện thoại
+    private String identityCard;
+    private String phoneNumber;
+    private List<BulkBookingItemRequest> items;
+}
@@ -6,5 +6,6 @@ import java.util.List;
 @Data
 public class SelectSeatsRequest {
     private Long scheduleId;
-    private List<Long> scheduleSeatIds;
+    private List<Long> seatIds;
+    private List<Long> scheduleSeatIds; // Client cũ, chỉ dùng khi không gửi seatIds
 }
\ No newline at end of file
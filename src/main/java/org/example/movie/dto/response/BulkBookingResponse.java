@@ -0,0 +1,17 @@
+package org.example.movie.dto.response;
+
+import lombok.Data;
+import org.example.movie.enums.BulkBookingStatus;
+
+import java.util.List;
+
+@Data
+public class BulkBookingResponse {
+    private String jobId;
+    private BulkBookingStatus status;
+    private int totalSeats;
+    private int processedSeats;
+    private List<Long> invoiceIds; // Chỉ có khi COMPLETED, mỗi lịch chiếu một hóa đơn
+    private Integer errorCode;
+    private String errorMessage;
+}
@@ -0,0 +1,13 @@
+package org.example.movie.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class NowShowingMovieResponse {
+    private MovieResponse movie;
+    private List<LocalDate> showDates;
+    private List<ShowtimeResponse> showtimes; // Suất chiếu sắp tới theo giờ chiếu, không kèm số ghế trống
+}
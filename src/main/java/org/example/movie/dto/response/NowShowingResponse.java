@@ -0,0 +1,12 @@
+package org.example.movie.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class NowShowingResponse {
+    private LocalDateTime generatedAt;
+    private List<NowShowingMovieResponse> movies;
+}
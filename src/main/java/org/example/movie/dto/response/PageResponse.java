@@ -0,0 +1,16 @@
+package org.example.movie.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+    private List<T> items;
+    private String nextCursor; // Truyền lại qua tham số cursor để lấy trang sau, null khi đã hết
+    private boolean hasMore;
+}
@@ -0,0 +1,23 @@
+package org.example.movie.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Trạng thái ghế dạng nén của một lịch chiếu.
+ * Vị trí (slot) của ghế trùng với thứ tự trong SeatLayoutResponse của phòng chiếu.
+ * Khi trả đủ: bitmap là base64 của các byte, bit i (byte i / 8, bit i % 8) = 1 nghĩa là ghế ở slot i đã bị chiếm.
+ * Khi trả thay đổi (full = false): chỉ có takenSlots và releasedSlots so với phiên bản client gửi lên.
+ */
+@Data
+public class SeatBitmapResponse {
+    private Long scheduleId;
+    private Long cinemaRoomId;
+    private String version;
+    private int seatCount;
+    private boolean full;
+    private String bitmap;
+    private List<Integer> takenSlots;
+    private List<Integer> releasedSlots;
+}
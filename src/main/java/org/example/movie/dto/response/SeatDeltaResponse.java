@@ -0,0 +1,17 @@
+package org.example.movie.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.movie.enums.SeatStatus;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatDeltaResponse {
+    private Long scheduleId;
+    private List<Long> seatIds;
+    private SeatStatus seatStatus;
+}
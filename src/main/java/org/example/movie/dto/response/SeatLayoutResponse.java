@@ -0,0 +1,19 @@
+package org.example.movie.dto.response;
+
+import lombok.Data;
+import org.example.movie.enums.SeatType;
+
+import java.util.List;
+
+/**
+ * Sơ đồ ghế tĩnh của phòng chiếu, các danh sách được đánh chỉ số theo slot của SeatBitmapResponse.
+ */
+@Data
+public class SeatLayoutResponse {
+    private Long cinemaRoomId;
+    private String version;
+    private List<Long> seatIds;
+    private List<String> seatColumns;
+    private List<Integer> seatRows;
+    private List<SeatType> seatTypes;
+}
@@ -6,7 +6,8 @@ import org.example.movie.enums.SeatType;
 
 @Data
 public class SeatResponse {
-    private Long scheduleSeatId;
+    private Long seatId;
+    private Long scheduleSeatId; // null nếu ghế chưa có dòng ScheduleSeat
     private String seatColumn;
     private Integer seatRow;
     private SeatStatus seatStatus; // 0: available, 1: booked
@@ -10,4 +10,5 @@ public class ShowtimeResponse {
     private LocalDate showDate;
     private LocalTime showTime;
     private String cinemaRoomName;
+    private Integer availableSeats;
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package org.example.movie.dto.response;
+
+import lombok.Data;
+
+@Data
+public class WaitingRoomResponse {
+    private String token;
+    private Long scheduleId;
+    private boolean admitted;
+    private long position; // 0 khi đã được vào
+    private long estimatedWaitSeconds;
+}
@@ -0,0 +1,57 @@
+package org.example.movie.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "MOVIETHEATER_IDEMPOTENCY_RECORD", indexes = {
+        @Index(name = "IDX_IDEMPOTENCY_CREATED_AT", columnList = "CREATED_AT")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord implements Persistable<String> {
+
+    // operation:username:Idempotency-Key
+    @Id
+    @Column(name = "IDEMPOTENCY_KEY", length = 255)
+    private String idempotencyKey;
+
+    @Column(name = "REQUEST_HASH", length = 64, nullable = false)
+    private String requestHash;
+
+    @Lob
+    @Column(name = "RESPONSE_BODY", nullable = false)
+    private String responseBody;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Bản ghi chỉ được thêm mới: save() phải INSERT chứ không merge, để key mà instance khác đã ghi
+    // báo lỗi trùng khóa chính thay vì ghi đè kết quả của instance đó
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newRecord = true;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    void markLoaded() {
+        newRecord = false;
+    }
+}
@@ -47,6 +47,10 @@ public class Invoice {
     @Column(name = "SEAT", length = 255)
     private String seat;
 
+    // Thời điểm hết hạn giữ ghế của hóa đơn PENDING
+    @Column(name = "HOLD_EXPIRES_AT")
+    private LocalDateTime holdExpiresAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ACCOUNT_ID", referencedColumnName = "ACCOUNT_ID")
     private Account account;
@@ -0,0 +1,65 @@
+package org.example.movie.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.example.movie.enums.OutboxStatus;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "MOVIETHEATER_OUTBOX", indexes = {
+        @Index(name = "IDX_OUTBOX_STATUS_NEXT_ATTEMPT", columnList = "STATUS, NEXT_ATTEMPT_AT")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "OUTBOX_ID")
+    private Long outboxId;
+
+    @Column(name = "EVENT_TYPE", length = 50, nullable = false)
+    private String eventType;
+
+    // Id của đối tượng phát sinh sự kiện (vd. INVOICE_ID)
+    @Column(name = "AGGREGATE_ID")
+    private Long aggregateId;
+
+    @Column(name = "RECIPIENT", nullable = false)
+    private String recipient;
+
+    @Column(name = "SUBJECT", nullable = false)
+    private String subject;
+
+    @Lob
+    @Column(name = "BODY", nullable = false)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", length = 20, nullable = false)
+    private OutboxStatus status;
+
+    @Column(name = "ATTEMPTS", nullable = false)
+    private int attempts;
+
+    @Column(name = "NEXT_ATTEMPT_AT", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "SENT_AT")
+    private LocalDateTime sentAt;
+
+    @Column(name = "LAST_ERROR", length = 500)
+    private String lastError;
+
+    // Khóa lạc quan: hai dispatcher không nhận cùng một tin
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private long version;
+}
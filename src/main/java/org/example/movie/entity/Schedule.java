@@ -4,10 +4,12 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "MOVIETHEATER_SCHEDULE")
+@Table(name = "MOVIETHEATER_SCHEDULE",
+        indexes = @Index(name = "IDX_SCHEDULE_SHOW_TIME", columnList = "SHOW_TIME"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,8 +22,9 @@ public class Schedule {
     @Column(name = "SCHEDULE_ID")
     private Long scheduleId;
 
-    @Column(name = "SCHEDULE_TIME")
-    private String scheduleTime;
+    // Thay cho cột chuỗi SCHEDULE_TIME cũ, dữ liệu cũ được chuyển sang khi khởi động, trước khi web server nhận request (MovieService.migrateScheduleTimes)
+    @Column(name = "SHOW_TIME")
+    private LocalDateTime scheduleTime;
 
     @OneToMany(mappedBy = "schedule")
     @JsonIgnore
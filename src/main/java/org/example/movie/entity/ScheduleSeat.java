@@ -6,7 +6,9 @@ import org.example.movie.enums.SeatStatus;
 
 import java.util.List;
 @Entity
-@Table(name = "MOVIETHEATER_SCHEDULE_SEAT")
+@Table(name = "MOVIETHEATER_SCHEDULE_SEAT",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"schedule_id", "movie_id", "SEAT_ID"}),
+        indexes = @Index(name = "IDX_SCHEDULE_SEAT_INVOICE", columnList = "INVOICE_ID"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -40,10 +42,20 @@ public class ScheduleSeat {
     @Column(name = "SEAT_TYPE")
     private Integer seatType;
 
+    // Khóa lạc quan: ghi đè đồng thời lên cùng một ghế sẽ thất bại thay vì âm thầm ghi đè nhau
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private long version;
+
     @ManyToOne
     @JoinColumn(name = "SEAT_ID", referencedColumnName = "SEAT_ID")
     private Seat seat;
 
+    // Hóa đơn đang giữ ghế (chỉ có giá trị khi ghế ở trạng thái HELD hoặc BOOKED)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "INVOICE_ID", referencedColumnName = "INVOICE_ID")
+    private Invoice invoice;
+
     @OneToMany(mappedBy = "scheduleSeat")
     private List<Ticket> tickets;
 }
@@ -6,7 +6,9 @@
     import java.util.List;
 
     @Entity
-    @Table(name = "MOVIETHEATER_TICKET")
+    @Table(name = "MOVIETHEATER_TICKET",
+            uniqueConstraints = @UniqueConstraint(columnNames = {"SCHEDULE_SEAT_ID", "INVOICE_ID"}),
+            indexes = @Index(name = "IDX_TICKET_INVOICE", columnList = "INVOICE_ID"))
     @Getter
     @Setter
     @NoArgsConstructor
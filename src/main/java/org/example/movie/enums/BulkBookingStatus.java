@@ -0,0 +1,7 @@
+package org.example.movie.enums;
+
+public enum BulkBookingStatus {
+    RUNNING,    // Đang đặt vé
+    COMPLETED,  // Đã commit toàn bộ hóa đơn và vé
+    FAILED      // Thất bại, không ghế nào được đặt
+}
@@ -0,0 +1,16 @@
+package org.example.movie.enums;
+
+public enum ExportFormat {
+    CSV("text/csv"),           // Có dòng tiêu đề, dùng cho Excel/kế toán
+    NDJSON("application/x-ndjson"); // Mỗi dòng một đối tượng JSON
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.movie.enums;
+
+public enum OutboxStatus {
+    PENDING,   // Chờ gửi (hoặc chờ gửi lại)
+    SENT,      // Đã gửi
+    FAILED     // Hết số lần thử
+}
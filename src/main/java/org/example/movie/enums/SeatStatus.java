@@ -2,5 +2,6 @@ package org.example.movie.enums;
 
 public enum SeatStatus {
     AVAILABLE,  // Ghế trống, có thể đặt
+    HELD,       // Ghế đang được giữ chờ thanh toán, tự động trả lại khi hết hạn
     BOOKED      // Ghế đã được đặt
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package org.example.movie.event;
+
+/**
+ * Phát ra khi phim được thêm, cập nhật hoặc xóa (kèm lịch chiếu của phim).
+ */
+public record MovieChangedEvent(Long movieId) {
+}
@@ -0,0 +1,12 @@
+package org.example.movie.event;
+
+import org.example.movie.enums.SeatStatus;
+
+import java.util.List;
+
+/**
+ * Phát ra khi các ghế của một lịch chiếu (MovieSchedule.id) chuyển trạng thái.
+ * seatIds là id ghế mẫu (Seat.id), trùng với SeatResponse.seatId.
+ */
+public record SeatStatusChangedEvent(Long scheduleId, List<Long> seatIds, SeatStatus seatStatus) {
+}
@@ -47,7 +47,16 @@ public enum ErrorCode {
     INVALID_MOVIE_DATA(1033, "Invalid movie data"),
     PROMOTION_NOT_FOUND(1034, "Promotion not found"),
     INVALID_REQUEST(1035, "Invalid request"),
-    SCHEDULE_SEAT_NOT_FOUND(1036, "Schedule seat not found"),;
+    SCHEDULE_SEAT_NOT_FOUND(1036, "Schedule seat not found"),
+    SEAT_HOLD_EXPIRED(1037, "Seat hold has expired, please select seats again"),
+    QUEUE_TOKEN_INVALID(1038, "Queue token is invalid or has expired"),
+    SERVICE_BUSY(1039, "Booking service is busy, please try again"),
+    IDEMPOTENCY_KEY_REUSED(1040, "Idempotency key was already used for a different request"),
+    IDEMPOTENCY_KEY_IN_PROGRESS(1041, "A request with this idempotency key is still being processed"),
+    NO_CONTIGUOUS_SEATS(1042, "No block of adjacent seats is available for the requested quantity"),
+    NOT_ENOUGH_SEATS(1043, "Not enough seats are available for the requested quantity"),
+    BULK_BOOKING_NOT_FOUND(1044, "Bulk booking job not found"),
+    QUEUE_TOKEN_REQUIRED(1045, "A queue token is required, join the waiting room first"),;
 
     private final int code;
     private final String message;
@@ -1,13 +1,17 @@
 package org.example.movie.mapper;
 
+import org.example.movie.dto.projection.SeatMapRow;
 import org.example.movie.dto.response.SeatResponse;
 import org.example.movie.entity.ScheduleSeat;
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.SeatStatus;
 import org.example.movie.enums.SeatType;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 @Mapper(componentModel = "spring")
 public interface ScheduleSeatMapper {
 
+    @Mapping(source = "seat.seatId", target = "seatId")
     @Mapping(source = "scheduleSeatId", target = "scheduleSeatId")
     @Mapping(source = "seatColumn", target = "seatColumn")
     @Mapping(source = "seatRow", target = "seatRow")
@@ -15,6 +19,18 @@ public interface ScheduleSeatMapper {
     @Mapping(source = "seatType", target = "seatType")
     SeatResponse toSeatResponse(ScheduleSeat scheduleSeat);
 
+    // Ghế mẫu của phòng chiếu kết hợp trạng thái của lịch chiếu (scheduleSeatId null nếu ghế chưa có dòng ScheduleSeat)
+    @Mapping(source = "seat.seatId", target = "seatId")
+    @Mapping(source = "scheduleSeatId", target = "scheduleSeatId")
+    @Mapping(source = "seat.seatColumn", target = "seatColumn")
+    @Mapping(source = "seat.seatRow", target = "seatRow")
+    @Mapping(source = "seatStatus", target = "seatStatus")
+    @Mapping(source = "seat.seatType", target = "seatType")
+    SeatResponse toSeatResponse(Seat seat, Long scheduleSeatId, SeatStatus seatStatus);
+
+    @Mapping(source = "seatStatus", target = "seatStatus", defaultValue = "AVAILABLE")
+    SeatResponse toSeatResponse(SeatMapRow row);
+
 
     default SeatType map(Integer value) {
         if (value == null) {
@@ -1,11 +1,18 @@
 package org.example.movie.repository;
 
 import org.example.movie.entity.CinemaRoom;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CinemaRoomRepository extends JpaRepository<CinemaRoom, Long> {
     Optional<CinemaRoom> findById(Long id);
 
-}
\ No newline at end of file
+    @Query("SELECT c FROM CinemaRoom c WHERE c.cinemaRoomId > :cursor AND (:keyword IS NULL " +
+            "OR c.cinemaRoomName LIKE CONCAT('%', :keyword, '%')) ORDER BY c.cinemaRoomId")
+    List<CinemaRoom> findPageAfter(@Param("cursor") Long cursor, @Param("keyword") String keyword, Limit limit);
+}
@@ -1,7 +1,19 @@
 package org.example.movie.repository;
 
 import org.example.movie.entity.Employee;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface EmployeeRepository extends JpaRepository<Employee, String> {
-}
\ No newline at end of file
+
+    // keyword null thì không lọc; lọc theo họ tên, email, số điện thoại của tài khoản.
+    // Account.member (phía mappedBy của @OneToOne) được lấy cùng truy vấn
+    @Query("SELECT e FROM Employee e JOIN FETCH e.account a LEFT JOIN FETCH a.member WHERE e.employeeId > :cursor AND (:keyword IS NULL " +
+            "OR a.fullName LIKE CONCAT('%', :keyword, '%') OR a.email LIKE CONCAT('%', :keyword, '%') " +
+            "OR a.phoneNumber LIKE CONCAT('%', :keyword, '%')) ORDER BY e.employeeId")
+    List<Employee> findPageAfter(@Param("cursor") String cursor, @Param("keyword") String keyword, Limit limit);
+}
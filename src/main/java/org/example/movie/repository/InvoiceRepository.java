@@ -1,24 +1,92 @@
 package org.example.movie.repository;
 
+import jakarta.persistence.QueryHint;
+import org.example.movie.dto.projection.BookedTicketRow;
+import org.example.movie.dto.projection.BookingExportRow;
+import org.example.movie.dto.projection.BookingRow;
 import org.example.movie.entity.Invoice;
 import org.example.movie.enums.InvoiceStatus;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     List<Invoice> findByAccount_AccountIdAndStatus(Long accountId, InvoiceStatus status);
-    List<Invoice> findByAccount_AccountIdAndUseScoreGreaterThanAndBookingDateBetween(Long accountId, Integer minScore, LocalDate fromDate, LocalDate toDate);
-    List<Invoice> findByAccount_AccountIdAndUseScoreGreaterThan(Long accountId, Integer minScore);
     Optional<Invoice> findByInvoiceIdAndAccount_AccountId(Long invoiceId, Long accountId);
-    @Query("SELECT i FROM Invoice i WHERE " +
+
+    // Trang danh sách đặt vé theo từ khóa (invoiceId tăng dần), đọc thẳng các cột cần hiển thị
+    @Query("SELECT new org.example.movie.dto.projection.BookingRow(i.invoiceId, a.identityCard, a.phoneNumber, " +
+            "i.movieName, i.scheduleShowTime) FROM Invoice i JOIN i.account a WHERE i.invoiceId > :cursor AND (" +
             "LOWER(i.movieName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(i.seat) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(i.account.identityCard) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(i.account.phoneNumber) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Invoice> findByKeyword(@Param("keyword") String keyword);
-}
\ No newline at end of file
+            "LOWER(a.identityCard) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(a.phoneNumber) LIKE LOWER(CONCAT('%', :keyword, '%'))) ORDER BY i.invoiceId")
+    List<BookingRow> findByKeyword(@Param("keyword") String keyword, @Param("cursor") Long cursor, Limit limit);
+
+    // Trang vé đã đặt của tài khoản theo trạng thái hóa đơn (invoiceId tăng dần)
+    @Query("SELECT new org.example.movie.dto.projection.BookedTicketRow(i.invoiceId, i.movieName, i.bookingDate, " +
+            "i.totalMoney, i.status) FROM Invoice i WHERE i.account.accountId = :accountId AND i.status = :status " +
+            "AND i.invoiceId > :cursor ORDER BY i.invoiceId")
+    List<BookedTicketRow> findBookedTickets(@Param("accountId") Long accountId, @Param("status") InvoiceStatus status,
+                                            @Param("cursor") Long cursor, Limit limit);
+
+    // Trang hóa đơn đã dùng điểm của tài khoản (invoiceId tăng dần), ngày đặt trong [from, to) nếu có
+    @Query("SELECT i FROM Invoice i WHERE i.account.accountId = :accountId AND i.useScore > 0 " +
+            "AND (:from IS NULL OR i.bookingDate >= :from) AND (:to IS NULL OR i.bookingDate < :to) " +
+            "AND i.invoiceId > :cursor ORDER BY i.invoiceId")
+    List<Invoice> findScoreUsage(@Param("accountId") Long accountId, @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to, @Param("cursor") Long cursor, Limit limit);
+
+    // Hóa đơn kèm tài khoản và thành viên cho TicketMapper.toInfoResponse
+    @EntityGraph(attributePaths = {"account", "account.member", "account.employee"})
+    Optional<Invoice> findWithAccountByInvoiceId(Long invoiceId);
+
+    // Dữ liệu xác nhận hóa đơn trong một truy vấn: mỗi dòng là (Invoice, memberId, score, discountLevel, Seat.id, email,
+    // MovieSchedule.id) cho một ghế đang HELD của hóa đơn; discountLevel là null nếu khuyến mãi không tồn tại hoặc đã hết hạn
+    @Query("SELECT i, m.memberId, m.score, p.discountLevel, ss.seat.seatId, i.account.email, ms.id FROM Invoice i " +
+            "LEFT JOIN Member m ON m.account = i.account " +
+            "LEFT JOIN Promotion p ON p.promotionId = :promotionId AND p.endTime > :now " +
+            "LEFT JOIN ScheduleSeat ss ON ss.invoice = i AND ss.seatStatus = org.example.movie.enums.SeatStatus.HELD " +
+            "LEFT JOIN MovieSchedule ms ON ms.schedule = ss.schedule AND ms.movie = ss.movie " +
+            "WHERE i.invoiceId = :invoiceId AND i.account.accountId = :accountId")
+    List<Object[]> findForConfirmation(@Param("invoiceId") Long invoiceId, @Param("accountId") Long accountId,
+                                       @Param("promotionId") Long promotionId, @Param("now") LocalDateTime now);
+
+    // (invoiceId, holdExpiresAt) của các hóa đơn PENDING vẫn đang giữ ghế
+    @Query("SELECT i.invoiceId, i.holdExpiresAt FROM Invoice i WHERE i.invoiceId IN :invoiceIds " +
+            "AND i.status = org.example.movie.enums.InvoiceStatus.PENDING AND i.holdExpiresAt IS NOT NULL")
+    List<Object[]> findPendingHolds(@Param("invoiceIds") Collection<Long> invoiceIds);
+
+    @Modifying
+    @Query("UPDATE Invoice i SET i.status = org.example.movie.enums.InvoiceStatus.UNPAID, i.holdExpiresAt = null " +
+            "WHERE i.invoiceId IN :invoiceIds AND i.status = org.example.movie.enums.InvoiceStatus.PENDING " +
+            "AND i.holdExpiresAt IS NOT NULL")
+    int markHoldsUnpaid(@Param("invoiceIds") Collection<Long> invoiceIds);
+
+    // Trang danh sách đặt vé theo invoiceId
+    @Query("SELECT new org.example.movie.dto.projection.BookingRow(i.invoiceId, a.identityCard, a.phoneNumber, " +
+            "i.movieName, i.scheduleShowTime) FROM Invoice i LEFT JOIN i.account a WHERE i.invoiceId > :cursor " +
+            "ORDER BY i.invoiceId")
+    List<BookingRow> findPageAfter(@Param("cursor") Long cursor, Limit limit);
+
+    // Xuất đặt vé theo khoảng bookingDate [from, to) (null thì không giới hạn), đọc tuần tự bằng con trỏ JDBC.
+    // Trên MySQL fetch size chỉ có hiệu lực khi URL bật useCursorFetch=true; stream phải được đóng trong transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new org.example.movie.dto.projection.BookingExportRow(i.invoiceId, i.bookingDate, i.status, " +
+            "i.movieName, i.scheduleShowTime, i.seat, i.totalMoney, i.useScore, i.addScore, a.fullName, " +
+            "a.identityCard, a.phoneNumber) FROM Invoice i LEFT JOIN i.account a " +
+            "WHERE (:from IS NULL OR i.bookingDate >= :from) AND (:to IS NULL OR i.bookingDate < :to) " +
+            "ORDER BY i.invoiceId")
+    Stream<BookingExportRow> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
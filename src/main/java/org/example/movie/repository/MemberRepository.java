@@ -1,10 +1,13 @@
 package org.example.movie.repository;
 
 import org.example.movie.entity.Member;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface MemberRepository extends JpaRepository<Member, Long> {
@@ -15,4 +18,13 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     Optional<Member> findByPhoneNumber(@Param("phoneNumber") String phoneNumber);
 
     Optional<Member> findByAccount_AccountId(Long accountId);
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("UPDATE Member m SET m.score = m.score - :points WHERE m.memberId = :memberId AND m.score >= :points")
+    int deductScore(@Param("memberId") Long memberId, @Param("points") int points);
+
+    // Lấy luôn Account.employee (phía mappedBy của @OneToOne, luôn được nạp ngay) để không tốn 1 câu SELECT mỗi thành viên
+    @Query("SELECT m FROM Member m JOIN FETCH m.account a LEFT JOIN FETCH a.employee WHERE m.memberId > :cursor " +
+            "ORDER BY m.memberId")
+    List<Member> findPageAfter(@Param("cursor") Long cursor, Limit limit);
+}
@@ -2,9 +2,17 @@ package org.example.movie.repository;
 
 import org.example.movie.entity.Movie;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
 import java.util.List;
 
 public interface MovieRepository extends JpaRepository<Movie, Long> {
     List<Movie> findByMovieNameVnContainingIgnoreCase(String movieNameVn);
-    List<Movie> findByMovieNameVnContainingIgnoreCaseOrMovieNameEnglishContainingIgnoreCase(String movieNameVn, String movieNameEnglish);
-}
\ No newline at end of file
+
+    // Phim đang chiếu vào ngày date (fromDate <= date <= toDate), kèm phòng chiếu
+    @Query("SELECT m FROM Movie m LEFT JOIN FETCH m.cinemaRoom WHERE m.fromDate <= :date AND m.toDate >= :date " +
+            "ORDER BY m.movieId")
+    List<Movie> findRunningOn(@Param("date") LocalDate date);
+}
@@ -2,10 +2,45 @@ package org.example.movie.repository;
 
 import org.example.movie.entity.MovieSchedule;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface MovieScheduleRepository extends JpaRepository<MovieSchedule, Long> {
     List<MovieSchedule> findByMovie_MovieId(Long movieId);
     void deleteByMovieMovieId(Long movieId);
     List<MovieSchedule> findByMovieMovieId(Long movieId);
-}
\ No newline at end of file
+
+    // Dữ liệu dựng ShowtimeReadModel: (MovieSchedule.id, giờ chiếu, tên phòng chiếu) theo thứ tự giờ chiếu
+    @Query("SELECT ms.id, s.scheduleTime, r.cinemaRoomName FROM MovieSchedule ms JOIN ms.schedule s " +
+            "JOIN ms.movie m LEFT JOIN m.cinemaRoom r WHERE m.movieId = :movieId ORDER BY s.scheduleTime")
+    List<Object[]> findShowtimeRows(@Param("movieId") Long movieId);
+
+    // Suất chiếu từ thời điểm from của các phim đang chiếu vào ngày date:
+    // (Movie.id, MovieSchedule.id, giờ chiếu, tên phòng chiếu) theo phim rồi giờ chiếu
+    @Query("SELECT m.movieId, ms.id, s.scheduleTime, r.cinemaRoomName FROM MovieSchedule ms JOIN ms.schedule s " +
+            "JOIN ms.movie m LEFT JOIN m.cinemaRoom r WHERE m.fromDate <= :date AND m.toDate >= :date " +
+            "AND s.scheduleTime >= :from ORDER BY m.movieId, s.scheduleTime")
+    List<Object[]> findUpcomingShowtimeRows(@Param("date") LocalDate date, @Param("from") LocalDateTime from);
+
+    // Phòng chiếu của từng lịch chiếu (MovieSchedule.id, CinemaRoom.id)
+    @Query("SELECT ms.id, ms.movie.cinemaRoom.cinemaRoomId FROM MovieSchedule ms")
+    List<Object[]> findAllCinemaRoomIds();
+
+    // Phòng chiếu hiện tại của các lịch chiếu của một phim (MovieSchedule.id, CinemaRoom.id hoặc null)
+    @Query("SELECT ms.id, r.cinemaRoomId FROM MovieSchedule ms JOIN ms.movie m LEFT JOIN m.cinemaRoom r " +
+            "WHERE m.movieId = :movieId")
+    List<Object[]> findCinemaRoomIdsByMovieId(@Param("movieId") Long movieId);
+
+    @Query("SELECT ms.movie.cinemaRoom.cinemaRoomId FROM MovieSchedule ms WHERE ms.id = :movieScheduleId")
+    Optional<Long> findCinemaRoomIdById(@Param("movieScheduleId") Long movieScheduleId);
+
+    // (MovieSchedule.id, tên phòng chiếu) của suất chiếu mà hóa đơn đã đặt ghế
+    @Query("SELECT DISTINCT ms.id, r.cinemaRoomName FROM ScheduleSeat ss, MovieSchedule ms JOIN ms.movie.cinemaRoom r " +
+            "WHERE ss.invoice.invoiceId = :invoiceId AND ms.schedule = ss.schedule AND ms.movie = ss.movie")
+    List<Object[]> findShowtimeByInvoiceId(@Param("invoiceId") Long invoiceId);
+}
@@ -0,0 +1,39 @@
+package org.example.movie.repository;
+
+import org.example.movie.entity.OutboxMessage;
+import org.example.movie.enums.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    @Query("SELECT o FROM OutboxMessage o WHERE o.status = org.example.movie.enums.OutboxStatus.PENDING " +
+            "AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt")
+    List<OutboxMessage> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT MIN(o.createdAt) FROM OutboxMessage o WHERE o.status = org.example.movie.enums.OutboxStatus.PENDING")
+    Optional<LocalDateTime> findOldestPendingCreatedAt();
+
+    long countByStatus(OutboxStatus status);
+
+    List<OutboxMessage> findByEventTypeAndAggregateId(String eventType, Long aggregateId);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage o SET o.status = org.example.movie.enums.OutboxStatus.SENT, o.sentAt = :sentAt, " +
+            "o.attempts = o.attempts + 1, o.lastError = null, o.version = o.version + 1 WHERE o.outboxId IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage o SET o.status = :status, o.attempts = o.attempts + 1, o.nextAttemptAt = :nextAttemptAt, " +
+            "o.lastError = :error, o.version = o.version + 1 WHERE o.outboxId = :id")
+    int markFailed(@Param("id") Long id, @Param("status") OutboxStatus status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+}
@@ -1,12 +1,18 @@
 package org.example.movie.repository;
 
 import org.example.movie.entity.Promotion;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface PromotionRepository extends JpaRepository<Promotion, Long> {
     Optional<Promotion> findByPromotionIdAndEndTimeAfter(Long promotionId, java.time.LocalDateTime now);
-    List<Promotion> findByTitleContainingIgnoreCase(String title);
-}
\ No newline at end of file
+
+    @Query("SELECT p FROM Promotion p WHERE p.promotionId > :cursor AND (:keyword IS NULL " +
+            "OR LOWER(p.title) LIKE LOWER(CONCAT('%', :keyword, '%'))) ORDER BY p.promotionId")
+    List<Promotion> findPageAfter(@Param("cursor") Long cursor, @Param("keyword") String keyword, Limit limit);
+}
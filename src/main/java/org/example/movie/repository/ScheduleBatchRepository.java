@@ -0,0 +1,170 @@
+package org.example.movie.repository;
+
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.SeatStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ghi hàng loạt lịch chiếu của một phim bằng JDBC batch.
+ * Các entity dùng GenerationType.IDENTITY nên Hibernate không thể gom lệnh INSERT;
+ * ở đây mỗi bảng chỉ tốn một batch (MySQL gộp thành INSERT nhiều dòng khi bật rewriteBatchedStatements),
+ * id được lấy lại từ generated keys của chính batch đó.
+ */
+@Repository
+public class ScheduleBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final DateTimeFormatter LEGACY_SCHEDULE_TIME = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd'T'HH:mm")
+            .optionalStart()
+            .appendPattern(":ss")
+            .optionalEnd()
+            .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+            .toFormatter();
+
+    // Tiền tố đánh dấu giá trị SCHEDULE_TIME cũ không chuyển được, các lần migrate sau bỏ qua
+    static final String INVALID_SCHEDULE_TIME = "INVALID:";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScheduleBatchRepository.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<Long> insertShowDates(List<LocalDate> showDates) {
+        return insertReturningIds("INSERT INTO movietheater_show_dates (show_date) VALUES (?)",
+                "show_date_id", showDates, (ps, showDate) -> ps.setDate(1, Date.valueOf(showDate)));
+    }
+
+    public void insertMovieDates(Long movieId, List<Long> showDateIds) {
+        jdbcTemplate.batchUpdate("INSERT INTO movietheater_movie_date (movie_id, show_date_id) VALUES (?, ?)",
+                showDateIds, BATCH_SIZE, (ps, showDateId) -> {
+                    ps.setLong(1, movieId);
+                    ps.setLong(2, showDateId);
+                });
+    }
+
+    public List<Long> insertSchedules(List<LocalDateTime> scheduleTimes) {
+        return insertReturningIds("INSERT INTO movietheater_schedule (show_time) VALUES (?)",
+                "schedule_id", scheduleTimes, (ps, scheduleTime) -> ps.setTimestamp(1, Timestamp.valueOf(scheduleTime)));
+    }
+
+    /**
+     * Chuyển giờ chiếu dạng chuỗi (cột SCHEDULE_TIME cũ, "yyyy-MM-dd'T'HH:mm[:ss]") sang cột SHOW_TIME.
+     * Chỉ đọc các dòng chưa có SHOW_TIME nên chạy lại nhiều lần không tốn gì; database mới không có cột cũ thì bỏ qua.
+     * Giá trị không đọc được được đánh dấu một lần bằng tiền tố INVALID_SCHEDULE_TIME (giữ nguyên chuỗi gốc để sửa tay)
+     * và không bị đọc lại ở các lần khởi động sau.
+     */
+    public int migrateLegacyScheduleTimes() {
+        List<Object[]> updates = new ArrayList<>();
+        List<Long> invalidIds = new ArrayList<>();
+        try {
+            jdbcTemplate.query("SELECT schedule_id, schedule_time FROM movietheater_schedule " +
+                    "WHERE show_time IS NULL AND schedule_time IS NOT NULL AND schedule_time NOT LIKE ?", rs -> {
+                try {
+                    LocalDateTime scheduleTime = LocalDateTime.parse(rs.getString(2), LEGACY_SCHEDULE_TIME);
+                    updates.add(new Object[]{Timestamp.valueOf(scheduleTime), rs.getLong(1)});
+                } catch (DateTimeParseException e) {
+                    LOGGER.warn("Cannot migrate schedule {} with time '{}'", rs.getLong(1), rs.getString(2));
+                    invalidIds.add(rs.getLong(1));
+                }
+            }, INVALID_SCHEDULE_TIME + "%");
+        } catch (BadSqlGrammarException e) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("UPDATE movietheater_schedule SET show_time = ? WHERE schedule_id = ?", updates);
+        if (!invalidIds.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE movietheater_schedule SET schedule_time = CONCAT(?, schedule_time) " +
+                    "WHERE schedule_id = ?", invalidIds, BATCH_SIZE, (ps, scheduleId) -> {
+                ps.setString(1, INVALID_SCHEDULE_TIME);
+                ps.setLong(2, scheduleId);
+            });
+            LOGGER.warn("Flagged {} legacy schedule times as {}, fix them by hand", invalidIds.size(), INVALID_SCHEDULE_TIME);
+        }
+        return updates.size();
+    }
+
+    public void insertMovieSchedules(Long movieId, List<Long> scheduleIds) {
+        jdbcTemplate.batchUpdate("INSERT INTO movietheater_movie_schedule (movie_id, schedule_id) VALUES (?, ?)",
+                scheduleIds, BATCH_SIZE, (ps, scheduleId) -> {
+                    ps.setLong(1, movieId);
+                    ps.setLong(2, scheduleId);
+                });
+    }
+
+    /**
+     * Tạo ScheduleSeat cho mọi ghế của phòng chiếu trong từng lịch chiếu.
+     */
+    public void insertScheduleSeats(Long movieId, List<Long> scheduleIds, List<Seat> seats) {
+        List<long[]> rows = new ArrayList<>(scheduleIds.size() * seats.size());
+        for (Long scheduleId : scheduleIds) {
+            for (int i = 0; i < seats.size(); i++) {
+                rows.add(new long[]{scheduleId, i});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO movietheater_schedule_seat " +
+                        "(schedule_id, movie_id, seat_id, seat_column, seat_row, seat_status, seat_type, version) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, 0)",
+                rows, BATCH_SIZE, (ps, row) -> {
+                    Seat seat = seats.get((int) row[1]);
+                    ps.setLong(1, row[0]);
+                    ps.setLong(2, movieId);
+                    ps.setLong(3, seat.getSeatId());
+                    ps.setString(4, seat.getSeatColumn());
+                    ps.setInt(5, seat.getSeatRow());
+                    ps.setString(6, SeatStatus.AVAILABLE.name());
+                    ps.setInt(7, seat.getSeatType().ordinal());
+                });
+    }
+
+    private <T> List<Long> insertReturningIds(String sql, String idColumn, List<T> values,
+                                              ParameterSetter<T> setter) {
+        List<Long> ids = new ArrayList<>(values.size());
+        for (int from = 0; from < values.size(); from += BATCH_SIZE) {
+            List<T> chunk = values.subList(from, Math.min(from + BATCH_SIZE, values.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{idColumn}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setter.accept(ps, chunk.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keyHolder);
+            for (var key : keyHolder.getKeyList()) {
+                ids.add(((Number) key.values().iterator().next()).longValue());
+            }
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface ParameterSetter<T> {
+        void accept(PreparedStatement ps, T value) throws SQLException;
+    }
+}
@@ -2,8 +2,15 @@ package org.example.movie.repository;
 
 
 
+import org.example.movie.entity.Invoice;
 import org.example.movie.entity.ScheduleSeat;
+import org.example.movie.enums.SeatStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +19,93 @@ public interface ScheduleSeatRepository extends JpaRepository<ScheduleSeat, Long
     List<ScheduleSeat> findBySchedule_ScheduleIdAndMovie_MovieId(Long scheduleId, Long movieId);
     List<ScheduleSeat> findByMovieMovieId(Long movieId);
     Optional<ScheduleSeat> findFirstBySchedule_ScheduleId(Long scheduleId);
-}
\ No newline at end of file
+
+    List<ScheduleSeat> findBySchedule_ScheduleIdAndMovie_MovieIdAndSeat_SeatIdIn(Long scheduleId, Long movieId,
+                                                                                 Collection<Long> seatIds);
+
+    // Ghế đã bị chiếm theo lịch chiếu (MovieSchedule.id, Seat.id) để dựng SeatInventory, ghế AVAILABLE không cần đọc
+    @Query("SELECT ms.id, ss.seat.seatId FROM ScheduleSeat ss, MovieSchedule ms " +
+            "WHERE ms.schedule = ss.schedule AND ms.movie = ss.movie AND ss.seat IS NOT NULL " +
+            "AND ss.seatStatus <> org.example.movie.enums.SeatStatus.AVAILABLE")
+    List<Object[]> findAllTakenSeats();
+
+    @Query("SELECT ss.seat.seatId FROM ScheduleSeat ss, MovieSchedule ms " +
+            "WHERE ms.schedule = ss.schedule AND ms.movie = ss.movie AND ms.id = :movieScheduleId " +
+            "AND ss.seat IS NOT NULL AND ss.seatStatus <> org.example.movie.enums.SeatStatus.AVAILABLE")
+    List<Long> findTakenSeatIdsByMovieScheduleId(@Param("movieScheduleId") Long movieScheduleId);
+
+    // Chỉ nhận dòng ScheduleSeat thuộc đúng lịch chiếu được yêu cầu
+    @Query("SELECT ss.seat.seatId FROM ScheduleSeat ss, MovieSchedule ms WHERE ms.id = :movieScheduleId " +
+            "AND ss.schedule = ms.schedule AND ss.movie = ms.movie " +
+            "AND ss.scheduleSeatId IN :scheduleSeatIds AND ss.seat IS NOT NULL")
+    List<Long> findSeatIdsByScheduleSeatIds(@Param("movieScheduleId") Long movieScheduleId,
+                                            @Param("scheduleSeatIds") Collection<Long> scheduleSeatIds);
+
+    long countByInvoice_InvoiceIdAndSeatStatus(Long invoiceId, SeatStatus seatStatus);
+
+    @Query("SELECT ss.seat.seatId FROM ScheduleSeat ss WHERE ss.invoice.invoiceId = :invoiceId AND ss.seat IS NOT NULL")
+    List<Long> findSeatIdsByInvoiceId(@Param("invoiceId") Long invoiceId);
+
+    // Gắn SEAT_ID cho các dòng cũ được tạo trước khi ScheduleSeat lưu ghế mẫu, dựa vào phòng chiếu của phim và vị trí ghế
+    @Modifying
+    @Query(value = "UPDATE movietheater_schedule_seat ss SET seat_id = (" +
+            "SELECT s.seat_id FROM movietheater_seat s JOIN movietheater_movie m ON m.cinema_room_id = s.cinema_room_id " +
+            "WHERE m.movie_id = ss.movie_id AND s.seat_column = ss.seat_column AND s.seat_row = ss.seat_row) " +
+            "WHERE ss.seat_id IS NULL", nativeQuery = true)
+    int backfillTemplateSeats();
+
+    boolean existsBySeatIsNull();
+
+    // Ghế đang được giữ kèm (invoiceId, holdExpiresAt, MovieSchedule.id, Seat.id) để khôi phục bộ hẹn giờ giữ ghế
+    @Query("SELECT ss.invoice.invoiceId, ss.invoice.holdExpiresAt, ms.id, ss.seat.seatId " +
+            "FROM ScheduleSeat ss, MovieSchedule ms " +
+            "WHERE ss.seatStatus = org.example.movie.enums.SeatStatus.HELD AND ss.seat IS NOT NULL " +
+            "AND ms.schedule = ss.schedule AND ms.movie = ss.movie")
+    List<Object[]> findAllHeldSeats();
+
+    // Giữ ghế trong một câu lệnh: chỉ cập nhật ghế còn AVAILABLE, số dòng bị ảnh hưởng cho biết có giữ được đủ ghế hay không
+    @Modifying
+    @Query("UPDATE ScheduleSeat ss SET ss.seatStatus = org.example.movie.enums.SeatStatus.HELD, " +
+            "ss.invoice = :invoice, ss.version = ss.version + 1 " +
+            "WHERE ss.scheduleSeatId IN :scheduleSeatIds AND ss.seatStatus = org.example.movie.enums.SeatStatus.AVAILABLE")
+    int claimAvailableSeats(@Param("scheduleSeatIds") Collection<Long> scheduleSeatIds, @Param("invoice") Invoice invoice);
+
+    @Modifying
+    @Query("UPDATE ScheduleSeat ss SET ss.seatStatus = org.example.movie.enums.SeatStatus.BOOKED, ss.version = ss.version + 1 " +
+            "WHERE ss.invoice.invoiceId = :invoiceId AND ss.seatStatus = org.example.movie.enums.SeatStatus.HELD")
+    int confirmHeldSeats(@Param("invoiceId") Long invoiceId);
+
+    // Khóa các dòng ghế còn HELD của các hóa đơn (SELECT ... FOR UPDATE) và trả về invoiceId của từng dòng:
+    // lần xác nhận đồng thời phải chờ đến khi transaction trả ghế kết thúc
+    @Query(value = "SELECT ss.invoice_id FROM movietheater_schedule_seat ss " +
+            "WHERE ss.invoice_id IN (:invoiceIds) AND ss.seat_status = 'HELD' FOR UPDATE", nativeQuery = true)
+    List<Long> lockHeldSeatInvoiceIds(@Param("invoiceIds") Collection<Long> invoiceIds);
+
+    @Modifying
+    @Query("UPDATE ScheduleSeat ss SET ss.seatStatus = org.example.movie.enums.SeatStatus.AVAILABLE, ss.invoice = null, " +
+            "ss.version = ss.version + 1 " +
+            "WHERE ss.invoice.invoiceId IN :invoiceIds AND ss.seatStatus = org.example.movie.enums.SeatStatus.HELD")
+    int releaseHeldSeats(@Param("invoiceIds") Collection<Long> invoiceIds);
+
+    // Đặt vé số lượng lớn: chuyển thẳng các dòng ScheduleSeat đang AVAILABLE của các ghế sang BOOKED
+    @Modifying
+    @Query("UPDATE ScheduleSeat ss SET ss.seatStatus = org.example.movie.enums.SeatStatus.BOOKED, " +
+            "ss.invoice = :invoice, ss.version = ss.version + 1 " +
+            "WHERE ss.schedule.scheduleId = :scheduleId AND ss.movie.movieId = :movieId AND ss.seat.seatId IN :seatIds " +
+            "AND ss.seatStatus = org.example.movie.enums.SeatStatus.AVAILABLE")
+    int bookAvailableSeats(@Param("scheduleId") Long scheduleId, @Param("movieId") Long movieId,
+                           @Param("seatIds") Collection<Long> seatIds, @Param("invoice") Invoice invoice);
+
+    // Tạo dòng BOOKED từ ghế mẫu cho các ghế chưa có dòng ScheduleSeat; SEAT_TYPE lưu theo ordinal của SeatType.
+    // Dòng trùng do instance khác tạo cùng lúc bị ràng buộc unique (schedule, movie, seat) từ chối
+    @Modifying
+    @Query(value = "INSERT INTO movietheater_schedule_seat " +
+            "(schedule_id, movie_id, seat_id, seat_column, seat_row, seat_type, seat_status, version, invoice_id) " +
+            "SELECT :scheduleId, :movieId, s.seat_id, s.seat_column, s.seat_row, " +
+            "CASE s.seat_type WHEN 'VIP' THEN 1 ELSE 0 END, 'BOOKED', 0, :invoiceId " +
+            "FROM movietheater_seat s WHERE s.seat_id IN :seatIds AND NOT EXISTS (" +
+            "SELECT 1 FROM movietheater_schedule_seat ss WHERE ss.schedule_id = :scheduleId " +
+            "AND ss.movie_id = :movieId AND ss.seat_id = s.seat_id)", nativeQuery = true)
+    int insertBookedSeats(@Param("scheduleId") Long scheduleId, @Param("movieId") Long movieId,
+                          @Param("seatIds") Collection<Long> seatIds, @Param("invoiceId") Long invoiceId);
+}
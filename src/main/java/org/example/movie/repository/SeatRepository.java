@@ -1,10 +1,28 @@
 package org.example.movie.repository;
 
+import org.example.movie.dto.projection.SeatMapRow;
 import org.example.movie.entity.Seat;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface SeatRepository extends JpaRepository<Seat, Long> {
     List<Seat> findByCinemaRoomCinemaRoomId(Long cinemaRoomId);
-}
\ No newline at end of file
+    List<Seat> findByCinemaRoomCinemaRoomIdOrderBySeatIdAsc(Long cinemaRoomId);
+
+    // Ghế mẫu của mọi phòng chiếu (CinemaRoom.id, Seat.id) để dựng SeatInventory
+    @Query("SELECT s.cinemaRoom.cinemaRoomId, s.seatId FROM Seat s ORDER BY s.cinemaRoom.cinemaRoomId, s.seatId")
+    List<Object[]> findAllSeatIdsByCinemaRoom();
+
+    @Query("SELECT s.seatId FROM Seat s WHERE s.cinemaRoom.cinemaRoomId = :cinemaRoomId ORDER BY s.seatId")
+    List<Long> findSeatIdsByCinemaRoomId(@Param("cinemaRoomId") Long cinemaRoomId);
+
+    // Sơ đồ ghế của lịch chiếu (MovieSchedule.id) trong một truy vấn: ghế mẫu của phòng chiếu LEFT JOIN lớp phủ ScheduleSeat
+    @Query("SELECT new org.example.movie.dto.projection.SeatMapRow(s.seatId, ss.scheduleSeatId, s.seatColumn, s.seatRow, " +
+            "ss.seatStatus, s.seatType) FROM MovieSchedule ms JOIN ms.movie m JOIN Seat s ON s.cinemaRoom = m.cinemaRoom " +
+            "LEFT JOIN ScheduleSeat ss ON ss.seat = s AND ss.schedule = ms.schedule AND ss.movie = m " +
+            "WHERE ms.id = :movieScheduleId ORDER BY s.seatId")
+    List<SeatMapRow> findSeatMap(@Param("movieScheduleId") Long movieScheduleId);
+}
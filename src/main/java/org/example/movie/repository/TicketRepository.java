@@ -2,10 +2,29 @@ package org.example.movie.repository;
 
 import org.example.movie.entity.Ticket;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
     List<Ticket> findByScheduleSeat_ScheduleSeatId(Long scheduleSeatId);
 
-}
\ No newline at end of file
+    List<Ticket> findByInvoice_InvoiceId(Long invoiceId);
+
+    // Tạo một vé cho mỗi ghế đã BOOKED của hóa đơn trong một câu lệnh, bỏ qua ghế đã có vé của hóa đơn này
+    @Modifying
+    @Query(value = "INSERT INTO movietheater_ticket (price, ticket_type, schedule_seat_id, invoice_id) " +
+            "SELECT :price, :ticketType, ss.schedule_seat_id, ss.invoice_id FROM movietheater_schedule_seat ss " +
+            "WHERE ss.invoice_id = :invoiceId AND ss.seat_status = 'BOOKED' AND NOT EXISTS (" +
+            "SELECT 1 FROM movietheater_ticket t " +
+            "WHERE t.schedule_seat_id = ss.schedule_seat_id AND t.invoice_id = ss.invoice_id)", nativeQuery = true)
+    int insertTicketsForInvoice(@Param("invoiceId") Long invoiceId, @Param("price") int price,
+                                @Param("ticketType") int ticketType);
+
+    // Nhãn ghế (cột + hàng) của các vé trong hóa đơn
+    @Query("SELECT CONCAT(ss.seatColumn, ss.seatRow) FROM Ticket t JOIN t.scheduleSeat ss " +
+            "WHERE t.invoice.invoiceId = :invoiceId ORDER BY ss.seatRow, ss.seatColumn")
+    List<String> findSeatLabelsByInvoiceId(@Param("invoiceId") Long invoiceId);
+}
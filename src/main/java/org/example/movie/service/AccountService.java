@@ -1,6 +1,7 @@
 package org.example.movie.service;
 
 import org.example.movie.configuration.JwtUtil;
+import org.example.movie.dto.projection.BookedTicketRow;
 import org.example.movie.dto.request.LoginRequest;
 import org.example.movie.dto.request.RegisterRequest;
 import org.example.movie.dto.request.UpdateAccountRequest;
@@ -28,7 +29,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +44,9 @@ public class AccountService {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private Pagination pagination;
+
     @Autowired
     private RoleService roleService;
 
@@ -239,10 +242,11 @@ public class AccountService {
         return accountMapper.toMemberAccountResponse(account);
     }
 
-    public List<MemberListResponse> getAllMembers() {
-        List<Member> members = memberRepository.findAll();
-        return members.stream()
-                .map(member -> {
+    public PageResponse<MemberListResponse> getAllMembers(String cursor, Integer size) {
+        int pageSize = pagination.size(size);
+        List<Member> members = memberRepository.findPageAfter(pagination.longCursor(cursor), pagination.limit(pageSize));
+        return pagination.page(members, pageSize, Member::getMemberId,
+                member -> {
                     Account account = member.getAccount();
                     MemberListResponse response = new MemberListResponse();
                     response.setMemberId(Long.valueOf(member.getMemberId()));
@@ -256,49 +260,49 @@ public class AccountService {
                     response.setStatisticLink("/api/admin/members/" + member.getMemberId() + "/statistics");
                     response.setEditLink("/api/admin/members/" + member.getMemberId() + "/account");
                     return response;
-                })
-                .collect(Collectors.toList());
+                });
     }
 
 
-    public List<BookedTicketResponse> getBookedTicketsForCurrentUser() {
+    public PageResponse<BookedTicketResponse> getBookedTicketsForCurrentUser(String cursor, Integer size) {
         Long accountId = getCurrentUserId();
-        List<Invoice> invoices = invoiceRepository.findByAccount_AccountIdAndStatus(accountId, InvoiceStatus.PENDING); // Giả định 1 là trạng thái "đã đặt"
-        return invoices.stream()
-                .map(invoice -> {
-                    BookedTicketResponse response = new BookedTicketResponse();
-                    response.setMovieName(invoice.getMovieName());
-                    response.setBookingDate(invoice.getBookingDate().toLocalDate());
-                    response.setTotalAmount(invoice.getTotalMoney());
-                    response.setStatus(invoice.getStatus().ordinal());
-                    response.setInvoiceId(Long.valueOf(invoice.getInvoiceId()));
-                    return response;
-                })
-                .collect(Collectors.toList());
+        int pageSize = pagination.size(size);
+        List<BookedTicketRow> rows = invoiceRepository.findBookedTickets(accountId, InvoiceStatus.PENDING, // Giả định 1 là trạng thái "đã đặt"
+                pagination.longCursor(cursor), pagination.limit(pageSize));
+        return pagination.page(rows, pageSize, BookedTicketRow::invoiceId, row -> {
+            BookedTicketResponse response = new BookedTicketResponse();
+            response.setMovieName(row.movieName());
+            response.setBookingDate(row.bookingDate().toLocalDate());
+            response.setTotalAmount(row.totalMoney());
+            response.setStatus(row.status().ordinal());
+            response.setInvoiceId(row.invoiceId());
+            return response;
+        });
     }
 
-    public List<ScoreHistoryResponse> getScoreHistory(String type, LocalDate fromDate, LocalDate toDate) {
+    /**
+     * Lịch sử điểm theo trang (invoiceId tăng dần); fromDate, toDate nếu có là khoảng ngày đặt, tính cả hai đầu.
+     */
+    public PageResponse<ScoreHistoryResponse> getScoreHistory(String type, LocalDate fromDate, LocalDate toDate,
+                                                              String cursor, Integer size) {
         Long accountId = getCurrentUserId();
+        int pageSize = pagination.size(size);
         if ("using".equals(type)) {
-            List<Invoice> invoices;
-            if (fromDate != null && toDate != null) {
-                invoices = invoiceRepository.findByAccount_AccountIdAndUseScoreGreaterThanAndBookingDateBetween(accountId, 0, fromDate, toDate);
-            } else {
-                invoices = invoiceRepository.findByAccount_AccountIdAndUseScoreGreaterThan(accountId, 0);
-            }
-            return invoices.stream()
-                    .map(invoice -> {
-                        ScoreHistoryResponse response = new ScoreHistoryResponse();
-                        response.setDate(invoice.getBookingDate().toLocalDate());
-                        response.setMovieName(invoice.getMovieName());
-                        response.setAmount(-invoice.getUseScore());
-                        response.setType("Using");
-                        return response;
-                    })
-                    .collect(Collectors.toList());
+            List<Invoice> invoices = invoiceRepository.findScoreUsage(accountId,
+                    fromDate != null ? fromDate.atStartOfDay() : null,
+                    toDate != null ? toDate.plusDays(1).atStartOfDay() : null,
+                    pagination.longCursor(cursor), pagination.limit(pageSize));
+            return pagination.page(invoices, pageSize, Invoice::getInvoiceId, invoice -> {
+                ScoreHistoryResponse response = new ScoreHistoryResponse();
+                response.setDate(invoice.getBookingDate().toLocalDate());
+                response.setMovieName(invoice.getMovieName());
+                response.setAmount(-invoice.getUseScore());
+                response.setType("Using");
+                return response;
+            });
         } else if ("adding".equals(type)) {
             // Chưa triển khai do thiếu thực thể ScoreTransaction
-            return Collections.emptyList();
+            return new PageResponse<>(Collections.emptyList(), null, false);
         } else {
             throw new IllegalArgumentException("Loại không hợp lệ: " + type);
         }
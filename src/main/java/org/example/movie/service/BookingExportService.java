@@ -0,0 +1,108 @@
+package org.example.movie.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.movie.dto.projection.BookingExportRow;
+import org.example.movie.enums.ExportFormat;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.InvoiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Xuất danh sách đặt vé cho nhân viên và kế toán dưới dạng CSV hoặc NDJSON.
+ * Hóa đơn được đọc tuần tự qua con trỏ JDBC thành BookingExportRow (không phải entity, nên persistence context
+ * không lớn dần) và ghi ngay ra output stream, bộ nhớ dùng không phụ thuộc số hóa đơn.
+ */
+@Service
+public class BookingExportService {
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingExportService.class);
+
+    private static final String CSV_HEADER = "invoiceId,bookingDate,status,movieName,scheduleShowTime,seat,"
+            + "totalMoney,useScore,addScore,fullName,identityCard,phoneNumber";
+
+    /**
+     * Kiểm tra khoảng ngày trước khi bắt đầu ghi response; from/to null thì không giới hạn phía đó.
+     */
+    public void checkRange(LocalDate fromDate, LocalDate toDate) {
+        if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "From date must be before to date");
+        }
+    }
+
+    /**
+     * Ghi các hóa đơn có bookingDate trong [fromDate, toDate] (tính cả ngày toDate) theo invoiceId tăng dần.
+     * Không đóng output stream. Trả về số hóa đơn đã ghi.
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, LocalDate fromDate, LocalDate toDate, OutputStream out) throws IOException {
+        checkRange(fromDate, toDate);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+        try (Stream<BookingExportRow> rows = invoiceRepository.streamForExport(
+                fromDate != null ? fromDate.atStartOfDay() : null,
+                toDate != null ? toDate.plusDays(1).atStartOfDay() : null)) {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            Iterator<BookingExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                BookingExportRow row = iterator.next();
+                writer.write(format == ExportFormat.CSV ? toCsv(row) : objectMapper.writeValueAsString(row));
+                writer.write('\n');
+                count++;
+            }
+        }
+        writer.flush();
+        LOGGER.info("Exported {} bookings as {} (from {} to {})", count, format, fromDate, toDate);
+        return count;
+    }
+
+    private String toCsv(BookingExportRow row) {
+        StringBuilder line = new StringBuilder(128);
+        Object[] values = {row.invoiceId(), row.bookingDate(), row.status(), row.movieName(), row.scheduleShowTime(),
+                row.seat(), row.totalMoney(), row.useScore(), row.addScore(), row.fullName(), row.identityCard(),
+                row.phoneNumber()};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendCsv(line, values[i]);
+        }
+        return line.toString();
+    }
+
+    // Bọc giá trị trong dấu nháy kép nếu chứa dấu phẩy, nháy kép hoặc xuống dòng (RFC 4180)
+    private static void appendCsv(StringBuilder line, Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            line.append(text);
+            return;
+        }
+        line.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,270 @@
+package org.example.movie.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.movie.dto.request.BestAvailableRequest;
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hàng đợi giữ ghế theo lịch chiếu (MovieSchedule.id).
+ * Mỗi lịch chiếu có một lane xử lý lệnh tuần tự trên một virtual thread, các lane khác nhau chạy song song.
+ * Lane gom tối đa batch-size lệnh vào một transaction; lệnh chắc chắn thất bại (ghế đã bị chiếm trong bộ nhớ
+ * hoặc bị lệnh trước trong cùng lô chọn) bị từ chối trước khi mở transaction.
+ * Nếu transaction của cả lô thất bại, từng lệnh được chạy lại trong transaction riêng.
+ */
+@Service
+public class BookingLaneService {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SeatMapService seatMapService;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private SeatAllocator seatAllocator;
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.lanes.enabled:true}")
+    private boolean lanesEnabled;
+
+    @Value("${booking.lanes.batch-size:16}")
+    private int batchSize;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookingLaneService.class);
+
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private TransactionTemplate transactionTemplate;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        batchSizes = DistributionSummary.builder("booking.lane.batch.size")
+                .description("Number of seat selections committed in one lane transaction")
+                .register(meterRegistry);
+        meterRegistry.gauge("booking.lane.active", lanes, Map::size);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Chọn ghế cho người dùng hiện tại. Tài khoản được lấy trên luồng gọi vì SecurityContext gắn với luồng đó.
+     * onReserved được gọi với invoiceId bên trong transaction giữ ghế (ví dụ để lưu bản ghi idempotency).
+     */
+    public CompletableFuture<Long> selectSeats(SelectSeatsRequest request, Consumer<Long> onReserved) {
+        Long accountId = bookingService.getCurrentUserId();
+        if (!lanesEnabled) {
+            return CompletableFuture.completedFuture(inTransaction(
+                    () -> bookingService.selectSeats(request, accountId), onReserved));
+        }
+        return enqueue(request.getScheduleId(), accountId, batchSeatIds -> seatMapService.resolveSelection(request),
+                onReserved);
+    }
+
+    public CompletableFuture<Long> submit(SelectSeatsRequest request, Long accountId) {
+        return enqueue(request.getScheduleId(), accountId, batchSeatIds -> seatMapService.resolveSelection(request),
+                invoiceId -> {
+                });
+    }
+
+    /**
+     * Chọn nhóm ghế tốt nhất cho người dùng hiện tại. Việc tìm ghế chạy ngay trong lane,
+     * sau các lệnh trước đó của cùng lịch chiếu, nên ghế tìm được không bị lệnh khác chiếm mất.
+     */
+    public CompletableFuture<Long> selectBestAvailable(BestAvailableRequest request, Consumer<Long> onReserved) {
+        Long accountId = bookingService.getCurrentUserId();
+        if (!lanesEnabled) {
+            return CompletableFuture.completedFuture(inTransaction(
+                    () -> bookingService.selectBestAvailable(request, accountId), onReserved));
+        }
+        return enqueue(request.getScheduleId(), accountId, bestAvailable(request), onReserved);
+    }
+
+    public CompletableFuture<Long> submitBestAvailable(BestAvailableRequest request, Long accountId) {
+        return enqueue(request.getScheduleId(), accountId, bestAvailable(request), invoiceId -> {
+        });
+    }
+
+    private SeatResolver bestAvailable(BestAvailableRequest request) {
+        return batchSeatIds -> seatAllocator.findBestAvailable(
+                request.getScheduleId(), request.getQuantity(), request.getSeatType(), batchSeatIds);
+    }
+
+    // Khi tắt lane: thao tác và onReserved chạy chung một transaction
+    private Long inTransaction(Supplier<Long> reserve, Consumer<Long> onReserved) {
+        return waitingRoomService.withBookingPermit(() -> transactionTemplate.execute(status -> {
+            Long invoiceId = reserve.get();
+            onReserved.accept(invoiceId);
+            return invoiceId;
+        }));
+    }
+
+    private CompletableFuture<Long> enqueue(Long movieScheduleId, Long accountId, SeatResolver resolver,
+                                            Consumer<Long> onReserved) {
+        if (movieScheduleId == null) {
+            return CompletableFuture.failedFuture(new AppException(ErrorCode.SHOWTIME_NOT_FOUND));
+        }
+        Command command = new Command(resolver, accountId, onReserved);
+        lanes.compute(movieScheduleId, (scheduleId, lane) -> {
+            Lane target = lane != null ? lane : new Lane(scheduleId);
+            target.pending.add(command);
+            if (!target.running) {
+                target.running = true;
+                executor.execute(() -> drain(target));
+            }
+            return target;
+        });
+        return command.result;
+    }
+
+    private void drain(Lane lane) {
+        while (true) {
+            List<Command> batch = new ArrayList<>(batchSize);
+            Command command;
+            while (batch.size() < batchSize && (command = lane.pending.poll()) != null) {
+                batch.add(command);
+            }
+            if (batch.isEmpty()) {
+                // Gỡ lane khi hết lệnh; việc thêm lệnh cũng đi qua compute nên không bị lọt lệnh
+                boolean[] finished = {false};
+                lanes.compute(lane.scheduleId, (scheduleId, current) -> {
+                    if (lane.pending.isEmpty()) {
+                        lane.running = false;
+                        finished[0] = true;
+                        return null;
+                    }
+                    return current;
+                });
+                if (finished[0]) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                process(lane.scheduleId, batch);
+            } catch (RuntimeException e) {
+                LOGGER.error("Booking lane for schedule {} failed", lane.scheduleId, e);
+                batch.forEach(failed -> failed.result.completeExceptionally(e));
+            }
+        }
+    }
+
+    private void process(Long scheduleId, List<Command> batch) {
+        List<Command> accepted = new ArrayList<>(batch.size());
+        Set<Long> batchSeatIds = new HashSet<>();
+        for (Command command : batch) {
+            try {
+                List<Long> seatIds = command.resolver.resolve(batchSeatIds);
+                if (!seatInventory.isAvailable(scheduleId, seatIds) || !Collections.disjoint(batchSeatIds, seatIds)) {
+                    throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+                }
+                batchSeatIds.addAll(seatIds);
+                command.seatIds = seatIds;
+                accepted.add(command);
+            } catch (RuntimeException e) {
+                command.result.completeExceptionally(e);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Long> invoiceIds = waitingRoomService.withBookingPermit(() -> transactionTemplate.execute(status ->
+                    accepted.stream().map(command -> reserve(scheduleId, command)).toList()));
+            batchSizes.record(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                accepted.get(i).result.complete(invoiceIds.get(i));
+            }
+        } catch (RuntimeException batchFailure) {
+            if (accepted.size() == 1) {
+                accepted.get(0).result.completeExceptionally(batchFailure);
+                return;
+            }
+            LOGGER.debug("Batch of {} selections for schedule {} failed, retrying individually: {}",
+                    accepted.size(), scheduleId, batchFailure.getMessage());
+            for (Command command : accepted) {
+                try {
+                    command.result.complete(waitingRoomService.withBookingPermit(() -> transactionTemplate.execute(status ->
+                            reserve(scheduleId, command))));
+                    batchSizes.record(1);
+                } catch (RuntimeException e) {
+                    command.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    // Chạy trong transaction của lane: onReserved của lệnh commit cùng hóa đơn giữ ghế
+    private Long reserve(Long scheduleId, Command command) {
+        Long invoiceId = bookingService.reserveSeats(scheduleId, command.seatIds, command.accountId);
+        command.onReserved.accept(invoiceId);
+        return invoiceId;
+    }
+
+    private static final class Lane {
+        private final Long scheduleId;
+        private final Queue<Command> pending = new ConcurrentLinkedQueue<>();
+        // Chỉ đọc/ghi bên trong lanes.compute
+        private boolean running;
+
+        Lane(Long scheduleId) {
+            this.scheduleId = scheduleId;
+        }
+    }
+
+    /**
+     * Xác định Seat.id của một lệnh; batchSeatIds là các ghế đã được lệnh trước trong cùng lô chọn.
+     */
+    @FunctionalInterface
+    private interface SeatResolver {
+        List<Long> resolve(Set<Long> batchSeatIds);
+    }
+
+    private static final class Command {
+        private final SeatResolver resolver;
+        private final Long accountId;
+        private final Consumer<Long> onReserved;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private List<Long> seatIds;
+
+        Command(SeatResolver resolver, Long accountId, Consumer<Long> onReserved) {
+            this.resolver = resolver;
+            this.accountId = accountId;
+            this.onReserved = onReserved;
+        }
+    }
+}
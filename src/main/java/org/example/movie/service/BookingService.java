@@ -1,7 +1,9 @@
 package org.example.movie.service;
 
 import jakarta.transaction.Transactional;
+import org.example.movie.configuration.JwtAuthenticationDetails;
 import org.example.movie.configuration.JwtUtil;
+import org.example.movie.dto.request.BestAvailableRequest;
 import org.example.movie.dto.request.BookingSearchRequest;
 import org.example.movie.dto.request.SelectSeatsRequest;
 import org.example.movie.dto.request.TicketConfirmationRequest;
@@ -9,26 +11,28 @@ import org.example.movie.dto.response.*;
 import org.example.movie.entity.*;
 import org.example.movie.enums.InvoiceStatus;
 import org.example.movie.enums.SeatStatus;
+import org.example.movie.enums.TicketType;
+import org.example.movie.event.SeatStatusChangedEvent;
 import org.example.movie.exception.AppException;
 import org.example.movie.exception.ErrorCode;
-import org.example.movie.mapper.MovieMapper;
-import org.example.movie.mapper.ScheduleSeatMapper;
 import org.example.movie.mapper.TicketMapper;
 import org.example.movie.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -49,11 +53,14 @@ public class BookingService {
     @Autowired
     private ScheduleSeatRepository scheduleSeatRepository;
 
+    @Autowired
+    private SeatRepository seatRepository;
+
     @Autowired
     private InvoiceRepository invoiceRepository;
 
     @Autowired
-    private PromotionRepository promotionRepository;
+    private TicketRepository ticketRepository;
 
     @Autowired
     private TicketMapper ticketMapper;
@@ -62,19 +69,47 @@ public class BookingService {
     private MemberRepository memberRepository;
 
     @Autowired
-    private ScheduleSeatMapper scheduleSeatMapper;
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private SeatHoldService seatHoldService;
+
+    @Autowired
+    private SeatMapService seatMapService;
 
     @Autowired
-    private MovieMapper movieMapper;
+    private SeatAllocator seatAllocator;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ShowtimeReadModel showtimeReadModel;
+
+    @Autowired
+    private MovieSearchIndex movieSearchIndex;
+
+    @Autowired
+    private Pagination pagination;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BookingService.class);
 
-    private Long getCurrentUserId() {
+    public static final int TICKET_PRICE = 100000;
+
+    public Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null) {
             LOGGER.error("Authentication is null in SecurityContextHolder");
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
+        // JwtFilter đã đọc accountId khi xác thực request, không cần parse lại token
+        if (authentication.isAuthenticated() && authentication.getDetails() instanceof JwtAuthenticationDetails details
+                && details.getAccountId() != null) {
+            return details.getAccountId();
+        }
         LOGGER.debug("Authentication found - IsAuthenticated: {}, Principal: {}, Credentials: {}",
                 authentication.isAuthenticated(), authentication.getPrincipal(), authentication.getCredentials());
 
@@ -104,60 +139,30 @@ public class BookingService {
         }
     }
 
-    public List<MovieResponse> getMovies(String query) {
-        List<Movie> movies = query == null || query.isEmpty()
-                ? movieRepository.findAll()
-                : movieRepository.findByMovieNameVnContainingIgnoreCaseOrMovieNameEnglishContainingIgnoreCase(query, query);
-        return movies.stream()
-                .map(movieMapper::toResponse)
-                .toList();
+    /**
+     * Danh sách phim theo trang: không có q thì theo movieId, có q thì theo thứ tự xếp hạng của chỉ mục tìm kiếm.
+     */
+    public PageResponse<MovieResponse> getMovies(String query, String cursor, Integer size) {
+        int pageSize = pagination.size(size);
+        List<MovieSearchIndex.Hit> hits = movieSearchIndex.search(query, cursor, pageSize + 1);
+        return pagination.page(hits, pageSize, MovieSearchIndex.Hit::cursor, MovieSearchIndex.Hit::movie);
+    }
+
+    public ShowtimeReadModel.SeatVersion getSeatVersion(Long movieId) {
+        return showtimeReadModel.getSeatVersion(movieId);
     }
 
     public List<ShowtimeResponse> getShowtimes(Long movieId, String date) {
-        Movie movie = movieRepository.findById(movieId)
-                .orElseThrow(() -> new AppException(ErrorCode.MOVIE_NOT_FOUND));
-        List<MovieDate> movieDates = movieDateRepository.findByMovie_MovieId(movieId);
-        List<MovieSchedule> movieSchedules = movieScheduleRepository.findByMovie_MovieId(movieId);
-
-        DateTimeFormatter formatter = new DateTimeFormatterBuilder()
-                .appendPattern("yyyy-MM-dd'T'HH:mm")
-                .optionalStart()
-                .appendPattern(":ss")
-                .optionalEnd()
-                .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
-                .toFormatter();
-
-        return movieSchedules.stream()
-                .filter(schedule -> {
-                    try {
-                        LocalDateTime scheduleTime = LocalDateTime.parse(schedule.getSchedule().getScheduleTime(), formatter);
-                        LocalDate scheduleDate = scheduleTime.toLocalDate();
-                        if (date != null && !date.isEmpty()) {
-                            LocalDate filterDate = LocalDate.parse(date);
-                            return scheduleDate.equals(filterDate);
-                        }
-                        return true;
-                    } catch (DateTimeParseException e) {
-                        LOGGER.error("Failed to parse scheduleTime: {} for scheduleId: {}",
-                                schedule.getSchedule().getScheduleTime(), schedule.getId(), e);
-                        throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid schedule time format");
-                    }
-                })
-                .flatMap(schedule -> movieDates.stream()
-                        .filter(dateEntry -> {
-                            LocalDateTime scheduleTime = LocalDateTime.parse(schedule.getSchedule().getScheduleTime(), formatter);
-                            return dateEntry.getShowDate().getShowDate().equals(scheduleTime.toLocalDate());
-                        })
-                        .map(dateEntry -> {
-                            ShowtimeResponse response = new ShowtimeResponse();
-                            response.setScheduleId(schedule.getId());
-                            response.setShowDate(dateEntry.getShowDate().getShowDate());
-                            LocalDateTime scheduleTime = LocalDateTime.parse(schedule.getSchedule().getScheduleTime(), formatter);
-                            response.setShowTime(scheduleTime.toLocalTime());
-                            response.setCinemaRoomName(movie.getCinemaRoom().getCinemaRoomName());
-                            return response;
-                        }))
-                .toList();
+        if (date == null || date.isEmpty()) {
+            return showtimeReadModel.getShowtimes(movieId);
+        }
+        LocalDate filterDate;
+        try {
+            filterDate = LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid date format. Expected yyyy-MM-dd");
+        }
+        return showtimeReadModel.getShowtimes(movieId, filterDate);
     }
 
     public List<LocalDate> getAvailableShowDates(Long movieId) {
@@ -172,160 +177,208 @@ public class BookingService {
     }
 
     public List<ShowtimeResponse> getShowtimesByDate(Long movieId, LocalDate date) {
-        LOGGER.info("Fetching showtimes for movieId: {} and date: {}", movieId, date);
-        Movie movie = movieRepository.findById(movieId)
-                .orElseThrow(() -> new AppException(ErrorCode.MOVIE_NOT_FOUND));
-        List<MovieSchedule> movieSchedules = movieScheduleRepository.findByMovie_MovieId(movieId);
-        LOGGER.debug("Found {} schedules for movieId: {}", movieSchedules.size(), movieId);
-
-        DateTimeFormatter formatter = new DateTimeFormatterBuilder()
-                .appendPattern("yyyy-MM-dd'T'HH:mm")
-                .optionalStart()
-                .appendPattern(":ss")
-                .optionalEnd()
-                .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
-                .toFormatter();
-
-        return movieSchedules.stream()
-                .filter(schedule -> {
-                    try {
-                        LocalDateTime scheduleTime = LocalDateTime.parse(schedule.getSchedule().getScheduleTime(), formatter);
-                        LOGGER.debug("Parsed scheduleTime: {} for scheduleId: {}", scheduleTime, schedule.getId());
-                        return scheduleTime.toLocalDate().equals(date);
-                    } catch (DateTimeParseException e) {
-                        LOGGER.error("Failed to parse scheduleTime: {} for scheduleId: {}",
-                                schedule.getSchedule().getScheduleTime(), schedule.getId(), e);
-                        throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid schedule time format");
-                    }
-                })
-                .map(schedule -> {
-                    ShowtimeResponse response = new ShowtimeResponse();
-                    response.setScheduleId(schedule.getId());
-                    response.setShowDate(date);
-                    LocalDateTime scheduleTime = LocalDateTime.parse(schedule.getSchedule().getScheduleTime(), formatter);
-                    response.setShowTime(scheduleTime.toLocalTime());
-                    response.setCinemaRoomName(movie.getCinemaRoom().getCinemaRoomName());
-                    return response;
-                })
-                .toList();
+        LOGGER.debug("Fetching showtimes for movieId: {} and date: {}", movieId, date);
+        return showtimeReadModel.getShowtimes(movieId, date);
+    }
+
+    /**
+     * Lịch chiếu của phim trong khoảng [from, to).
+     */
+    public List<ShowtimeResponse> getShowtimesBetween(Long movieId, LocalDateTime from, LocalDateTime to) {
+        return showtimeReadModel.getShowtimes(movieId, from, to);
     }
 
     public List<SeatResponse> getSeats(Long scheduleId) {
-        MovieSchedule movieSchedule = movieScheduleRepository.findById(scheduleId)
-                .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND));
-        List<ScheduleSeat> seats = scheduleSeatRepository.findBySchedule_ScheduleIdAndMovie_MovieId(
-                movieSchedule.getSchedule().getScheduleId(),
-                movieSchedule.getMovie().getMovieId());
-        if (seats.isEmpty()) {
-            throw new AppException(ErrorCode.SEAT_NOT_FOUND);
-        }
-        return seats.stream()
-                .map(scheduleSeatMapper::toSeatResponse)
-                .toList();
+        return seatMapService.getSeatMap(scheduleId);
     }
 
     public List<SeatResponse> getPublicSeats(Long scheduleId) {
         return getSeats(scheduleId);
     }
 
-    @Transactional
-    public Long selectSeats(SelectSeatsRequest request) {
-        MovieSchedule movieSchedule = movieScheduleRepository.findById(request.getScheduleId())
-                .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND));
-        List<ScheduleSeat> seats = scheduleSeatRepository.findAllById(request.getScheduleSeatIds());
-        if (seats.isEmpty()) {
-            throw new AppException(ErrorCode.SEAT_NOT_FOUND);
-        }
-        if (seats.size() > 8) {
-            throw new AppException(ErrorCode.SEAT_LIMIT_EXCEEDED);
+    /**
+     * Trạng thái ghế dạng bitmap đọc từ SeatInventory (không truy vấn database).
+     * Nếu client gửi phiên bản trước đó và phiên bản này còn trong lịch sử, chỉ trả về các ghế đã thay đổi.
+     */
+    public SeatBitmapResponse getSeatBitmap(Long scheduleId, String sinceVersion) {
+        SeatInventory.SeatMapView view = seatInventory.view(scheduleId, sinceVersion);
+        SeatBitmapResponse response = new SeatBitmapResponse();
+        response.setScheduleId(scheduleId);
+        response.setCinemaRoomId(view.cinemaRoomId());
+        response.setVersion(view.version());
+        response.setSeatCount(view.seatCount());
+        if (view.since() == null) {
+            byte[] bytes = new byte[(view.seatCount() + 7) >>> 3];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) (view.taken()[i >>> 3] >>> ((i & 7) << 3));
+            }
+            response.setFull(true);
+            response.setBitmap(Base64.getEncoder().encodeToString(bytes));
+            return response;
         }
-        for (ScheduleSeat seat : seats) {
-            if (seat.getSeatStatus() == SeatStatus.BOOKED) {
-                throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+        List<Integer> takenSlots = new ArrayList<>();
+        List<Integer> releasedSlots = new ArrayList<>();
+        for (int i = 0; i < view.taken().length; i++) {
+            long changed = view.taken()[i] ^ view.since()[i];
+            while (changed != 0) {
+                int bit = Long.numberOfTrailingZeros(changed);
+                if ((view.taken()[i] & (1L << bit)) != 0) {
+                    takenSlots.add((i << 6) + bit);
+                } else {
+                    releasedSlots.add((i << 6) + bit);
+                }
+                changed &= changed - 1;
             }
-            seat.setSeatStatus(SeatStatus.BOOKED);
-            scheduleSeatRepository.save(seat);
         }
+        response.setFull(false);
+        response.setTakenSlots(takenSlots);
+        response.setReleasedSlots(releasedSlots);
+        return response;
+    }
+
+    public SeatLayoutResponse getSeatLayout(Long cinemaRoomId) {
+        List<Seat> seats = seatRepository.findByCinemaRoomCinemaRoomIdOrderBySeatIdAsc(cinemaRoomId);
+        if (seats.isEmpty()) {
+            throw new AppException(ErrorCode.SEAT_NOT_FOUND);
+        }
+        SeatLayoutResponse response = new SeatLayoutResponse();
+        response.setCinemaRoomId(cinemaRoomId);
+        response.setSeatIds(seats.stream().map(Seat::getSeatId).toList());
+        response.setSeatColumns(seats.stream().map(Seat::getSeatColumn).toList());
+        response.setSeatRows(seats.stream().map(Seat::getSeatRow).toList());
+        response.setSeatTypes(seats.stream().map(Seat::getSeatType).toList());
+        // Phiên bản tính từ nội dung, ổn định giữa các lần khởi động và giữa các instance
+        int contentHash = List.of(response.getSeatIds(), response.getSeatColumns(), response.getSeatRows(),
+                response.getSeatTypes().stream().map(type -> type == null ? "" : type.name()).toList()).hashCode();
+        response.setVersion(cinemaRoomId + "-" + Integer.toHexString(contentHash));
+        return response;
+    }
+
+    @Transactional
+    public Long selectSeats(SelectSeatsRequest request) {
+        return selectSeats(request, getCurrentUserId());
+    }
+
+    @Transactional
+    public Long selectSeats(SelectSeatsRequest request, Long accountId) {
+        return reserveSeats(request.getScheduleId(), seatMapService.resolveSelection(request), accountId);
+    }
+
+    @Transactional
+    public Long selectBestAvailable(BestAvailableRequest request, Long accountId) {
+        List<Long> seatIds = seatAllocator.findBestAvailable(request.getScheduleId(), request.getQuantity(),
+                request.getSeatType(), Set.of());
+        return reserveSeats(request.getScheduleId(), seatIds, accountId);
+    }
+
+    /**
+     * Giữ các ghế (Seat.id, đã được kiểm tra bởi SeatMapService.resolveSelection) và tạo hóa đơn PENDING.
+     * Tham gia transaction hiện có nếu có, BookingLaneService dùng để gom nhiều lệnh vào một transaction.
+     */
+    @Transactional
+    public Long reserveSeats(Long movieScheduleId, List<Long> seatIds, Long accountId) {
+        seatInventory.claim(movieScheduleId, seatIds);
+        MovieSchedule movieSchedule = movieScheduleRepository.findById(movieScheduleId)
+                .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND));
+        List<ScheduleSeat> seats = seatMapService.materialize(movieSchedule, seatIds);
+        List<Long> scheduleSeatIds = seats.stream().map(ScheduleSeat::getScheduleSeatId).toList();
         String seatString = seats.stream()
                 .map(seat -> seat.getSeatColumn() + seat.getSeatRow())
                 .collect(Collectors.joining(","));
-        MovieDate movieDate = movieDateRepository.findByMovie_MovieId(movieSchedule.getMovie().getMovieId())
-                .stream().findFirst()
-                .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND));
-
-        DateTimeFormatter formatter = new DateTimeFormatterBuilder()
-                .appendPattern("yyyy-MM-dd'T'HH:mm")
-                .optionalStart()
-                .appendPattern(":ss")
-                .optionalEnd()
-                .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
-                .toFormatter();
-
-        LocalDate showDate = movieDate.getShowDate().getShowDate();
-        LocalDateTime scheduleTime = LocalDateTime.parse(movieSchedule.getSchedule().getScheduleTime(), formatter);
-        LocalDateTime scheduleShowTime = showDate.atTime(scheduleTime.toLocalTime());
+        LocalDateTime scheduleShowTime = movieSchedule.getSchedule().getScheduleTime();
 
         Invoice invoice = Invoice.builder()
-                .account(Account.builder().accountId(getCurrentUserId()).build())
+                .account(Account.builder().accountId(accountId).build())
                 .movieName(movieSchedule.getMovie().getMovieNameVn())
                 .bookingDate(LocalDateTime.now())
                 .scheduleShowTime(scheduleShowTime)
-                .totalMoney(100000 * seats.size())
+                .totalMoney(TICKET_PRICE * seats.size())
                 .useScore(0)
                 .addScore(0)
                 .status(InvoiceStatus.PENDING)
                 .seat(seatString)
+                .holdExpiresAt(seatHoldService.newHoldExpiry())
                 .build();
         invoice = invoiceRepository.save(invoice);
+        if (scheduleSeatRepository.claimAvailableSeats(scheduleSeatIds, invoice) != scheduleSeatIds.size()) {
+            throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+        }
+        seatHoldService.hold(invoice.getInvoiceId(), movieScheduleId, seatIds, invoice.getHoldExpiresAt());
+        eventPublisher.publishEvent(new SeatStatusChangedEvent(movieScheduleId, seatIds, SeatStatus.HELD));
         return invoice.getInvoiceId();
     }
 
     @Transactional
     public TicketConfirmationResponse confirmBooking(TicketConfirmationRequest request) {
-        Invoice invoice = invoiceRepository.findByInvoiceIdAndAccount_AccountId(request.getInvoiceId(), getCurrentUserId())
-                .orElseThrow(() -> new AppException(ErrorCode.INVOICE_NOT_FOUND));
+        return confirmBooking(request, getCurrentUserId());
+    }
+
+    /**
+     * Xác nhận hóa đơn PENDING: một truy vấn đọc hóa đơn, ghế đang giữ, điểm thành viên và khuyến mãi,
+     * sau đó chỉ còn các câu lệnh ghi (trừ điểm nếu có, chuyển ghế sang BOOKED, tạo vé, ghi email vé vào outbox,
+     * cập nhật hóa đơn).
+     */
+    @Transactional
+    public TicketConfirmationResponse confirmBooking(TicketConfirmationRequest request, Long accountId) {
+        boolean useScore = request.getUseScore() != null && request.getUseScore() > 0;
+        List<Object[]> rows = invoiceRepository.findForConfirmation(request.getInvoiceId(), accountId,
+                request.getPromotionId(), LocalDateTime.now());
+        if (rows.isEmpty()) {
+            throw new AppException(ErrorCode.INVOICE_NOT_FOUND);
+        }
+        Invoice invoice = (Invoice) rows.get(0)[0];
+        Long memberId = (Long) rows.get(0)[1];
+        Integer memberScore = (Integer) rows.get(0)[2];
+        Integer discountLevel = (Integer) rows.get(0)[3];
+        List<Long> seatIds = rows.stream().map(row -> (Long) row[4]).filter(Objects::nonNull).toList();
+        String email = (String) rows.get(0)[5];
+        Long movieScheduleId = (Long) rows.get(0)[6];
+
         if (invoice.getStatus() == InvoiceStatus.PAID) {
             throw new AppException(ErrorCode.INVOICE_ALREADY_CONFIRMED);
         }
-        List<ScheduleSeat> seats = scheduleSeatRepository.findBySchedule_ScheduleIdAndMovie_MovieId(
-                movieScheduleRepository.findById(request.getScheduleId())
-                        .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND))
-                        .getSchedule().getScheduleId(),
-                movieScheduleRepository.findById(request.getScheduleId())
-                        .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND))
-                        .getMovie().getMovieId());
-        for (String seat : invoice.getSeat().split(",")) {
-            boolean seatExists = seats.stream()
-                    .anyMatch(s -> (s.getSeatColumn() + s.getSeatRow()).equals(seat));
-            if (!seatExists || seats.stream().filter(s -> (s.getSeatColumn() + s.getSeatRow()).equals(seat))
-                    .findFirst().get().getSeatStatus() != SeatStatus.BOOKED) {
-                throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
-            }
+        if (invoice.getStatus() == InvoiceStatus.UNPAID) {
+            throw new AppException(ErrorCode.SEAT_HOLD_EXPIRED);
+        }
+        if (seatIds.isEmpty()) {
+            throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
         }
         int totalMoney = invoice.getTotalMoney();
-        int useScore = 0;
-        if (request.getUseScore() != null && request.getUseScore() > 0) {
-            Member member = memberRepository.findByAccount_AccountId(getCurrentUserId())
-                    .orElseThrow(() -> new AppException(ErrorCode.MEMBER_NOT_FOUND));
-            if (member.getScore() < request.getUseScore()) {
+        int usedScore = 0;
+        if (useScore) {
+            if (memberId == null) {
+                throw new AppException(ErrorCode.MEMBER_NOT_FOUND);
+            }
+            if (memberScore == null || memberScore < request.getUseScore()) {
                 throw new AppException(ErrorCode.INSUFFICIENT_SCORE);
             }
-            useScore = request.getUseScore();
-            totalMoney = totalMoney - useScore * 10000;
-            member.setScore(member.getScore() - useScore);
-            memberRepository.save(member);
+            usedScore = request.getUseScore();
+            totalMoney = totalMoney - usedScore * 10000;
         }
         if (request.getPromotionId() != null) {
-            Promotion promotion = promotionRepository.findByPromotionIdAndEndTimeAfter(
-                            request.getPromotionId(), LocalDateTime.now())
-                    .orElseThrow(() -> new AppException(ErrorCode.INVALID_PROMOTION));
-            totalMoney = totalMoney * (100 - promotion.getDiscountLevel()) / 100;
+            if (discountLevel == null) {
+                throw new AppException(ErrorCode.INVALID_PROMOTION);
+            }
+            totalMoney = totalMoney * (100 - discountLevel) / 100;
+        }
+
+        // Trừ điểm có điều kiện để hai lần xác nhận đồng thời không làm điểm bị âm
+        if (usedScore > 0 && memberRepository.deductScore(memberId, usedScore) == 0) {
+            throw new AppException(ErrorCode.INSUFFICIENT_SCORE);
         }
+        if (scheduleSeatRepository.confirmHeldSeats(invoice.getInvoiceId()) != seatIds.size()) {
+            throw new AppException(ErrorCode.SEAT_HOLD_EXPIRED);
+        }
+        ticketRepository.insertTicketsForInvoice(invoice.getInvoiceId(), TICKET_PRICE, TicketType.ADULT.ordinal());
+        // Hóa đơn là entity đang được quản lý, thay đổi được ghi bằng một câu UPDATE khi commit
         invoice.setTotalMoney(totalMoney);
-        invoice.setUseScore(useScore);
+        invoice.setUseScore(usedScore);
         invoice.setAddScore(totalMoney / 10000);
         invoice.setStatus(InvoiceStatus.PAID);
-        invoice = invoiceRepository.save(invoice);
+        invoice.setHoldExpiresAt(null);
+        outboxService.enqueueTicketEmail(invoice, email);
+        seatHoldService.complete(invoice.getInvoiceId());
+        eventPublisher.publishEvent(new SeatStatusChangedEvent(movieScheduleId, seatIds, SeatStatus.BOOKED));
         return ticketMapper.toConfirmationResponse(invoice);
     }
 
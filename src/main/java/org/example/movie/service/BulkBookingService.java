@@ -0,0 +1,351 @@
+package org.example.movie.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.movie.dto.request.BulkBookingItemRequest;
+import org.example.movie.dto.request.BulkBookingRequest;
+import org.example.movie.dto.response.BulkBookingResponse;
+import org.example.movie.entity.Account;
+import org.example.movie.entity.Invoice;
+import org.example.movie.entity.Member;
+import org.example.movie.entity.MovieSchedule;
+import org.example.movie.enums.BulkBookingStatus;
+import org.example.movie.enums.InvoiceStatus;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.enums.TicketType;
+import org.example.movie.event.SeatStatusChangedEvent;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.InvoiceRepository;
+import org.example.movie.repository.MovieScheduleRepository;
+import org.example.movie.repository.ScheduleSeatRepository;
+import org.example.movie.repository.SeatRepository;
+import org.example.movie.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Đặt vé số lượng lớn cho đoàn (trường học, công ty) trên nhiều lịch chiếu trong một request.
+ * Toàn bộ đơn chạy trong một transaction: ghế được chọn từ SeatInventory, chuyển sang BOOKED bằng câu lệnh
+ * theo tập hợp (UPDATE cho dòng ScheduleSeat đã có, INSERT ... SELECT cho ghế chưa có dòng) và vé được tạo bằng
+ * INSERT ... SELECT, nên số câu lệnh chỉ phụ thuộc số lịch chiếu chứ không phụ thuộc số ghế.
+ * Đơn lớn hơn async-threshold ghế chạy nền, client theo dõi tiến độ bằng jobId.
+ */
+@Service
+public class BulkBookingService {
+
+    @Autowired
+    private TicketBookingService ticketBookingService;
+
+    @Autowired
+    private SeatAllocator seatAllocator;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private MovieScheduleRepository movieScheduleRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${booking.bulk.max-seats:2000}")
+    private int maxSeats;
+
+    @Value("${booking.bulk.async-threshold:200}")
+    private int asyncThreshold;
+
+    @Value("${booking.bulk.job-ttl:1h}")
+    private Duration jobTtl;
+
+    private static final int MAX_ALLOCATION_ATTEMPTS = 3;
+    private static final int SEAT_COLUMN_LENGTH = 255;
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkBookingService.class);
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong(System.currentTimeMillis());
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public BulkBookingResponse submit(BulkBookingRequest request) {
+        return submit(request, response -> {
+        });
+    }
+
+    /**
+     * Đơn nhỏ được đặt ngay và trả về kết quả cuối cùng; đơn lớn trả về trạng thái RUNNING để client hỏi lại theo jobId.
+     * recorder (IdempotencyService.executeRecorded) nhận kết quả trả về cho client: đơn hoàn tất được ghi trong cùng
+     * transaction đặt vé, đơn thất bại sau khi transaction đó rollback, đơn chạy nền trước khi job bắt đầu.
+     * Ghi lỗi vì key đã được instance khác dùng thì đơn không được đặt (hoặc đã rollback).
+     */
+    public BulkBookingResponse submit(BulkBookingRequest request, Consumer<BulkBookingResponse> recorder) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Bulk booking needs at least one item");
+        }
+        int totalSeats = 0;
+        for (BulkBookingItemRequest item : request.getItems()) {
+            if (item.getScheduleId() == null) {
+                throw new AppException(ErrorCode.SHOWTIME_NOT_FOUND);
+            }
+            if (item.getQuantity() == null || item.getQuantity() < 1) {
+                throw new AppException(ErrorCode.INVALID_REQUEST, "Quantity must be at least 1");
+            }
+            totalSeats += item.getQuantity();
+        }
+        if (totalSeats > maxSeats) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Bulk booking is limited to " + maxSeats + " seats");
+        }
+        Member member = ticketBookingService.checkMember(request.getIdentityCard(), request.getPhoneNumber());
+
+        purgeFinishedJobs();
+        Job job = new Job(UUID.randomUUID().toString(), List.copyOf(request.getItems()), member.getAccount(), totalSeats);
+        jobs.put(job.jobId, job);
+        if (totalSeats <= asyncThreshold) {
+            run(job, recorder);
+        } else {
+            try {
+                record(job, recorder);
+            } catch (RuntimeException e) {
+                jobs.remove(job.jobId);
+                throw e;
+            }
+            executor.execute(() -> run(job, response -> {
+            }));
+        }
+        return job.toResponse();
+    }
+
+    public BulkBookingResponse getStatus(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new AppException(ErrorCode.BULK_BOOKING_NOT_FOUND);
+        }
+        return job.toResponse();
+    }
+
+    private void run(Job job, Consumer<BulkBookingResponse> recorder) {
+        try {
+            List<Long> invoiceIds = waitingRoomService.withBookingPermit(() -> transactionTemplate.execute(status -> {
+                List<Long> created = new ArrayList<>(job.items.size());
+                for (BulkBookingItemRequest item : job.items) {
+                    created.add(bookItem(item, job.account));
+                    job.processedSeats.addAndGet(item.getQuantity());
+                }
+                recorder.accept(job.toCompletedResponse(created));
+                return created;
+            }));
+            job.finish(invoiceIds);
+        } catch (DataIntegrityViolationException e) {
+            // Key idempotency đã có kết quả của instance khác: đơn này đã rollback, client nhận kết quả kia
+            jobs.remove(job.jobId);
+            throw e;
+        } catch (AppException e) {
+            job.fail(e.getErrorCode().getCode(), e.getMessage());
+            record(job, recorder);
+        } catch (RuntimeException e) {
+            LOGGER.error("Bulk booking {} failed", job.jobId, e);
+            // Cùng mã với lỗi không xác định trong GlobalExceptionHandler
+            job.fail(9999, "Internal server error: " + e.getMessage());
+            record(job, recorder);
+        }
+    }
+
+    private void record(Job job, Consumer<BulkBookingResponse> recorder) {
+        transactionTemplate.executeWithoutResult(status -> recorder.accept(job.toResponse()));
+    }
+
+    private Long bookItem(BulkBookingItemRequest item, Account account) {
+        Long movieScheduleId = item.getScheduleId();
+        List<Long> seatIds = claimSeats(item);
+        MovieSchedule movieSchedule = movieScheduleRepository.findById(movieScheduleId)
+                .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND));
+        Long scheduleId = movieSchedule.getSchedule().getScheduleId();
+        Long movieId = movieSchedule.getMovie().getMovieId();
+
+        Invoice invoice = invoiceRepository.save(Invoice.builder()
+                .account(account)
+                .movieName(movieSchedule.getMovie().getMovieNameVn())
+                .bookingDate(LocalDateTime.now())
+                .scheduleShowTime(movieSchedule.getSchedule().getScheduleTime())
+                .totalMoney(BookingService.TICKET_PRICE * seatIds.size())
+                .useScore(0)
+                .addScore(0)
+                .status(InvoiceStatus.PAID)
+                .seat(seatLabels(seatIds))
+                .build());
+
+        int booked;
+        try {
+            booked = scheduleSeatRepository.bookAvailableSeats(scheduleId, movieId, seatIds, invoice)
+                    + scheduleSeatRepository.insertBookedSeats(scheduleId, movieId, seatIds, invoice.getInvoiceId());
+        } catch (DataIntegrityViolationException e) {
+            throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+        }
+        // Ghế đã có dòng HELD/BOOKED (ví dụ do instance khác giữ) không được cập nhật lẫn chèn thêm
+        if (booked != seatIds.size()) {
+            throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+        }
+        ticketRepository.insertTicketsForInvoice(invoice.getInvoiceId(), BookingService.TICKET_PRICE,
+                TicketType.ADULT.ordinal());
+        outboxService.enqueueTicketEmail(invoice, account.getEmail());
+        eventPublisher.publishEvent(new SeatStatusChangedEvent(movieScheduleId, seatIds, SeatStatus.BOOKED));
+        return invoice.getInvoiceId();
+    }
+
+    /**
+     * Chọn và giữ ghế trong SeatInventory (tự trả lại nếu transaction rollback).
+     * Nếu ghế vừa chọn bị lệnh khác giữ mất giữa lúc chọn và lúc giữ thì chọn lại.
+     */
+    private List<Long> claimSeats(BulkBookingItemRequest item) {
+        for (int attempt = 1; ; attempt++) {
+            List<Long> seatIds = seatAllocator.findAvailable(item.getScheduleId(), item.getQuantity(), item.getSeatType());
+            try {
+                seatInventory.claim(item.getScheduleId(), seatIds);
+                return seatIds;
+            } catch (AppException e) {
+                if (e.getErrorCode() != ErrorCode.SEAT_ALREADY_BOOKED || attempt == MAX_ALLOCATION_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Chuỗi ghế của hóa đơn, rút gọn nếu vượt độ dài cột SEAT; danh sách đầy đủ nằm trong vé của hóa đơn.
+     */
+    private String seatLabels(List<Long> seatIds) {
+        List<String> labels = seatRepository.findAllById(seatIds).stream()
+                .map(seat -> seat.getSeatColumn() + seat.getSeatRow())
+                .toList();
+        String joined = String.join(",", labels);
+        if (joined.length() <= SEAT_COLUMN_LENGTH) {
+            return joined;
+        }
+        StringBuilder shortened = new StringBuilder();
+        for (int i = 0; i < labels.size(); i++) {
+            String suffix = ",... (+" + (labels.size() - i) + ")";
+            if (shortened.length() + labels.get(i).length() + 1 + suffix.length() > SEAT_COLUMN_LENGTH) {
+                return shortened + suffix;
+            }
+            if (i > 0) {
+                shortened.append(',');
+            }
+            shortened.append(labels.get(i));
+        }
+        return shortened.toString();
+    }
+
+    private void purgeFinishedJobs() {
+        long now = System.currentTimeMillis();
+        long last = lastPurge.get();
+        if (now - last >= PURGE_INTERVAL_MILLIS && lastPurge.compareAndSet(last, now)) {
+            Instant cutoff = Instant.ofEpochMilli(now).minus(jobTtl);
+            jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+        }
+    }
+
+    private static final class Job {
+        private final String jobId;
+        private final List<BulkBookingItemRequest> items;
+        private final Account account;
+        private final int totalSeats;
+        private final AtomicInteger processedSeats = new AtomicInteger();
+        private volatile BulkBookingStatus status = BulkBookingStatus.RUNNING;
+        private volatile List<Long> invoiceIds;
+        private volatile Integer errorCode;
+        private volatile String errorMessage;
+        private volatile Instant finishedAt;
+
+        Job(String jobId, List<BulkBookingItemRequest> items, Account account, int totalSeats) {
+            this.jobId = jobId;
+            this.items = items;
+            this.account = account;
+            this.totalSeats = totalSeats;
+        }
+
+        void finish(List<Long> invoiceIds) {
+            this.invoiceIds = invoiceIds;
+            this.status = BulkBookingStatus.COMPLETED;
+            this.finishedAt = Instant.now();
+        }
+
+        void fail(int errorCode, String errorMessage) {
+            this.errorCode = errorCode;
+            this.errorMessage = errorMessage;
+            this.status = BulkBookingStatus.FAILED;
+            this.finishedAt = Instant.now();
+        }
+
+        BulkBookingResponse toCompletedResponse(List<Long> invoiceIds) {
+            BulkBookingResponse response = toResponse();
+            response.setStatus(BulkBookingStatus.COMPLETED);
+            response.setProcessedSeats(totalSeats);
+            response.setInvoiceIds(invoiceIds);
+            return response;
+        }
+
+        BulkBookingResponse toResponse() {
+            BulkBookingResponse response = new BulkBookingResponse();
+            response.setJobId(jobId);
+            response.setStatus(status);
+            response.setTotalSeats(totalSeats);
+            response.setProcessedSeats(status == BulkBookingStatus.COMPLETED ? totalSeats : processedSeats.get());
+            response.setInvoiceIds(invoiceIds);
+            response.setErrorCode(errorCode);
+            response.setErrorMessage(errorMessage);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.movie.service;
+
+import org.example.movie.event.MovieChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Phiên bản danh mục phim cho conditional GET (ETag/Last-Modified) của các endpoint /api/public.
+ * Tăng mỗi khi MovieService thêm/sửa/xóa phim, sau khi transaction commit và sau khi ShowtimeReadModel,
+ * MovieSearchIndex đã cập nhật (listener chạy cuối cùng), nên ETag mới không bao giờ đi kèm dữ liệu cũ.
+ * Kiểm tra ETag chỉ đọc số phiên bản trong bộ nhớ, request trả 304 không chạm database.
+ * Số phiên bản (của danh mục và SeatVersion của ShowtimeReadModel) đếm lại từ đầu sau mỗi lần khởi động,
+ * nên ETag được gắn thêm mã của lần khởi động để client không nhận 304 cho dữ liệu của lần chạy trước.
+ */
+@Component
+public class CatalogVersion {
+
+    @Value("${booking.catalog.max-age:60s}")
+    private Duration maxAge;
+
+    private final String bootId = Long.toString(Instant.now().toEpochMilli(), Character.MAX_RADIX);
+
+    private volatile Version current = new Version(1, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void onMovieChanged(MovieChangedEvent event) {
+        // Last-Modified chỉ chính xác tới giây, luôn tăng để If-Modified-Since không bỏ sót thay đổi
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Instant lastModified = now.isAfter(current.lastModified) ? now : current.lastModified.plusSeconds(1);
+        current = new Version(current.number + 1, lastModified);
+    }
+
+    /**
+     * Validator cho danh sách phim và ngày chiếu.
+     */
+    public Stamp current() {
+        Version version = current;
+        return new Stamp("\"catalog-" + bootId + "-" + version.number + "\"", version.lastModified);
+    }
+
+    /**
+     * Validator cho lịch chiếu: thêm phiên bản số ghế trống của phim vì số ghế đổi theo từng lượt đặt vé.
+     */
+    public Stamp forShowtimes(ShowtimeReadModel.SeatVersion seats) {
+        Version version = current;
+        return new Stamp("\"catalog-" + bootId + "-" + version.number + "-seats-" + seats.version() + "\"",
+                seats.changedAt().isAfter(version.lastModified) ? seats.changedAt() : version.lastModified);
+    }
+
+    /**
+     * Danh sách phim và ngày chiếu chỉ đổi khi sửa danh mục nên được cache tối đa max-age.
+     */
+    public CacheControl cacheControl() {
+        return CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    public record Stamp(String eTag, Instant lastModified) {
+    }
+
+    private record Version(long number, Instant lastModified) {
+    }
+}
@@ -3,6 +3,7 @@ package org.example.movie.service;
 import org.example.movie.dto.request.AddCinemaRoomRequest;
 import org.example.movie.dto.request.UpdateSeatTypeRequest;
 import org.example.movie.dto.response.CinemaRoomResponse;
+import org.example.movie.dto.response.PageResponse;
 import org.example.movie.dto.response.SeatDetailResponse; // Thay SeatResponse bằng SeatDetailResponse
 import org.example.movie.entity.CinemaRoom;
 import org.example.movie.entity.Seat;
@@ -31,13 +32,18 @@ public class CinemaRoomService {
     @Autowired
     private CinemaRoomMapper cinemaRoomMapper;
 
+    @Autowired
+    private Pagination pagination;
+
+    @Autowired
+    private SeatAllocator seatAllocator;
+
     @PreAuthorize("hasRole('ADMIN')")
-    public List<CinemaRoomResponse> getCinemaRoomList(String searchKeyword) {
-        List<CinemaRoom> cinemaRooms = cinemaRoomRepository.findAll();
-        return cinemaRooms.stream()
-                .map(cinemaRoomMapper::toResponse)
-                .filter(room -> searchKeyword == null || room.getCinemaRoomName().contains(searchKeyword))
-                .collect(Collectors.toList());
+    public PageResponse<CinemaRoomResponse> getCinemaRoomList(String searchKeyword, String cursor, Integer size) {
+        int pageSize = pagination.size(size);
+        List<CinemaRoom> cinemaRooms = cinemaRoomRepository.findPageAfter(pagination.longCursor(cursor), searchKeyword,
+                pagination.limit(pageSize));
+        return pagination.page(cinemaRooms, pageSize, CinemaRoom::getCinemaRoomId, cinemaRoomMapper::toResponse);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -66,6 +72,7 @@ public class CinemaRoomService {
                 .forEach(seat -> seat.setSeatType(SeatType.values()[request.getNewSeatType()]));
 
         seatRepository.saveAll(seats);
+        seatAllocator.evict(cinemaRoomId);
 
         return "Seat types updated successfully";
     }
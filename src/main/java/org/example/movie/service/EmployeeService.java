@@ -2,6 +2,7 @@
 import org.example.movie.dto.request.AddEmployeeRequest;
 import org.example.movie.dto.request.EditEmployeeRequest;
 import org.example.movie.dto.response.EmployeeResponse;
+import org.example.movie.dto.response.PageResponse;
 import org.example.movie.entity.Account;
 import org.example.movie.entity.Employee;
 import org.example.movie.entity.Role;
@@ -15,7 +16,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class EmployeeService {
@@ -28,23 +28,21 @@ public class EmployeeService {
 
     @Autowired
     private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private Pagination pagination;
     @Autowired
     private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
     @Autowired
     private RoleRepository roleRepository;
 
     @PreAuthorize("hasRole('ADMIN')")
-    public List<EmployeeResponse> getEmployeeList(String searchKeyword) {
-        List<Employee> employees = employeeRepository.findAll();
-        return employees.stream()
-                .map(employee -> {
-                    Account account = accountRepository.findById(employee.getAccount().getAccountId())
-                            .orElseThrow(() -> new RuntimeException("Account not found"));
-                    return employeeMapper.toResponse(employee, account);
-                })
-                .filter(response -> searchKeyword == null || response.getFullName().contains(searchKeyword) ||
-                        response.getEmail().contains(searchKeyword) || response.getPhoneNumber().contains(searchKeyword))
-                .collect(Collectors.toList());
+    public PageResponse<EmployeeResponse> getEmployeeList(String searchKeyword, String cursor, Integer size) {
+        int pageSize = pagination.size(size);
+        List<Employee> employees = employeeRepository.findPageAfter(pagination.stringCursor(cursor), searchKeyword,
+                pagination.limit(pageSize));
+        return pagination.page(employees, pageSize, Employee::getEmployeeId,
+                employee -> employeeMapper.toResponse(employee, employee.getAccount()));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
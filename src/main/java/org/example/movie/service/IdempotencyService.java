@@ -0,0 +1,389 @@
+package org.example.movie.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.example.movie.entity.IdempotencyRecord;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Xử lý header Idempotency-Key cho các thao tác đặt vé.
+ * Kết quả của một key được giữ trong cache LRU giới hạn kích thước và lưu vào bảng IdempotencyRecord
+ * (cho lần khởi động lại hoặc instance khác); request lặp lại nhận lại đúng kết quả cũ mà không chạy lại transaction.
+ * Request trùng key đến khi request đầu còn đang chạy sẽ chờ và dùng chung kết quả.
+ * Key được tách theo thao tác và người dùng; dùng lại key cho nội dung request khác bị từ chối.
+ * Lỗi không được lưu nên client có thể thử lại với cùng key.
+ */
+@Service
+public class IdempotencyService {
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${booking.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${booking.idempotency.wait-timeout:30s}")
+    private Duration waitTimeout;
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long PURGE_INTERVAL_MILLIS = 10 * 60_000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong(System.currentTimeMillis());
+
+    private Map<String, Completed> completed;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        meterRegistry.gauge("booking.idempotency.cache.size", completed, Map::size);
+    }
+
+    /**
+     * Chạy action một lần cho mỗi key. Kết quả được lưu trong cùng transaction với action,
+     * nên action đã commit thì chắc chắn có bản ghi để trả lại.
+     */
+    public <T> T execute(String key, String operation, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        Call call = begin(key, operation, request);
+        if (call.replay != null) {
+            return read(await(call.replay), responseType);
+        }
+        try {
+            String body;
+            try {
+                body = transactionTemplate.execute(status -> {
+                    String json = write(action.get());
+                    idempotencyRecordRepository.saveAndFlush(toRecord(call, json));
+                    return json;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Instance khác đã xử lý cùng key trước, transaction của mình đã rollback
+                body = idempotencyRecordRepository.findById(call.scopedKey)
+                        .map(record -> checkRequest(call.requestHash, record.getRequestHash(), record.getResponseBody()))
+                        .orElseThrow(() -> e);
+            }
+            finish(call, body);
+            return read(body, responseType);
+        } catch (RuntimeException e) {
+            fail(call, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Như execute nhưng action tự quản lý transaction (vd. đặt vé số lượng lớn). Action nhận một recorder và phải gọi nó
+     * với kết quả bên trong transaction tạo ra kết quả đó, nên không cần transaction bao ngoài giữ thêm một kết nối.
+     */
+    public <T> T executeRecorded(String key, String operation, Object request, Class<T> responseType,
+                                 Function<Consumer<T>, T> action) {
+        if (key == null) {
+            return action.apply(value -> {
+            });
+        }
+        Call call = begin(key, operation, request);
+        if (call.replay != null) {
+            return read(await(call.replay), responseType);
+        }
+        try {
+            T value;
+            try {
+                value = action.apply(result -> idempotencyRecordRepository.saveAndFlush(toRecord(call, write(result))));
+            } catch (DataIntegrityViolationException e) {
+                // Instance khác đã xử lý cùng key trước, transaction của action đã rollback
+                String body = idempotencyRecordRepository.findById(call.scopedKey)
+                        .map(record -> checkRequest(call.requestHash, record.getRequestHash(), record.getResponseBody()))
+                        .orElseThrow(() -> e);
+                finish(call, body);
+                return read(body, responseType);
+            }
+            finish(call, write(value));
+            return value;
+        } catch (RuntimeException e) {
+            fail(call, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Như execute nhưng cho action bất đồng bộ (lane chọn ghế). Action nhận một recorder và phải gọi nó với kết quả
+     * bên trong transaction tạo ra kết quả đó, để bản ghi idempotency commit cùng dữ liệu đặt vé.
+     */
+    public <T> CompletableFuture<T> executeAsync(String key, String operation, Object request, Class<T> responseType,
+                                                 Function<Consumer<T>, CompletableFuture<T>> action) {
+        if (key == null) {
+            return action.apply(value -> {
+            });
+        }
+        Call call = begin(key, operation, request);
+        if (call.replay != null) {
+            return call.replay.thenApply(body -> read(body, responseType));
+        }
+        CompletableFuture<T> result;
+        try {
+            result = action.apply(value -> idempotencyRecordRepository.saveAndFlush(toRecord(call, write(value))));
+        } catch (RuntimeException e) {
+            fail(call, e);
+            throw e;
+        }
+        return result.handle((value, error) -> {
+            if (error == null) {
+                finish(call, write(value));
+                return value;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            try {
+                if (cause instanceof DataIntegrityViolationException) {
+                    // Instance khác đã xử lý cùng key trước, transaction của lane đã rollback
+                    Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(call.scopedKey);
+                    if (stored.isPresent()) {
+                        String body = checkRequest(call.requestHash, stored.get().getRequestHash(),
+                                stored.get().getResponseBody());
+                        finish(call, body);
+                        return read(body, responseType);
+                    }
+                }
+            } catch (RuntimeException e) {
+                fail(call, e);
+                throw e;
+            }
+            fail(call, cause);
+            throw cause instanceof RuntimeException runtimeException ? runtimeException : new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Kết quả đã có (hoặc đang chạy) của key, null nếu chưa có. Dùng để trả lại kết quả cũ trước các bước kiểm soát
+     * tải như phòng chờ, vì request lặp lại không chạy lại action.
+     */
+    public <T> CompletableFuture<T> replay(String key, String operation, Object request, Class<T> responseType) {
+        if (key == null) {
+            return null;
+        }
+        checkKey(key);
+        String scopedKey = scope(key, operation);
+        String requestHash = hash(request);
+        Completed cached = completed.get(scopedKey);
+        if (cached != null && !isExpired(cached.createdAt)) {
+            replayed("memory");
+            return CompletableFuture.completedFuture(
+                    read(checkRequest(requestHash, cached.requestHash, cached.body), responseType));
+        }
+        InFlight running = inFlight.get(scopedKey);
+        if (running != null) {
+            checkRequest(requestHash, running.requestHash, null);
+            replayed("in-flight");
+            return running.result.thenApply(body -> read(body, responseType));
+        }
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(scopedKey);
+        if (stored.isPresent() && !isExpired(stored.get().getCreatedAt())) {
+            IdempotencyRecord record = stored.get();
+            String body = checkRequest(requestHash, record.getRequestHash(), record.getResponseBody());
+            completed.put(scopedKey, new Completed(requestHash, body, record.getCreatedAt()));
+            replayed("database");
+            return CompletableFuture.completedFuture(read(body, responseType));
+        }
+        return null;
+    }
+
+    private Call begin(String key, String operation, Object request) {
+        checkKey(key);
+        purgeExpiredRecords();
+        String scopedKey = scope(key, operation);
+        String requestHash = hash(request);
+
+        Completed cached = completed.get(scopedKey);
+        if (cached != null && !isExpired(cached.createdAt)) {
+            replayed("memory");
+            return Call.replay(CompletableFuture.completedFuture(
+                    checkRequest(requestHash, cached.requestHash, cached.body)));
+        }
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            checkRequest(requestHash, running.requestHash, null);
+            replayed("in-flight");
+            return Call.replay(running.result);
+        }
+
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(scopedKey);
+        if (stored.isPresent() && !isExpired(stored.get().getCreatedAt())) {
+            IdempotencyRecord record = stored.get();
+            Call call = new Call(scopedKey, requestHash, mine, null);
+            try {
+                checkRequest(requestHash, record.getRequestHash(), null);
+            } catch (AppException e) {
+                fail(call, e);
+                throw e;
+            }
+            finish(call, record.getResponseBody());
+            replayed("database");
+            return Call.replay(CompletableFuture.completedFuture(record.getResponseBody()));
+        }
+        stored.ifPresent(idempotencyRecordRepository::delete);
+        return new Call(scopedKey, requestHash, mine, null);
+    }
+
+    private void checkKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private String scope(String key, String operation) {
+        return operation + ":" + currentUsername() + ":" + key;
+    }
+
+    private void finish(Call call, String body) {
+        completed.put(call.scopedKey, new Completed(call.requestHash, body, LocalDateTime.now()));
+        inFlight.remove(call.scopedKey, call.owned);
+        call.owned.result.complete(body);
+    }
+
+    private void fail(Call call, Throwable error) {
+        inFlight.remove(call.scopedKey, call.owned);
+        call.owned.result.completeExceptionally(error);
+    }
+
+    private String await(CompletableFuture<String> replay) {
+        try {
+            return replay.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new AppException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    private String checkRequest(String requestHash, String storedHash, String body) {
+        if (!requestHash.equals(storedHash)) {
+            throw new AppException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+        return body;
+    }
+
+    private IdempotencyRecord toRecord(Call call, String body) {
+        return IdempotencyRecord.builder()
+                .idempotencyKey(call.scopedKey)
+                .requestHash(call.requestHash)
+                .responseBody(body)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private boolean isExpired(LocalDateTime createdAt) {
+        return createdAt.plus(ttl).isBefore(LocalDateTime.now());
+    }
+
+    private void replayed(String source) {
+        meterRegistry.counter("booking.idempotency.replayed", "source", source).increment();
+    }
+
+    private void purgeExpiredRecords() {
+        long now = System.currentTimeMillis();
+        long last = lastPurge.get();
+        if (now - last >= PURGE_INTERVAL_MILLIS && lastPurge.compareAndSet(last, now)) {
+            Integer removed = transactionTemplate.execute(status ->
+                    idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl)));
+            LOGGER.debug("Purged {} expired idempotency records", removed);
+        }
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(write(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotent response", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored idempotent response", e);
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<String> result) {
+    }
+
+    private record Completed(String requestHash, String body, LocalDateTime createdAt) {
+    }
+
+    private record Call(String scopedKey, String requestHash, InFlight owned, CompletableFuture<String> replay) {
+        static Call replay(CompletableFuture<String> replay) {
+            return new Call(null, null, null, replay);
+        }
+    }
+}
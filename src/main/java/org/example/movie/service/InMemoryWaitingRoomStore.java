@@ -0,0 +1,59 @@
+package org.example.movie.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lưu trạng thái phòng chờ trong bộ nhớ của một instance.
+ * Khi chạy nhiều instance, khai báo một WaitingRoomStore dùng chung (vd. Redis) với @Primary để thay thế.
+ */
+@Component
+public class InMemoryWaitingRoomStore implements WaitingRoomStore {
+
+    private final Map<Long, AtomicLong> sequences = new ConcurrentHashMap<>();
+    private final Map<Long, AdmissionState> admissionStates = new ConcurrentHashMap<>();
+    private final Map<String, QueueToken> tokens = new ConcurrentHashMap<>();
+
+    @Override
+    public long nextSequence(Long scheduleId) {
+        return sequences.computeIfAbsent(scheduleId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    @Override
+    public long lastSequence(Long scheduleId) {
+        AtomicLong sequence = sequences.get(scheduleId);
+        return sequence != null ? sequence.get() : 0;
+    }
+
+    @Override
+    public AdmissionState getAdmissionState(Long scheduleId) {
+        return admissionStates.get(scheduleId);
+    }
+
+    @Override
+    public boolean compareAndSetAdmissionState(Long scheduleId, AdmissionState expected, AdmissionState updated) {
+        return expected == null
+                ? admissionStates.putIfAbsent(scheduleId, updated) == null
+                : admissionStates.replace(scheduleId, expected, updated);
+    }
+
+    @Override
+    public void saveToken(QueueToken token) {
+        tokens.put(token.token(), token);
+    }
+
+    @Override
+    public Optional<QueueToken> findToken(String token) {
+        return Optional.ofNullable(tokens.get(token));
+    }
+
+    @Override
+    public void removeTokensIssuedBefore(Instant cutoff) {
+        tokens.values().removeIf(token -> token.issuedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,298 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.response.MovieResponse;
+import org.example.movie.event.MovieChangedEvent;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.mapper.MovieMapper;
+import org.example.movie.repository.MovieRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Chỉ mục tìm kiếm phim trong bộ nhớ trên tên tiếng Việt, tên tiếng Anh, diễn viên và đạo diễn.
+ * Văn bản được bỏ dấu tiếng Việt và chuyển chữ thường trước khi tách từ, nên "nguoi nhen" khớp "Người Nhện".
+ * Mỗi từ trong câu tìm phải khớp với phim: khớp nguyên từ, khớp đầu từ (danh sách từ được sắp xếp)
+ * hoặc khớp chuỗi con từ 3 ký tự trở lên (qua chỉ mục trigram). Kết quả xếp theo điểm, tên phim được tính
+ * điểm cao hơn diễn viên/đạo diễn.
+ * Chỉ mục được dựng một lần khi có lượt tìm đầu tiên và cập nhật từng phim khi MovieService thêm/sửa/xóa
+ * phim (MovieChangedEvent), nên tìm kiếm không truy vấn database.
+ */
+@Component
+public class MovieSearchIndex {
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private MovieMapper movieMapper;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MovieSearchIndex.class);
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int GRAM = 3;
+
+    // Điểm theo trường nhân với điểm theo kiểu khớp
+    private static final int NAME_WEIGHT = 3;
+    private static final int PERSON_WEIGHT = 1;
+    private static final int EXACT = 4;
+    private static final int PREFIX = 2;
+    private static final int INFIX = 1;
+
+    private final ConcurrentSkipListMap<Long, Document> documents = new ConcurrentSkipListMap<>();
+    // term -> (movieId -> trọng số trường cao nhất chứa term)
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+    // trigram -> các term chứa trigram đó
+    private final Map<String, Set<String>> grams = new ConcurrentHashMap<>();
+
+    // Thứ tự kết quả: điểm giảm dần, rồi tên phim, rồi movieId
+    private static final Comparator<Ranked> RANK_ORDER = Comparator.comparingInt((Ranked ranked) -> -ranked.score)
+            .thenComparing(Ranked::sortName)
+            .thenComparingLong(Ranked::movieId);
+
+    private volatile boolean loaded;
+
+    /**
+     * Tìm phim theo câu tìm kiếm; câu rỗng trả về tất cả phim theo movieId.
+     */
+    public List<MovieResponse> search(String query) {
+        return search(query, null, Integer.MAX_VALUE).stream().map(Hit::movie).toList();
+    }
+
+    /**
+     * Như search(query) nhưng chỉ lấy tối đa limit phim đứng sau cursor (Hit.cursor của phim cuối trang trước).
+     * Câu rỗng: cursor là movieId, đi thẳng tới vị trí đó trên danh sách sắp theo movieId.
+     * Có câu tìm: cursor mã hóa (điểm, tên, movieId) của phim cuối trang trước và trang sau là các phim xếp sau khóa đó,
+     * nên phim của cursor có bị sửa/xóa thì trang sau vẫn tiếp tục đúng chỗ. Chỉ giữ limit phim tốt nhất sau cursor
+     * (heap), không sắp xếp lại toàn bộ kết quả cho mỗi trang.
+     */
+    public List<Hit> search(String query, String cursor, int limit) {
+        ensureLoaded();
+        List<String> tokens = tokenize(query);
+        boolean hasCursor = cursor != null && !cursor.isEmpty();
+        if (tokens.isEmpty()) {
+            Map<Long, Document> page = hasCursor ? documents.tailMap(movieIdCursor(cursor), false) : documents;
+            return page.values().stream()
+                    .limit(limit)
+                    .map(document -> new Hit(document.movie, String.valueOf(document.movie.getMovieId())))
+                    .toList();
+        }
+        Ranked after = hasCursor ? rankCursor(cursor) : null;
+        Map<Long, Integer> scores = null;
+        for (String token : tokens) {
+            Map<Long, Integer> matches = match(token);
+            if (scores == null) {
+                scores = matches;
+            } else {
+                scores.keySet().retainAll(matches.keySet());
+                scores.replaceAll((movieId, score) -> score + matches.get(movieId));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        // Heap giữ limit phim tốt nhất, phần tử đầu heap là phim kém nhất trong số đó
+        PriorityQueue<Ranked> best = new PriorityQueue<>(RANK_ORDER.reversed());
+        scores.forEach((movieId, score) -> {
+            Document document = documents.get(movieId);
+            if (document == null) {
+                return;
+            }
+            Ranked ranked = new Ranked(score, document.sortName, movieId, document);
+            if (after != null && RANK_ORDER.compare(ranked, after) <= 0) {
+                return;
+            }
+            best.add(ranked);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+        List<Ranked> page = new ArrayList<>(best);
+        page.sort(RANK_ORDER);
+        return page.stream().map(ranked -> new Hit(ranked.document.movie, encode(ranked))).toList();
+    }
+
+    public record Hit(MovieResponse movie, String cursor) {
+    }
+
+    /**
+     * Cập nhật phim sau khi transaction của MovieService commit. Chưa dựng chỉ mục thì bỏ qua,
+     * lần dựng đầu tiên sẽ đọc dữ liệu đã commit. Chạy trước CatalogVersion.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public synchronized void onMovieChanged(MovieChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        movieRepository.findById(event.movieId())
+                .map(movieMapper::toResponse)
+                .ifPresentOrElse(this::put, () -> remove(event.movieId()));
+    }
+
+    /**
+     * Bỏ dấu tiếng Việt (kể cả đ/Đ) và chuyển chữ thường.
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                movieRepository.findAll().stream().map(movieMapper::toResponse).forEach(this::put);
+                loaded = true;
+                LOGGER.info("Movie search index built for {} movies, {} terms", documents.size(), postings.size());
+            }
+        }
+    }
+
+    private Map<Long, Integer> match(String token) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> entry
+                : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            collect(scores, entry.getValue(), entry.getKey().length() == token.length() ? EXACT : PREFIX);
+        }
+        if (token.length() >= GRAM) {
+            for (String term : termsContaining(token)) {
+                Map<Long, Integer> movieIds = postings.get(term);
+                if (movieIds != null && !term.startsWith(token)) {
+                    collect(scores, movieIds, INFIX);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void collect(Map<Long, Integer> scores, Map<Long, Integer> movieIds, int matchWeight) {
+        movieIds.forEach((movieId, fieldWeight) -> scores.merge(movieId, fieldWeight * matchWeight, Math::max));
+    }
+
+    /**
+     * Các term chứa token: giao các tập term của từng trigram (bắt đầu từ tập nhỏ nhất) rồi kiểm tra lại.
+     */
+    private List<String> termsContaining(String token) {
+        List<Set<String>> candidates = new ArrayList<>();
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            Set<String> terms = grams.get(token.substring(i, i + GRAM));
+            if (terms == null) {
+                return List.of();
+            }
+            candidates.add(terms);
+        }
+        candidates.sort(Comparator.comparingInt(Set::size));
+        List<String> result = new ArrayList<>();
+        for (String term : candidates.get(0)) {
+            if (term.contains(token)) {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+
+    private void put(MovieResponse movie) {
+        remove(movie.getMovieId());
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, movie.getMovieNameVn(), NAME_WEIGHT);
+        addTerms(terms, movie.getMovieNameEnglish(), NAME_WEIGHT);
+        addTerms(terms, movie.getActor(), PERSON_WEIGHT);
+        addTerms(terms, movie.getDirector(), PERSON_WEIGHT);
+        documents.put(movie.getMovieId(), new Document(movie, Set.copyOf(terms.keySet()),
+                movie.getMovieNameVn() != null ? fold(movie.getMovieNameVn()) : ""));
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, newTerm -> {
+            forEachGram(newTerm, gram -> grams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(newTerm));
+            return new ConcurrentHashMap<>();
+        }).put(movie.getMovieId(), weight));
+    }
+
+    private void remove(Long movieId) {
+        Document previous = documents.remove(movieId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms) {
+            postings.computeIfPresent(term, (key, movieIds) -> {
+                movieIds.remove(movieId);
+                if (!movieIds.isEmpty()) {
+                    return movieIds;
+                }
+                forEachGram(term, gram -> grams.computeIfPresent(gram, (g, terms) -> {
+                    terms.remove(term);
+                    return terms.isEmpty() ? null : terms;
+                }));
+                return null;
+            });
+        }
+    }
+
+    private void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Math::max);
+        }
+    }
+
+    private static void forEachGram(String term, Consumer<String> action) {
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            action.accept(term.substring(i, i + GRAM));
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATORS.split(fold(text)))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static Long movieIdCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid cursor");
+        }
+    }
+
+    // "điểm:movieId:tên" dạng Base64 URL-safe, tên đặt cuối vì có thể chứa dấu ':'
+    private static String encode(Ranked ranked) {
+        String key = ranked.score + ":" + ranked.movieId + ":" + ranked.sortName;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Ranked rankCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+            return new Ranked(Integer.parseInt(parts[0]), parts[2], Long.parseLong(parts[1]), null);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private record Document(MovieResponse movie, Set<String> terms, String sortName) {
+    }
+
+    private record Ranked(int score, String sortName, long movieId, Document document) {
+    }
+}
@@ -4,27 +4,28 @@ import org.example.movie.dto.request.AddMovieRequest;
 import org.example.movie.dto.request.UpdateMovieRequest;
 import org.example.movie.dto.response.MovieResponse;
 import org.example.movie.entity.*;
-import org.example.movie.enums.SeatStatus;
-import org.example.movie.enums.SeatType;
+import org.example.movie.event.MovieChangedEvent;
 import org.example.movie.exception.AppException;
 import org.example.movie.exception.ErrorCode;
-import org.example.movie.mapper.MovieMapper;
 import org.example.movie.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
-public class MovieService {
+public class MovieService implements SmartInitializingSingleton {
 
     @Autowired
     private MovieRepository movieRepository;
@@ -48,22 +49,39 @@ public class MovieService {
     private TicketRepository ticketRepository;
 
     @Autowired
-    private ShowDateRepository showDateRepository;
+    private SeatRepository seatRepository;
 
     @Autowired
-    private MovieDateRepository movieDateRepository;
+    private ScheduleBatchRepository scheduleBatchRepository;
 
     @Autowired
-    private ScheduleRepository scheduleRepository;
+    private MovieSearchIndex movieSearchIndex;
 
     @Autowired
-    private SeatRepository seatRepository;
+    private ApplicationEventPublisher eventPublisher;
 
-    @Autowired
-    private MovieMapper movieMapper;
+    // false: không sinh sẵn ScheduleSeat, sơ đồ ghế được tính từ ghế mẫu của phòng chiếu (SeatMapService)
+    @Value("${booking.seat-map.materialized:false}")
+    private boolean materializeSeatMap;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MovieService.class);
 
+    // Dữ liệu cũ lưu giờ chiếu dạng chuỗi, chuyển sang cột SHOW_TIME trước khi có request đọc lịch chiếu.
+    // Chạy khi mọi singleton đã tạo xong, trước khi web server mở cổng (ApplicationReadyEvent là quá muộn).
+    // Container gọi qua proxy nên @Transactional có hiệu lực.
+    @Override
+    @Transactional
+    public void afterSingletonsInstantiated() {
+        migrateScheduleTimes();
+    }
+
+    private void migrateScheduleTimes() {
+        int migrated = scheduleBatchRepository.migrateLegacyScheduleTimes();
+        if (migrated > 0) {
+            LOGGER.info("Migrated {} schedule times to the SHOW_TIME column", migrated);
+        }
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @Transactional
     public Movie addMovie(AddMovieRequest request) {
@@ -112,22 +130,10 @@ public class MovieService {
             }
         }
 
-        // Tạo ShowDate và MovieDate
-        LocalDate currentDate = request.getFromDate();
-        while (!currentDate.isAfter(request.getToDate())) {
-            ShowDate showDate = ShowDate.builder()
-                    .showDate(currentDate)
-                    .build();
-            showDate = showDateRepository.save(showDate);
-
-            MovieDate movieDate = MovieDate.builder()
-                    .movie(movie)
-                    .showDate(showDate)
-                    .build();
-            movieDateRepository.save(movieDate);
-
-            currentDate = currentDate.plusDays(1);
-        }
+        // Tạo ShowDate và MovieDate (ghi theo lô)
+        List<LocalDate> showDates = request.getFromDate().datesUntil(request.getToDate().plusDays(1)).toList();
+        List<Long> showDateIds = scheduleBatchRepository.insertShowDates(showDates);
+        scheduleBatchRepository.insertMovieDates(movie.getMovieId(), showDateIds);
 
         // Lấy danh sách ghế của phòng chiếu
         List<Seat> seats = seatRepository.findByCinemaRoomCinemaRoomId(cinemaRoom.getCinemaRoomId());
@@ -135,8 +141,8 @@ public class MovieService {
             throw new AppException(ErrorCode.SEAT_NOT_FOUND, "No seats found for cinema room");
         }
 
-        // Tạo Schedule và ScheduleSeat
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+        // Tạo Schedule, MovieSchedule (và ScheduleSeat nếu bật chế độ sinh sẵn) theo lô
+        List<LocalDateTime> scheduleTimes = new ArrayList<>();
         for (LocalDateTime scheduleTime : request.getScheduleTimes()) {
             LocalDate scheduleDate = scheduleTime.toLocalDate();
             if (scheduleDate.isBefore(request.getFromDate()) || scheduleDate.isAfter(request.getToDate())) {
@@ -144,45 +150,21 @@ public class MovieService {
                         scheduleTime, request.getFromDate(), request.getToDate());
                 continue;
             }
-
-            // Tạo Schedule
-            Schedule schedule = Schedule.builder()
-                    .scheduleTime(scheduleTime.format(formatter))
-                    .build();
-            schedule = scheduleRepository.save(schedule);
-
-            // Tạo MovieSchedule
-            MovieSchedule movieSchedule = MovieSchedule.builder()
-                    .movie(movie)
-                    .schedule(schedule)
-                    .build();
-            movieScheduleRepository.save(movieSchedule);
-
-            // Tạo ScheduleSeat cho mỗi Seat trong phòng chiếu
-            for (Seat seat : seats) {
-                ScheduleSeat scheduleSeat = ScheduleSeat.builder()
-                        .schedule(schedule)
-                        .movie(movie)
-                        .seatColumn(seat.getSeatColumn())
-                        .seatRow(seat.getSeatRow())
-                        .seatStatus(SeatStatus.AVAILABLE)
-                        .seatType(seat.getSeatType().ordinal()) // Sử dụng seatType trực tiếp thay vì ordinal()
-                        .build();
-                scheduleSeatRepository.save(scheduleSeat);
-            }
+            scheduleTimes.add(scheduleTime);
         }
+        List<Long> scheduleIds = scheduleBatchRepository.insertSchedules(scheduleTimes);
+        scheduleBatchRepository.insertMovieSchedules(movie.getMovieId(), scheduleIds);
+        if (materializeSeatMap) {
+            scheduleBatchRepository.insertScheduleSeats(movie.getMovieId(), scheduleIds, seats);
+        }
+        eventPublisher.publishEvent(new MovieChangedEvent(movie.getMovieId()));
 
         return movie;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     public List<MovieResponse> getMovieList(String searchKeyword) {
-        List<Movie> movies = searchKeyword == null || searchKeyword.isEmpty()
-                ? movieRepository.findAll()
-                : movieRepository.findByMovieNameVnContainingIgnoreCaseOrMovieNameEnglishContainingIgnoreCase(searchKeyword, searchKeyword);
-        return movies.stream()
-                .map(movieMapper::toResponse)
-                .collect(Collectors.toList());
+        return movieSearchIndex.search(searchKeyword);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -224,6 +206,7 @@ public class MovieService {
                         .build())
                 .collect(Collectors.toList());
         movieTypeRepository.saveAll(movieTypes);
+        eventPublisher.publishEvent(new MovieChangedEvent(movie.getMovieId()));
 
         return "Movie updated successfully";
     }
@@ -255,6 +238,7 @@ public class MovieService {
         movieTypeRepository.deleteByMovieMovieId(movieId);
         movieScheduleRepository.deleteByMovieMovieId(movieId);
         movieRepository.delete(movie);
+        eventPublisher.publishEvent(new MovieChangedEvent(movieId));
 
         return "Movie deleted successfully";
     }
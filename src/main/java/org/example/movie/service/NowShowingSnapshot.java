@@ -0,0 +1,194 @@
+package org.example.movie.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.movie.dto.response.MovieResponse;
+import org.example.movie.dto.response.NowShowingMovieResponse;
+import org.example.movie.dto.response.NowShowingResponse;
+import org.example.movie.dto.response.ShowtimeResponse;
+import org.example.movie.entity.Movie;
+import org.example.movie.event.MovieChangedEvent;
+import org.example.movie.mapper.MovieMapper;
+import org.example.movie.repository.MovieRepository;
+import org.example.movie.repository.MovieScheduleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ảnh chụp "phim đang chiếu" cho màn hình chính: mọi phim có fromDate <= hôm nay <= toDate cùng các ngày chiếu
+ * và suất chiếu sắp tới, dựng sẵn bằng hai truy vấn và serialize sẵn thành JSON.
+ * Ảnh chụp là bất biến; bản mới được dựng trên luồng nền khi MovieService thêm/sửa/xóa phim (MovieChangedEvent)
+ * và định kỳ mỗi refresh-interval (bỏ suất đã qua, đổi ngày), rồi thay thế bản cũ bằng một phép gán.
+ * Mỗi lượt xem màn hình chính chỉ đọc tham chiếu hiện tại, không truy vấn database.
+ * Phiên bản (ETag) là mã băm nội dung danh sách phim, không phụ thuộc lần khởi động hay instance; lần dựng cho ra
+ * nội dung giống hệt bản hiện tại thì giữ nguyên bản cũ để ETag client đang giữ vẫn còn hiệu lực.
+ */
+@Component
+public class NowShowingSnapshot {
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private MovieScheduleRepository movieScheduleRepository;
+
+    @Autowired
+    private MovieMapper movieMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.now-showing.refresh-interval:5m}")
+    private Duration refreshInterval;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NowShowingSnapshot.class);
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "now-showing-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot current;
+    private Timer buildTimer;
+
+    @PostConstruct
+    void init() {
+        buildTimer = Timer.builder("booking.now.showing.build")
+                .description("Time to rebuild the now-showing snapshot")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long intervalMillis = refreshInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::rebuildQuietly, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ảnh chụp hiện tại; chỉ dựng trên luồng gọi nếu chưa có bản nào (request đến trước lần dựng đầu tiên).
+     */
+    public Snapshot get() {
+        Snapshot snapshot = current;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            return current != null ? current : rebuild();
+        }
+    }
+
+    /**
+     * Dựng lại sau khi transaction của MovieService commit. Nhiều thay đổi liên tiếp được gộp thành một lần dựng;
+     * thay đổi đến trong lúc đang dựng sẽ kích hoạt thêm một lần nữa.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (rebuildPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                rebuildPending.set(false);
+                rebuildQuietly();
+            });
+        }
+    }
+
+    synchronized Snapshot rebuild() {
+        return buildTimer.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDate today = now.toLocalDate();
+            List<Movie> movies = movieRepository.findRunningOn(today);
+            Map<Long, List<ShowtimeResponse>> showtimesByMovie = new HashMap<>();
+            for (Object[] row : movieScheduleRepository.findUpcomingShowtimeRows(today, now)) {
+                LocalDateTime time = (LocalDateTime) row[2];
+                ShowtimeResponse showtime = new ShowtimeResponse();
+                showtime.setScheduleId((Long) row[1]);
+                showtime.setShowDate(time.toLocalDate());
+                showtime.setShowTime(time.toLocalTime());
+                showtime.setCinemaRoomName((String) row[3]);
+                showtimesByMovie.computeIfAbsent((Long) row[0], movieId -> new ArrayList<>()).add(showtime);
+            }
+
+            List<NowShowingMovieResponse> entries = new ArrayList<>(movies.size());
+            for (Movie movie : movies) {
+                MovieResponse movieResponse = movieMapper.toResponse(movie);
+                List<ShowtimeResponse> showtimes = showtimesByMovie.getOrDefault(movie.getMovieId(), List.of());
+                NowShowingMovieResponse entry = new NowShowingMovieResponse();
+                entry.setMovie(movieResponse);
+                entry.setShowtimes(List.copyOf(showtimes));
+                entry.setShowDates(showtimes.stream().map(ShowtimeResponse::getShowDate).distinct().toList());
+                entries.add(entry);
+            }
+            // generatedAt không tham gia mã băm, nếu không mỗi lần dựng định kỳ đều đổi ETag
+            String version = DigestUtils.md5DigestAsHex(serialize(entries));
+            Snapshot previous = current;
+            if (previous != null && previous.version().equals(version)) {
+                return previous;
+            }
+
+            NowShowingResponse response = new NowShowingResponse();
+            response.setGeneratedAt(now);
+            response.setMovies(List.copyOf(entries));
+
+            Snapshot snapshot = new Snapshot(version, response, serialize(response));
+            current = snapshot;
+            LOGGER.debug("Now-showing snapshot {} built with {} movies", snapshot.version(), entries.size());
+            return snapshot;
+        });
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Giữ ảnh chụp cũ, lần dựng định kỳ sau sẽ thử lại
+            LOGGER.error("Failed to rebuild now-showing snapshot", e);
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize now-showing snapshot", e);
+        }
+    }
+
+    /**
+     * Một phiên bản ảnh chụp; json là nội dung response đã serialize sẵn, không được sửa.
+     */
+    public record Snapshot(String version, NowShowingResponse response, byte[] json) {
+
+        public String eTag() {
+            return "\"now-showing-" + version + "\"";
+        }
+    }
+}
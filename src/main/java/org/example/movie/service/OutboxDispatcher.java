@@ -0,0 +1,245 @@
+package org.example.movie.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.movie.entity.OutboxMessage;
+import org.example.movie.enums.OutboxStatus;
+import org.example.movie.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gửi các tin trong outbox ở nền.
+ * Mỗi vòng nhận một lô tin đến hạn (đặt lease bằng cách dời nextAttemptAt, có khóa lạc quan nên nhiều instance
+ * không gửi trùng), gửi song song trên một pool giới hạn, rồi đánh dấu SENT cả lô bằng một câu UPDATE.
+ * Tin gửi lỗi được thử lại với thời gian chờ tăng gấp đôi, quá max-attempts thì chuyển sang FAILED.
+ * Chỉ chạy khi có JavaMailSender (đã cấu hình spring.mail.host).
+ */
+@Component
+public class OutboxDispatcher {
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private ObjectProvider<JavaMailSender> mailSenderProvider;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.outbox.poll-interval:5s}")
+    private Duration pollInterval;
+
+    @Value("${booking.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${booking.outbox.workers:4}")
+    private int workers;
+
+    @Value("${booking.outbox.lease:5m}")
+    private Duration lease;
+
+    @Value("${booking.outbox.backoff:10s}")
+    private Duration backoff;
+
+    @Value("${booking.outbox.max-backoff:30m}")
+    private Duration maxBackoff;
+
+    @Value("${booking.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${booking.outbox.mail-from:no-reply@movietheater.local}")
+    private String mailFrom;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final AtomicBoolean wakeUpScheduled = new AtomicBoolean();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong pendingCount = new AtomicLong();
+
+    private JavaMailSender mailSender;
+    private ScheduledExecutorService scheduler;
+    private ThreadPoolExecutor senders;
+    private TransactionTemplate transactionTemplate;
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Timer deliveryLag;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        sentCounter = Counter.builder("booking.outbox.sent")
+                .description("Outbox messages delivered")
+                .register(meterRegistry);
+        retriedCounter = Counter.builder("booking.outbox.retried")
+                .description("Outbox deliveries that failed and were scheduled again")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("booking.outbox.failed")
+                .description("Outbox messages given up after max-attempts")
+                .register(meterRegistry);
+        deliveryLag = Timer.builder("booking.outbox.delivery.lag")
+                .description("Time from writing an outbox message to delivering it")
+                .register(meterRegistry);
+        meterRegistry.gauge("booking.outbox.lag.seconds", lagSeconds);
+        meterRegistry.gauge("booking.outbox.pending", pendingCount);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        mailSender = mailSenderProvider.getIfAvailable();
+        if (!enabled || mailSender == null) {
+            LOGGER.info("Outbox dispatcher not started (enabled={}, mail sender configured={})", enabled, mailSender != null);
+            return;
+        }
+        senders = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize), runnable -> {
+            Thread thread = new Thread(runnable, "outbox-sender");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::drain, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            senders.shutdown();
+        }
+    }
+
+    /**
+     * Yêu cầu một vòng gửi sớm (sau khi có tin mới được commit). Nhiều lần gọi liên tiếp được gộp lại.
+     */
+    public void wakeUp() {
+        if (scheduler != null && wakeUpScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    wakeUpScheduled.set(false);
+                    drain();
+                });
+            } catch (RejectedExecutionException e) {
+                wakeUpScheduled.set(false);
+            }
+        }
+    }
+
+    void drain() {
+        try {
+            List<OutboxMessage> batch;
+            do {
+                batch = claimBatch();
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                }
+            } while (batch.size() == batchSize);
+            lagSeconds.set(outboxMessageRepository.findOldestPendingCreatedAt()
+                    .map(oldest -> Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()))
+                    .orElse(0L));
+            pendingCount.set(outboxMessageRepository.countByStatus(OutboxStatus.PENDING));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            LOGGER.debug("Outbox batch was claimed by another dispatcher");
+        } catch (RuntimeException e) {
+            LOGGER.error("Outbox dispatch failed", e);
+        }
+    }
+
+    private List<OutboxMessage> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxMessageRepository.findDue(now, PageRequest.of(0, batchSize));
+            // Dời hạn để tin đang gửi không bị vòng khác nhận lại; nếu instance chết giữa chừng tin sẽ được gửi lại sau lease
+            due.forEach(message -> message.setNextAttemptAt(now.plus(lease)));
+            return outboxMessageRepository.saveAllAndFlush(due);
+        });
+    }
+
+    private void deliver(List<OutboxMessage> batch) {
+        List<Future<?>> results = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            results.add(senders.submit(() -> send(message)));
+        }
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage message = batch.get(i);
+            try {
+                results.get(i).get();
+                sentIds.add(message.getOutboxId());
+                deliveryLag.record(Duration.between(message.getCreatedAt(), LocalDateTime.now()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                scheduleRetry(message, e.getCause());
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxMessageRepository.markSent(sentIds, LocalDateTime.now()));
+            sentCounter.increment(sentIds.size());
+        }
+    }
+
+    private void send(OutboxMessage message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom(mailFrom);
+        mail.setTo(message.getRecipient());
+        mail.setSubject(message.getSubject());
+        mail.setText(message.getBody());
+        mailSender.send(mail);
+    }
+
+    private void scheduleRetry(OutboxMessage message, Throwable error) {
+        int attempts = message.getAttempts() + 1;
+        boolean giveUp = attempts >= maxAttempts;
+        long delayMillis = Math.min(maxBackoff.toMillis(), backoff.toMillis() << Math.min(attempts - 1, 20));
+        String reason = String.valueOf(error.getMessage());
+        transactionTemplate.executeWithoutResult(status -> outboxMessageRepository.markFailed(message.getOutboxId(),
+                giveUp ? OutboxStatus.FAILED : OutboxStatus.PENDING,
+                LocalDateTime.now().plus(Duration.ofMillis(delayMillis)),
+                reason.length() > 500 ? reason.substring(0, 500) : reason));
+        if (giveUp) {
+            failedCounter.increment();
+            LOGGER.warn("Giving up on outbox message {} after {} attempts: {}", message.getOutboxId(), attempts, reason);
+        } else {
+            retriedCounter.increment();
+            LOGGER.debug("Outbox message {} failed (attempt {}), retrying in {} ms: {}",
+                    message.getOutboxId(), attempts, delayMillis, reason);
+        }
+    }
+}
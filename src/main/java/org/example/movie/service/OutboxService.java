@@ -0,0 +1,71 @@
+package org.example.movie.service;
+
+import org.example.movie.entity.Invoice;
+import org.example.movie.entity.OutboxMessage;
+import org.example.movie.enums.OutboxStatus;
+import org.example.movie.repository.OutboxMessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Ghi tin cần gửi ra ngoài (email vé) vào bảng outbox trong cùng transaction với thay đổi của hóa đơn.
+ * Tin chỉ tồn tại nếu transaction commit; việc gửi do OutboxDispatcher thực hiện ở nền,
+ * nên transaction xác nhận không phải chờ SMTP.
+ */
+@Service
+public class OutboxService {
+
+    public static final String TICKET_EMAIL = "TICKET_EMAIL";
+
+    private static final DateTimeFormatter SHOW_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    public void enqueueTicketEmail(Invoice invoice, String recipient) {
+        if (recipient == null || recipient.isBlank()) {
+            return;
+        }
+        StringBuilder body = new StringBuilder()
+                .append("Thank you for your booking.\n\n")
+                .append("Booking ID: ").append(invoice.getInvoiceId()).append('\n')
+                .append("Movie: ").append(invoice.getMovieName()).append('\n');
+        if (invoice.getScheduleShowTime() != null) {
+            body.append("Show time: ").append(invoice.getScheduleShowTime().format(SHOW_TIME_FORMAT)).append('\n');
+        }
+        body.append("Seats: ").append(invoice.getSeat()).append('\n')
+                .append("Total: ").append(invoice.getTotalMoney()).append(" VND\n\n")
+                .append("Please show this email or your booking ID at the counter.\n");
+        LocalDateTime now = LocalDateTime.now();
+        outboxMessageRepository.save(OutboxMessage.builder()
+                .eventType(TICKET_EMAIL)
+                .aggregateId(invoice.getInvoiceId())
+                .recipient(recipient)
+                .subject("Your e-ticket for " + invoice.getMovieName() + " (booking #" + invoice.getInvoiceId() + ")")
+                .body(body.toString())
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        // Báo dispatcher ngay sau khi commit thay vì chờ lần quét kế tiếp
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxDispatcher.wakeUp();
+                }
+            });
+        } else {
+            outboxDispatcher.wakeUp();
+        }
+    }
+}
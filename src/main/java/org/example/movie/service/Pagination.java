@@ -0,0 +1,75 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.response.PageResponse;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Phân trang theo khóa (keyset) cho các endpoint danh sách.
+ * Mỗi trang được đọc bằng "khóa > cursor ORDER BY khóa LIMIT size + 1" trên khóa chính, nên chi phí một trang
+ * không phụ thuộc trang đó nằm sâu bao nhiêu; dòng thừa chỉ dùng để biết còn trang sau hay không.
+ * Cursor là khóa của phần tử cuối trang trước.
+ */
+@Component
+public class Pagination {
+
+    @Value("${booking.pagination.default-size:50}")
+    private int defaultSize;
+
+    @Value("${booking.pagination.max-size:200}")
+    private int maxSize;
+
+    /**
+     * Kích thước trang: mặc định default-size, không vượt quá max-size.
+     */
+    public int size(Integer requested) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        if (requested < 1) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Page size must be at least 1");
+        }
+        return Math.min(requested, maxSize);
+    }
+
+    /**
+     * Số dòng cần đọc cho một trang (thêm một dòng để biết còn trang sau).
+     */
+    public Limit limit(int size) {
+        return Limit.of(size + 1);
+    }
+
+    /**
+     * Cursor cho khóa kiểu số; không có cursor thì bắt đầu từ đầu (id tự tăng luôn dương).
+     */
+    public Long longCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /**
+     * Cursor cho khóa kiểu chuỗi; chuỗi rỗng đứng trước mọi khóa.
+     */
+    public String stringCursor(String cursor) {
+        return cursor == null ? "" : cursor;
+    }
+
+    public <T, R> PageResponse<R> page(List<T> rows, int size, Function<T, ?> key, Function<T, R> mapper) {
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? String.valueOf(key.apply(items.get(items.size() - 1))) : null;
+        return new PageResponse<>(items.stream().map(mapper).toList(), nextCursor, hasMore);
+    }
+}
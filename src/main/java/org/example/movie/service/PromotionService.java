@@ -3,6 +3,7 @@ package org.example.movie.service;
 import org.example.movie.dto.request.AddPromotionRequest;
 import org.example.movie.dto.request.UpdatePromotionRequest;
 import org.example.movie.dto.response.PromotionResponse;
+import org.example.movie.dto.response.PageResponse;
 import org.example.movie.entity.Promotion;
 import org.example.movie.exception.AppException;
 import org.example.movie.exception.ErrorCode;
@@ -14,7 +15,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class PromotionService {
@@ -25,14 +25,16 @@ public class PromotionService {
     @Autowired
     private PromotionMapper promotionMapper;
 
+    @Autowired
+    private Pagination pagination;
+
     @PreAuthorize("hasRole('ADMIN')")
-    public List<PromotionResponse> getPromotionList(String searchKeyword) {
-        List<Promotion> promotions = searchKeyword == null || searchKeyword.isEmpty()
-                ? promotionRepository.findAll()
-                : promotionRepository.findByTitleContainingIgnoreCase(searchKeyword);
-        return promotions.stream()
-                .map(promotionMapper::toResponse)
-                .collect(Collectors.toList());
+    public PageResponse<PromotionResponse> getPromotionList(String searchKeyword, String cursor, Integer size) {
+        int pageSize = pagination.size(size);
+        String keyword = searchKeyword == null || searchKeyword.isEmpty() ? null : searchKeyword;
+        List<Promotion> promotions = promotionRepository.findPageAfter(pagination.longCursor(cursor), keyword,
+                pagination.limit(pageSize));
+        return pagination.page(promotions, pageSize, Promotion::getPromotionId, promotionMapper::toResponse);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
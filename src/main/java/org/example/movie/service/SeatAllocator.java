@@ -0,0 +1,197 @@
+package org.example.movie.service;
+
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.SeatType;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.SeatRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tìm tự động nhóm ghế liền nhau tốt nhất trong một hàng (cùng seatRow, seatColumn liên tiếp).
+ * Cột bị bỏ trống trong sơ đồ (lối đi, ghế đã bỏ hoặc chưa có vị trí bit) ngắt nhóm ghế: hai ghế chỉ liền nhau
+ * khi cột của chúng liền nhau (A, B, ..., Z, AA, ... hoặc số thứ tự cột).
+ * Lưới ghế của mỗi phòng chiếu được dựng một lần từ ghế mẫu, mỗi ô giữ sẵn vị trí bit trong SeatInventory,
+ * nên mỗi lần tìm chỉ duyệt lưới trên bitset hiện tại, không truy vấn database.
+ * Nhóm ghế càng gần giữa hàng và hàng càng gần giữa phòng thì điểm càng tốt.
+ */
+@Component
+public class SeatAllocator {
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    private final Map<Long, Grid> grids = new ConcurrentHashMap<>();
+
+    /**
+     * Trả về Seat.id của nhóm ghế tốt nhất còn trống, bỏ qua các ghế trong excludedSeatIds
+     * (ghế đã được lệnh khác trong cùng lô chọn nhưng chưa ghi vào SeatInventory).
+     */
+    public List<Long> findBestAvailable(Long movieScheduleId, Integer quantity, SeatType seatType,
+                                        Set<Long> excludedSeatIds) {
+        if (quantity == null || quantity < 1) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Quantity must be at least 1");
+        }
+        if (quantity > SeatInventory.MAX_SEATS_PER_BOOKING) {
+            throw new AppException(ErrorCode.SEAT_LIMIT_EXCEEDED);
+        }
+        SeatInventory.Occupancy occupancy = seatInventory.occupancy(movieScheduleId);
+        Grid grid = getGrid(occupancy);
+
+        double bestScore = Double.MAX_VALUE;
+        int bestRow = -1;
+        int bestStart = -1;
+        double rowCenter = (grid.rows.length - 1) / 2.0;
+        for (int r = 0; r < grid.rows.length; r++) {
+            Row row = grid.rows[r];
+            double rowOffset = grid.rows.length > 1 ? (r - rowCenter) / (grid.rows.length - 1) : 0;
+            // Giữa hàng tính theo vị trí cột thật, nên lối đi lệch về một bên không kéo nhóm ghế lệch theo
+            int first = row.columns[0];
+            int width = row.columns[row.columns.length - 1] - first;
+            double seatCenter = first + width / 2.0;
+            int run = 0;
+            for (int c = 0; c < row.seatIds.length; c++) {
+                boolean free = !occupancy.isTaken(row.slots[c])
+                        && (seatType == null || row.seatTypes[c] == seatType)
+                        && !excludedSeatIds.contains(row.seatIds[c]);
+                boolean adjacent = c > 0 && row.columns[c] == row.columns[c - 1] + 1;
+                run = free ? (adjacent ? run + 1 : 1) : 0;
+                if (run < quantity) {
+                    continue;
+                }
+                int start = c - quantity + 1;
+                double seatOffset = width > 0
+                        ? ((row.columns[start] + row.columns[c]) / 2.0 - seatCenter) / width
+                        : 0;
+                double score = seatOffset * seatOffset + rowOffset * rowOffset;
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestRow = r;
+                    bestStart = start;
+                }
+            }
+        }
+        if (bestRow < 0) {
+            throw new AppException(ErrorCode.NO_CONTIGUOUS_SEATS);
+        }
+        List<Long> seatIds = new ArrayList<>(quantity);
+        for (int c = bestStart; c < bestStart + quantity; c++) {
+            seatIds.add(grid.rows[bestRow].seatIds[c]);
+        }
+        return seatIds;
+    }
+
+    /**
+     * Chọn quantity ghế còn trống cho đặt vé số lượng lớn (không giới hạn 8 ghế, không bắt buộc liền nhau).
+     * Lấp từ hàng gần giữa phòng ra ngoài, trong mỗi hàng lấy các ghế gần giữa hàng nhất để đoàn ngồi gần nhau.
+     */
+    public List<Long> findAvailable(Long movieScheduleId, Integer quantity, SeatType seatType) {
+        if (quantity == null || quantity < 1) {
+            throw new AppException(ErrorCode.INVALID_REQUEST, "Quantity must be at least 1");
+        }
+        SeatInventory.Occupancy occupancy = seatInventory.occupancy(movieScheduleId);
+        Grid grid = getGrid(occupancy);
+
+        double rowCenter = (grid.rows.length - 1) / 2.0;
+        Integer[] rowOrder = new Integer[grid.rows.length];
+        for (int r = 0; r < rowOrder.length; r++) {
+            rowOrder[r] = r;
+        }
+        Arrays.sort(rowOrder, Comparator.comparingDouble(r -> Math.abs(r - rowCenter)));
+
+        List<Long> seatIds = new ArrayList<>(quantity);
+        for (int r : rowOrder) {
+            Row row = grid.rows[r];
+            double seatCenter = (row.seatIds.length - 1) / 2.0;
+            List<Integer> free = new ArrayList<>();
+            for (int c = 0; c < row.seatIds.length; c++) {
+                if (!occupancy.isTaken(row.slots[c]) && (seatType == null || row.seatTypes[c] == seatType)) {
+                    free.add(c);
+                }
+            }
+            free.sort(Comparator.comparingDouble(c -> Math.abs(c - seatCenter)));
+            List<Integer> taken = free.subList(0, Math.min(free.size(), quantity - seatIds.size()));
+            taken.stream().sorted().forEach(c -> seatIds.add(row.seatIds[c]));
+            if (seatIds.size() == quantity) {
+                return seatIds;
+            }
+        }
+        throw new AppException(ErrorCode.NOT_ENOUGH_SEATS);
+    }
+
+    /**
+     * Bỏ lưới đã dựng của phòng chiếu, gọi khi ghế mẫu thay đổi (vd. đổi loại ghế).
+     */
+    public void evict(Long cinemaRoomId) {
+        grids.remove(cinemaRoomId);
+    }
+
+    private Grid getGrid(SeatInventory.Occupancy occupancy) {
+        Grid grid = grids.get(occupancy.cinemaRoomId());
+        if (grid != null && grid.slots == occupancy.slots()) {
+            return grid;
+        }
+        grid = Grid.of(seatRepository.findByCinemaRoomCinemaRoomId(occupancy.cinemaRoomId()), occupancy.slots());
+        grids.put(occupancy.cinemaRoomId(), grid);
+        return grid;
+    }
+
+    private record Grid(Map<Long, Integer> slots, Row[] rows) {
+
+        static Grid of(List<Seat> seats, Map<Long, Integer> slots) {
+            Comparator<Seat> byColumn = Comparator.comparing((Seat seat) -> seat.getSeatColumn().length())
+                    .thenComparing(Seat::getSeatColumn);
+            Map<Integer, List<Seat>> byRow = new TreeMap<>();
+            for (Seat seat : seats) {
+                // Ghế thêm sau khi SeatInventory được nạp chưa có vị trí bit, chưa thể đặt
+                if (slots.containsKey(seat.getSeatId()) && seat.getSeatRow() != null && seat.getSeatColumn() != null) {
+                    byRow.computeIfAbsent(seat.getSeatRow(), row -> new ArrayList<>()).add(seat);
+                }
+            }
+            Row[] rows = byRow.values().stream()
+                    .map(rowSeats -> {
+                        rowSeats.sort(byColumn);
+                        Row row = new Row(new long[rowSeats.size()], new int[rowSeats.size()],
+                                new SeatType[rowSeats.size()], new int[rowSeats.size()]);
+                        for (int i = 0; i < rowSeats.size(); i++) {
+                            Seat seat = rowSeats.get(i);
+                            row.seatIds[i] = seat.getSeatId();
+                            row.slots[i] = slots.get(seat.getSeatId());
+                            row.seatTypes[i] = seat.getSeatType();
+                            row.columns[i] = columnNumber(seat.getSeatColumn(), i);
+                        }
+                        return row;
+                    })
+                    .toArray(Row[]::new);
+            return new Grid(slots, rows);
+        }
+
+        /**
+         * Số thứ tự cột: A = 1, ..., Z = 26, AA = 27, ... hoặc chính số cột nếu cột là số.
+         * Tên cột không theo hai dạng trên được đặt cách xa mọi cột khác nên không liền với ghế nào.
+         */
+        private static int columnNumber(String column, int index) {
+            if (column.chars().allMatch(Character::isDigit) && column.length() < 9) {
+                return Integer.parseInt(column);
+            }
+            int number = 0;
+            for (char letter : column.toUpperCase(Locale.ROOT).toCharArray()) {
+                if (letter < 'A' || letter > 'Z' || number > Integer.MAX_VALUE / 27) {
+                    return Integer.MIN_VALUE / 2 + 2 * index;
+                }
+                number = number * 26 + (letter - 'A' + 1);
+            }
+            return number;
+        }
+    }
+
+    private record Row(long[] seatIds, int[] slots, SeatType[] seatTypes, int[] columns) {
+    }
+}
@@ -0,0 +1,258 @@
+package org.example.movie.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.event.SeatStatusChangedEvent;
+import org.example.movie.repository.InvoiceRepository;
+import org.example.movie.repository.ScheduleSeatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quản lý thời hạn giữ ghế của các hóa đơn PENDING.
+ * Mỗi lần giữ ghế được đưa vào một DelayQueue, một luồng nền chỉ thức dậy khi có hóa đơn hết hạn
+ * (không quét bảng định kỳ), trả ghế về AVAILABLE theo lô và chuyển hóa đơn sang UNPAID.
+ */
+@Service
+public class SeatHoldService {
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${booking.hold.ttl:10m}")
+    private Duration holdTtl;
+
+    @Value("${booking.hold.expiry-batch-size:100}")
+    private int expiryBatchSize;
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SeatHoldService.class);
+
+    private final DelayQueue<HoldEntry> expiryQueue = new DelayQueue<>();
+    private final Map<Long, HoldEntry> activeHolds = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+    private Counter holdsCreated;
+    private Counter holdsExpired;
+    private Counter seatsReleased;
+    private Thread expiryWorker;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        holdsCreated = Counter.builder("booking.seat.holds.created")
+                .description("Number of seat holds created by seat selection")
+                .register(meterRegistry);
+        holdsExpired = Counter.builder("booking.seat.holds.expired")
+                .description("Number of seat holds released because their TTL elapsed")
+                .register(meterRegistry);
+        seatsReleased = Counter.builder("booking.seat.holds.released.seats")
+                .description("Number of schedule seats returned to AVAILABLE by hold expiry")
+                .register(meterRegistry);
+        meterRegistry.gauge("booking.seat.holds.active", activeHolds, Map::size);
+    }
+
+    public LocalDateTime newHoldExpiry() {
+        return LocalDateTime.now().plus(holdTtl);
+    }
+
+    /**
+     * Đăng ký hẹn giờ hết hạn cho hóa đơn vừa giữ ghế. Hẹn giờ chỉ bắt đầu sau khi transaction commit.
+     */
+    public void hold(Long invoiceId, Long movieScheduleId, List<Long> seatIds, LocalDateTime expiresAt) {
+        HoldEntry entry = new HoldEntry(invoiceId, movieScheduleId, List.copyOf(seatIds), expiresAt);
+        afterCommit(() -> {
+            schedule(entry);
+            holdsCreated.increment();
+        });
+    }
+
+    /**
+     * Hủy hẹn giờ khi hóa đơn đã được xác nhận (ghế chuyển sang BOOKED).
+     */
+    public void complete(Long invoiceId) {
+        afterCommit(() -> activeHolds.remove(invoiceId));
+    }
+
+    /**
+     * Khôi phục hẹn giờ của các hóa đơn đang giữ ghế và chạy luồng hết hạn.
+     * SeatMapService gọi khi khởi động, trước khi web server nhận request.
+     */
+    public void start() {
+        Map<Long, HoldEntry> recovered = new HashMap<>();
+        for (Object[] row : scheduleSeatRepository.findAllHeldSeats()) {
+            Long invoiceId = (Long) row[0];
+            LocalDateTime expiresAt = row[1] != null ? (LocalDateTime) row[1] : LocalDateTime.now();
+            HoldEntry entry = recovered.computeIfAbsent(invoiceId,
+                    id -> new HoldEntry(id, (Long) row[2], new ArrayList<>(), expiresAt));
+            entry.seatIds().add((Long) row[3]);
+        }
+        recovered.values().forEach(this::schedule);
+        LOGGER.info("Recovered {} active seat holds", recovered.size());
+
+        expiryWorker = new Thread(this::runExpiryLoop, "seat-hold-expiry");
+        expiryWorker.setDaemon(true);
+        expiryWorker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (expiryWorker != null) {
+            expiryWorker.interrupt();
+        }
+    }
+
+    private void schedule(HoldEntry entry) {
+        activeHolds.put(entry.invoiceId(), entry);
+        expiryQueue.add(entry);
+    }
+
+    private void runExpiryLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<HoldEntry> batch = new ArrayList<>(expiryBatchSize);
+            try {
+                batch.add(expiryQueue.take());
+                expiryQueue.drainTo(batch, expiryBatchSize - 1);
+                expire(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Failed to expire {} seat holds, retrying in {}", batch.size(), RETRY_DELAY, e);
+                LocalDateTime retryAt = LocalDateTime.now().plus(RETRY_DELAY);
+                for (HoldEntry entry : batch) {
+                    HoldEntry retry = entry.withExpiresAt(retryAt);
+                    if (activeHolds.replace(entry.invoiceId(), entry, retry)) {
+                        expiryQueue.add(retry);
+                    }
+                }
+            }
+        }
+    }
+
+    private void expire(List<HoldEntry> batch) {
+        Map<Long, HoldEntry> live = new HashMap<>();
+        for (HoldEntry entry : batch) {
+            // Bỏ qua hóa đơn đã được xác nhận hoặc đã được hẹn giờ lại
+            if (activeHolds.get(entry.invoiceId()) == entry) {
+                live.put(entry.invoiceId(), entry);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> expiredIds = new ArrayList<>();
+        List<Long> releasedIds = new ArrayList<>();
+        List<HoldEntry> rescheduled = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Object[] row : invoiceRepository.findPendingHolds(live.keySet())) {
+                Long invoiceId = (Long) row[0];
+                LocalDateTime expiresAt = (LocalDateTime) row[1];
+                if (expiresAt.isAfter(now)) {
+                    rescheduled.add(live.get(invoiceId).withExpiresAt(expiresAt));
+                } else {
+                    expiredIds.add(invoiceId);
+                }
+            }
+            if (expiredIds.isEmpty()) {
+                return;
+            }
+            // findPendingHolds không khóa dòng: một lần xác nhận commit xen giữa đã chuyển ghế sang BOOKED.
+            // Khóa các dòng còn HELD trước, rồi trả ghế và chuyển UNPAID theo lô chỉ cho các hóa đơn còn giữ ghế.
+            releasedIds.addAll(new LinkedHashSet<>(scheduleSeatRepository.lockHeldSeatInvoiceIds(expiredIds)));
+            if (releasedIds.isEmpty()) {
+                return;
+            }
+            seatsReleased.increment(scheduleSeatRepository.releaseHeldSeats(releasedIds));
+            invoiceRepository.markHoldsUnpaid(releasedIds);
+        });
+
+        for (HoldEntry entry : live.values()) {
+            activeHolds.remove(entry.invoiceId(), entry);
+        }
+        // Chỉ cập nhật bộ nhớ và phát sự kiện cho các hóa đơn đã được nhả ghế trong database
+        for (Long invoiceId : releasedIds) {
+            HoldEntry entry = live.get(invoiceId);
+            seatInventory.release(entry.movieScheduleId(), entry.seatIds());
+            eventPublisher.publishEvent(new SeatStatusChangedEvent(entry.movieScheduleId(), entry.seatIds(),
+                    SeatStatus.AVAILABLE));
+            holdsExpired.increment();
+        }
+        rescheduled.forEach(this::schedule);
+        LOGGER.info("Expired {} seat holds, {} already confirmed", releasedIds.size(),
+                expiredIds.size() - releasedIds.size());
+    }
+
+    boolean isActive(Long invoiceId) {
+        return activeHolds.containsKey(invoiceId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    record HoldEntry(Long invoiceId, Long movieScheduleId, List<Long> seatIds,
+                     LocalDateTime expiresAt) implements Delayed {
+
+        HoldEntry withExpiresAt(LocalDateTime newExpiresAt) {
+            return new HoldEntry(invoiceId, movieScheduleId, seatIds, newExpiresAt);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            long expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package org.example.movie.service;
+
+import org.example.movie.event.MovieChangedEvent;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.MovieScheduleRepository;
+import org.example.movie.repository.ScheduleSeatRepository;
+import org.example.movie.repository.SeatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bộ nhớ trạng thái ghế theo lịch chiếu (MovieSchedule.id).
+ * Mỗi lịch chiếu giữ một bitset (long[]) bất biến, bit = 1 nghĩa là ghế đã bị chiếm.
+ * Vị trí bit được đánh theo ghế mẫu (Seat.id) của phòng chiếu và dùng chung cho mọi lịch chiếu trong phòng.
+ * Việc giữ ghế được thực hiện bằng một lần compare-and-swap trên toàn bộ bitset,
+ * nên yêu cầu bị từ chối không cần truy vấn database.
+ * Database vẫn là nguồn dữ liệu chính, bitset được dựng lại khi khởi động từ ghế mẫu
+ * và các dòng ScheduleSeat không còn AVAILABLE.
+ */
+@Component
+public class SeatInventory {
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private MovieScheduleRepository movieScheduleRepository;
+
+    private final Map<Long, ScheduleInventory> inventories = new ConcurrentHashMap<>();
+
+    // Seat.id -> vị trí bit, theo phòng chiếu
+    private final Map<Long, Map<Long, Integer>> roomSlots = new ConcurrentHashMap<>();
+
+    // Tăng mỗi lần trả ghế, để phát hiện dữ liệu cũ khi nạp lười một lịch chiếu
+    private final AtomicLong releaseCount = new AtomicLong();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SeatInventory.class);
+
+    /**
+     * Dựng bitset cho mọi lịch chiếu. SeatMapService gọi khi khởi động, trước khi web server nhận request;
+     * lịch chiếu đã được nạp lười thì giữ nguyên để không mất ghế đang được giữ.
+     */
+    public void rebuild() {
+        Map<Long, List<Long>> seatIdsByRoom = new HashMap<>();
+        for (Object[] row : seatRepository.findAllSeatIdsByCinemaRoom()) {
+            seatIdsByRoom.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+        }
+        Map<Long, List<Long>> takenBySchedule = new HashMap<>();
+        for (Object[] row : scheduleSeatRepository.findAllTakenSeats()) {
+            takenBySchedule.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+        }
+        seatIdsByRoom.forEach((cinemaRoomId, seatIds) -> roomSlots.putIfAbsent(cinemaRoomId, toSlots(seatIds)));
+        for (Object[] row : movieScheduleRepository.findAllCinemaRoomIds()) {
+            Map<Long, Integer> slots = row[1] != null ? roomSlots.get((Long) row[1]) : null;
+            if (slots != null) {
+                Long movieScheduleId = (Long) row[0];
+                inventories.putIfAbsent(movieScheduleId, ScheduleInventory.of((Long) row[1], slots,
+                        takenBySchedule.getOrDefault(movieScheduleId, List.of())));
+            }
+        }
+        LOGGER.info("Seat inventory rebuilt for {} schedules in {} rooms", inventories.size(), roomSlots.size());
+    }
+
+    /**
+     * Phim được chuyển sang phòng chiếu khác (MovieService.updateMovie): bỏ bitset của các lịch chiếu
+     * còn theo phòng cũ để chúng được nạp lười lại với bảng vị trí của phòng mới.
+     * SeatAllocator dựng lại lưới theo Occupancy.cinemaRoomId nên cũng theo phòng mới.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        for (Object[] row : movieScheduleRepository.findCinemaRoomIdsByMovieId(event.movieId())) {
+            Long cinemaRoomId = (Long) row[1];
+            inventories.computeIfPresent((Long) row[0],
+                    (id, inventory) -> inventory.cinemaRoomId.equals(cinemaRoomId) ? inventory : null);
+        }
+    }
+
+    public static final int MAX_SEATS_PER_BOOKING = 8;
+
+    /**
+     * Kiểm tra danh sách ghế được chọn (không rỗng, tối đa 8 ghế) và loại bỏ id trùng.
+     */
+    public List<Long> validateSelection(List<Long> seatIds) {
+        if (seatIds == null || seatIds.isEmpty()) {
+            throw new AppException(ErrorCode.SEAT_NOT_FOUND);
+        }
+        List<Long> distinctIds = seatIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            throw new AppException(ErrorCode.SEAT_NOT_FOUND);
+        }
+        if (distinctIds.size() > MAX_SEATS_PER_BOOKING) {
+            throw new AppException(ErrorCode.SEAT_LIMIT_EXCEEDED);
+        }
+        return distinctIds;
+    }
+
+    /**
+     * Giữ toàn bộ ghế được yêu cầu hoặc không giữ ghế nào.
+     * Nếu đang trong transaction, ghế sẽ tự động được trả lại khi transaction rollback.
+     */
+    public void claim(Long movieScheduleId, Collection<Long> seatIds) {
+        ScheduleInventory inventory = getInventory(movieScheduleId);
+        long[] mask = inventory.mask(seatIds);
+        if (!inventory.claim(mask)) {
+            throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        inventory.release(mask);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Kiểm tra (không giữ) các ghế còn trống trong bộ nhớ.
+     */
+    public boolean isAvailable(Long movieScheduleId, Collection<Long> seatIds) {
+        ScheduleInventory inventory = getInventory(movieScheduleId);
+        long[] mask = inventory.mask(seatIds);
+        long[] taken = inventory.state.get().taken();
+        for (int i = 0; i < mask.length; i++) {
+            if ((taken[i] & mask[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void release(Long movieScheduleId, Collection<Long> seatIds) {
+        releaseCount.incrementAndGet();
+        ScheduleInventory inventory = inventories.get(movieScheduleId);
+        if (inventory != null) {
+            inventory.release(inventory.mask(seatIds));
+        }
+    }
+
+    /**
+     * Ảnh chụp bitset của lịch chiếu kèm phiên bản dạng "epoch-version".
+     * Epoch đổi mỗi khi bitset được nạp lại nên phiên bản không bị trùng sau khi khởi động lại.
+     * Nếu sinceVersion còn trong lịch sử gần đây, SeatMapView.since là bitset tại phiên bản đó, ngược lại là null.
+     */
+    public SeatMapView view(Long movieScheduleId, String sinceVersion) {
+        ScheduleInventory inventory = getInventory(movieScheduleId);
+        ScheduleInventory.State state = inventory.state.get();
+        long[] since = null;
+        if (sinceVersion != null) {
+            String prefix = inventory.epoch + "-";
+            if (sinceVersion.startsWith(prefix)) {
+                try {
+                    since = state.at(Long.parseLong(sinceVersion.substring(prefix.length())));
+                } catch (NumberFormatException e) {
+                    since = null;
+                }
+            }
+        }
+        return new SeatMapView(inventory.cinemaRoomId, inventory.epoch + "-" + state.version(),
+                inventory.slots.size(), state.taken(), since);
+    }
+
+    public record SeatMapView(Long cinemaRoomId, String version, int seatCount, long[] taken, long[] since) {
+    }
+
+    /**
+     * Bitset ghế đã bị chiếm hiện tại cùng bảng Seat.id -> vị trí bit của phòng chiếu.
+     * Bảng vị trí không đổi trong suốt vòng đời của lịch chiếu nên có thể được dùng làm khóa cache.
+     */
+    public Occupancy occupancy(Long movieScheduleId) {
+        ScheduleInventory inventory = getInventory(movieScheduleId);
+        return new Occupancy(inventory.cinemaRoomId, inventory.slots, inventory.state.get().taken());
+    }
+
+    /**
+     * Số ghế còn trống của lịch chiếu, đếm trực tiếp trên bitset.
+     */
+    public int availableCount(Long movieScheduleId) {
+        ScheduleInventory inventory = getInventory(movieScheduleId);
+        int taken = 0;
+        for (long word : inventory.state.get().taken()) {
+            taken += Long.bitCount(word);
+        }
+        return inventory.slots.size() - taken;
+    }
+
+    public record Occupancy(Long cinemaRoomId, Map<Long, Integer> slots, long[] taken) {
+
+        public boolean isTaken(int slot) {
+            return (taken[slot >>> 6] & (1L << slot)) != 0;
+        }
+    }
+
+    private ScheduleInventory getInventory(Long movieScheduleId) {
+        ScheduleInventory inventory = inventories.get(movieScheduleId);
+        if (inventory != null) {
+            return inventory;
+        }
+        Long cinemaRoomId = movieScheduleRepository.findCinemaRoomIdById(movieScheduleId)
+                .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND));
+        Map<Long, Integer> slots = roomSlots.computeIfAbsent(cinemaRoomId,
+                id -> toSlots(seatRepository.findSeatIdsByCinemaRoomId(id)));
+        if (slots.isEmpty()) {
+            roomSlots.remove(cinemaRoomId);
+            throw new AppException(ErrorCode.SEAT_NOT_FOUND);
+        }
+        List<Long> takenSeatIds;
+        long releasesBefore;
+        do {
+            releasesBefore = releaseCount.get();
+            takenSeatIds = scheduleSeatRepository.findTakenSeatIdsByMovieScheduleId(movieScheduleId);
+        } while (releaseCount.get() != releasesBefore);
+        ScheduleInventory loaded = ScheduleInventory.of(cinemaRoomId, slots, takenSeatIds);
+        ScheduleInventory existing = inventories.putIfAbsent(movieScheduleId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static Map<Long, Integer> toSlots(List<Long> seatIds) {
+        Map<Long, Integer> slots = new HashMap<>(seatIds.size() * 2);
+        for (Long seatId : seatIds) {
+            slots.putIfAbsent(seatId, slots.size());
+        }
+        return Collections.unmodifiableMap(slots);
+    }
+
+    static final class ScheduleInventory {
+        // Số phiên bản cũ được giữ lại để trả về thay đổi cho client
+        private static final int HISTORY_SIZE = 32;
+
+        private final Long cinemaRoomId;
+        private final Map<Long, Integer> slots;
+        private final long epoch = System.currentTimeMillis();
+        private final AtomicReference<State> state;
+
+        private ScheduleInventory(Long cinemaRoomId, Map<Long, Integer> slots, long[] taken) {
+            this.cinemaRoomId = cinemaRoomId;
+            this.slots = slots;
+            this.state = new AtomicReference<>(new State(0, taken, new long[0][]));
+        }
+
+        static ScheduleInventory of(Long cinemaRoomId, Map<Long, Integer> slots, Collection<Long> takenSeatIds) {
+            long[] taken = new long[(slots.size() + 63) >>> 6];
+            for (Long seatId : takenSeatIds) {
+                Integer slot = slots.get(seatId);
+                if (slot != null) {
+                    taken[slot >>> 6] |= 1L << slot;
+                }
+            }
+            return new ScheduleInventory(cinemaRoomId, slots, taken);
+        }
+
+        long[] mask(Collection<Long> seatIds) {
+            long[] mask = new long[state.get().taken().length];
+            for (Long seatId : seatIds) {
+                Integer slot = slots.get(seatId);
+                if (slot == null) {
+                    throw new AppException(ErrorCode.SEAT_NOT_FOUND);
+                }
+                mask[slot >>> 6] |= 1L << slot;
+            }
+            return mask;
+        }
+
+        boolean claim(long[] mask) {
+            while (true) {
+                State current = state.get();
+                long[] next = current.taken().clone();
+                for (int i = 0; i < mask.length; i++) {
+                    if ((next[i] & mask[i]) != 0) {
+                        return false;
+                    }
+                    next[i] |= mask[i];
+                }
+                if (state.compareAndSet(current, current.next(next))) {
+                    return true;
+                }
+            }
+        }
+
+        void release(long[] mask) {
+            while (true) {
+                State current = state.get();
+                long[] next = current.taken().clone();
+                for (int i = 0; i < mask.length; i++) {
+                    next[i] &= ~mask[i];
+                }
+                if (state.compareAndSet(current, current.next(next))) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Trạng thái bất biến: history[i] là bitset tại phiên bản version - 1 - i.
+         */
+        record State(long version, long[] taken, long[][] history) {
+
+            State next(long[] nextTaken) {
+                int kept = Math.min(history.length + 1, HISTORY_SIZE);
+                long[][] nextHistory = new long[kept][];
+                nextHistory[0] = taken;
+                System.arraycopy(history, 0, nextHistory, 1, kept - 1);
+                return new State(version + 1, nextTaken, nextHistory);
+            }
+
+            long[] at(long atVersion) {
+                if (atVersion == version) {
+                    return taken;
+                }
+                long distance = version - atVersion;
+                return distance >= 1 && distance <= history.length ? history[(int) distance - 1] : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.projection.SeatMapRow;
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.dto.response.SeatResponse;
+import org.example.movie.entity.MovieSchedule;
+import org.example.movie.entity.ScheduleSeat;
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.mapper.ScheduleSeatMapper;
+import org.example.movie.repository.MovieScheduleRepository;
+import org.example.movie.repository.ScheduleSeatRepository;
+import org.example.movie.repository.SeatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Sơ đồ ghế của lịch chiếu = ghế mẫu (Seat) của phòng chiếu + lớp phủ ScheduleSeat.
+ * Lịch chiếu mới không sinh sẵn ScheduleSeat cho từng ghế; dòng ScheduleSeat chỉ được tạo khi ghế được chọn,
+ * ghế không có dòng nào được coi là AVAILABLE.
+ * Lịch chiếu cũ đã sinh đủ ScheduleSeat vẫn hoạt động như trước vì mọi dòng đều được đọc như lớp phủ.
+ */
+@Service
+public class SeatMapService implements SmartInitializingSingleton {
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private MovieScheduleRepository movieScheduleRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private ScheduleSeatMapper scheduleSeatMapper;
+
+    @Autowired
+    private SeatHoldService seatHoldService;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SeatMapService.class);
+
+    // Chuẩn bị dữ liệu ghế khi mọi singleton đã tạo xong, trước khi web server nhận request:
+    // nối các dòng ScheduleSeat cũ với ghế mẫu, dựng SeatInventory rồi khôi phục hẹn giờ giữ ghế theo đúng thứ tự đó.
+    // Container gọi qua proxy nên @Transactional có hiệu lực.
+    @Override
+    @Transactional
+    public void afterSingletonsInstantiated() {
+        backfillTemplateSeats();
+        seatInventory.rebuild();
+        seatHoldService.start();
+    }
+
+    // Dòng mới luôn có SEAT_ID nên sau lần nâng cấp đầu tiên chỉ còn một truy vấn kiểm tra, không UPDATE cả bảng.
+    private void backfillTemplateSeats() {
+        if (!scheduleSeatRepository.existsBySeatIsNull()) {
+            return;
+        }
+        int updated = scheduleSeatRepository.backfillTemplateSeats();
+        if (updated > 0) {
+            LOGGER.info("Linked {} schedule seats to their cinema room seats", updated);
+        }
+    }
+
+    /**
+     * Sơ đồ ghế đọc thẳng thành SeatMapRow trong một truy vấn; ghế chưa có dòng ScheduleSeat là AVAILABLE.
+     */
+    public List<SeatResponse> getSeatMap(Long movieScheduleId) {
+        List<SeatMapRow> rows = seatRepository.findSeatMap(movieScheduleId);
+        if (rows.isEmpty()) {
+            throw new AppException(movieScheduleRepository.existsById(movieScheduleId)
+                    ? ErrorCode.SEAT_NOT_FOUND : ErrorCode.SHOWTIME_NOT_FOUND);
+        }
+        return rows.stream().map(scheduleSeatMapper::toSeatResponse).toList();
+    }
+
+    /**
+     * Trả về danh sách Seat.id được chọn. Client cũ gửi scheduleSeatIds sẽ được đổi sang ghế mẫu tương ứng;
+     * dòng ScheduleSeat của lịch chiếu khác bị từ chối như ghế không tồn tại.
+     */
+    public List<Long> resolveSelection(SelectSeatsRequest request) {
+        if (request.getSeatIds() != null && !request.getSeatIds().isEmpty()) {
+            return seatInventory.validateSelection(request.getSeatIds());
+        }
+        List<Long> scheduleSeatIds = seatInventory.validateSelection(request.getScheduleSeatIds());
+        List<Long> seatIds = scheduleSeatRepository.findSeatIdsByScheduleSeatIds(request.getScheduleId(),
+                scheduleSeatIds);
+        if (seatIds.size() != scheduleSeatIds.size()) {
+            throw new AppException(ErrorCode.SEAT_NOT_FOUND);
+        }
+        return seatIds;
+    }
+
+    /**
+     * Lấy dòng ScheduleSeat của các ghế được chọn, tạo mới (AVAILABLE) cho ghế chưa có dòng nào.
+     * Gọi sau SeatInventory.claim nên trong một instance chỉ một request tạo dòng cho cùng một ghế;
+     * giữa nhiều instance, ràng buộc unique (schedule, movie, seat) sẽ từ chối dòng trùng.
+     */
+    public List<ScheduleSeat> materialize(MovieSchedule movieSchedule, List<Long> seatIds) {
+        List<ScheduleSeat> scheduleSeats = new ArrayList<>(
+                scheduleSeatRepository.findBySchedule_ScheduleIdAndMovie_MovieIdAndSeat_SeatIdIn(
+                        movieSchedule.getSchedule().getScheduleId(), movieSchedule.getMovie().getMovieId(), seatIds));
+        Set<Long> missing = new LinkedHashSet<>(seatIds);
+        scheduleSeats.forEach(scheduleSeat -> missing.remove(scheduleSeat.getSeat().getSeatId()));
+        if (missing.isEmpty()) {
+            return scheduleSeats;
+        }
+
+        Long cinemaRoomId = movieSchedule.getMovie().getCinemaRoom().getCinemaRoomId();
+        List<Seat> seats = seatRepository.findAllById(missing);
+        if (seats.size() != missing.size() || seats.stream()
+                .anyMatch(seat -> !seat.getCinemaRoom().getCinemaRoomId().equals(cinemaRoomId))) {
+            throw new AppException(ErrorCode.SEAT_NOT_FOUND);
+        }
+        List<ScheduleSeat> created = seats.stream()
+                .map(seat -> ScheduleSeat.builder()
+                        .schedule(movieSchedule.getSchedule())
+                        .movie(movieSchedule.getMovie())
+                        .seat(seat)
+                        .seatColumn(seat.getSeatColumn())
+                        .seatRow(seat.getSeatRow())
+                        .seatType(seat.getSeatType().ordinal())
+                        .seatStatus(SeatStatus.AVAILABLE)
+                        .build())
+                .toList();
+        try {
+            scheduleSeats.addAll(scheduleSeatRepository.saveAllAndFlush(created));
+        } catch (DataIntegrityViolationException e) {
+            throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+        }
+        return scheduleSeats;
+    }
+}
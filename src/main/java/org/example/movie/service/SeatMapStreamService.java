@@ -0,0 +1,222 @@
+package org.example.movie.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.movie.dto.response.SeatDeltaResponse;
+import org.example.movie.dto.response.SeatResponse;
+import org.example.movie.event.SeatStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đẩy sơ đồ ghế theo thời gian thực qua Server-Sent Events.
+ * Mỗi subscriber nhận sơ đồ ghế đầy đủ một lần (event "snapshot"), sau đó chỉ nhận các thay đổi (event "delta")
+ * được phát từ SeatStatusChangedEvent sau khi transaction commit.
+ * Kết nối đang chờ không giữ luồng nào (async servlet). Mỗi subscriber có hàng đợi giới hạn và luồng gửi riêng
+ * (virtual thread, tối đa một luồng mỗi subscriber nên thứ tự delta được giữ nguyên); client đọc chậm làm đầy
+ * hàng đợi thì bị ngắt kết nối để nhận lại snapshot khi kết nối lại, không làm chậm các subscriber khác.
+ */
+@Service
+public class SeatMapStreamService {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.seat-stream.timeout:30m}")
+    private Duration streamTimeout;
+
+    @Value("${booking.seat-stream.heartbeat:25s}")
+    private Duration heartbeatInterval;
+
+    @Value("${booking.seat-stream.buffer-size:256}")
+    private int bufferSize;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SeatMapStreamService.class);
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-stream-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Counter slowSubscribersDropped;
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("booking.seat.stream.subscribers", subscriberCount);
+        slowSubscribersDropped = Counter.builder("booking.seat.stream.dropped")
+                .description("Number of seat map subscribers disconnected because their send buffer filled up")
+                .register(meterRegistry);
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeatScheduler.shutdownNow();
+        dispatcher.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        channels.clear();
+    }
+
+    public SseEmitter subscribe(Long scheduleId) {
+        return subscribe(scheduleId, new SseEmitter(streamTimeout.toMillis()));
+    }
+
+    SseEmitter subscribe(Long scheduleId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        subscriber.onClose = () -> unsubscribe(scheduleId, subscriber);
+        subscriber.emitter.onCompletion(subscriber.onClose);
+        subscriber.emitter.onTimeout(subscriber.onClose);
+        subscriber.emitter.onError(e -> subscriber.onClose.run());
+
+        // Đăng ký trước khi đọc sơ đồ ghế: delta đến trong lúc đọc được giữ trong hàng đợi và gửi sau snapshot
+        channels.compute(scheduleId, (id, channel) -> {
+            Channel target = channel != null ? channel : new Channel();
+            target.subscribers.add(subscriber);
+            return target;
+        });
+        subscriberCount.incrementAndGet();
+        List<SeatResponse> snapshot;
+        try {
+            snapshot = bookingService.getPublicSeats(scheduleId);
+        } catch (RuntimeException e) {
+            unsubscribe(scheduleId, subscriber);
+            throw e;
+        }
+        subscriber.start(snapshot);
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatStatusChanged(SeatStatusChangedEvent event) {
+        Channel channel = channels.get(event.scheduleId());
+        if (channel != null) {
+            channel.publish(new SeatDeltaResponse(event.scheduleId(), event.seatIds(), event.seatStatus()));
+        }
+    }
+
+    private void unsubscribe(Long scheduleId, Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        channels.computeIfPresent(scheduleId, (id, channel) -> {
+            channel.subscribers.remove(subscriber);
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    private void sendHeartbeats() {
+        for (Channel channel : channels.values()) {
+            channel.subscribers.forEach(Subscriber::heartbeat);
+        }
+    }
+
+    private final class Channel {
+        private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+        // Chỉ xếp hàng, không ghi socket: các delta đồng thời vào hàng đợi của mọi subscriber theo cùng một thứ tự
+        synchronized void publish(SeatDeltaResponse delta) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.deliver(SseEmitter.event().name("delta").data(delta));
+            }
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> outbox = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean started;
+        private Runnable onClose;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void start(List<SeatResponse> snapshot) {
+            send(SseEmitter.event().name("snapshot").data(snapshot));
+            started = true;
+            schedule();
+        }
+
+        void deliver(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!outbox.offer(event)) {
+                drop();
+                return;
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            // Hàng đợi còn delta chưa gửi thì kết nối vẫn đang có dữ liệu, không cần heartbeat
+            if (started && outbox.isEmpty() && outbox.offer(SseEmitter.event().comment("heartbeat"))) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (started && !closed.get() && sending.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while (!closed.get() && (event = outbox.poll()) != null) {
+                    send(event);
+                }
+                sending.set(false);
+            } while (!closed.get() && !outbox.isEmpty() && sending.compareAndSet(false, true));
+        }
+
+        private void drop() {
+            LOGGER.warn("Disconnecting seat map subscriber that fell {} events behind", bufferSize);
+            slowSubscribersDropped.increment();
+            onClose.run();
+            outbox.clear();
+            // complete() chờ lần gửi đang bị chặn của chính subscriber này, nên chạy trên luồng riêng
+            dispatcher.execute(emitter::complete);
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                emitter.send(event);
+            } catch (Exception e) {
+                // Client đã ngắt kết nối, servlet container sẽ tự kết thúc request
+                LOGGER.debug("Dropping seat map subscriber: {}", e.getMessage());
+                onClose.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.response.ShowtimeResponse;
+import org.example.movie.event.MovieChangedEvent;
+import org.example.movie.event.SeatStatusChangedEvent;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.MovieRepository;
+import org.example.movie.repository.MovieScheduleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bảng lịch chiếu dựng sẵn theo (movieId, ngày chiếu) cho các endpoint công khai.
+ * Mỗi phim được dựng bằng một truy vấn khi có request đầu tiên và được dựng lại khi MovieService
+ * thêm/sửa/xóa phim (MovieChangedEvent). Số ghế trống được cập nhật từ SeatInventory mỗi khi có
+ * SeatStatusChangedEvent, nên đọc lịch chiếu không chạm database.
+ * Mỗi phim có một SeatVersion tăng sau mỗi lần số ghế trống thay đổi, dùng làm ETag cho endpoint lịch chiếu.
+ */
+@Component
+public class ShowtimeReadModel {
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private MovieScheduleRepository movieScheduleRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    private final Map<Long, MovieShowtimes> movies = new ConcurrentHashMap<>();
+    private final Map<Long, Showtime> showtimesBySchedule = new ConcurrentHashMap<>();
+
+    public List<ShowtimeResponse> getShowtimes(Long movieId) {
+        return toResponses(get(movieId).all);
+    }
+
+    public List<ShowtimeResponse> getShowtimes(Long movieId, LocalDate date) {
+        return toResponses(get(movieId).byDate.getOrDefault(date, List.of()));
+    }
+
+    public SeatVersion getSeatVersion(Long movieId) {
+        return get(movieId).seatVersion.get();
+    }
+
+    /**
+     * Lịch chiếu có giờ chiếu trong [from, to).
+     */
+    public List<ShowtimeResponse> getShowtimes(Long movieId, LocalDateTime from, LocalDateTime to) {
+        List<Showtime> showtimes = new ArrayList<>();
+        get(movieId).byDate.subMap(from.toLocalDate(), true, to.toLocalDate(), true).values()
+                .forEach(day -> day.stream()
+                        .filter(showtime -> !showtime.time.isBefore(from) && showtime.time.isBefore(to))
+                        .forEach(showtimes::add));
+        return toResponses(showtimes);
+    }
+
+    /**
+     * Dựng lại lịch chiếu của một phim sau khi transaction của MovieService commit.
+     * Bản mới thay thế bản cũ, nên request đang đọc dở với dữ liệu cũ không ghi đè được nó.
+     * Chạy trước CatalogVersion để phiên bản danh mục chỉ tăng khi bản mới đã sẵn sàng.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onMovieChanged(MovieChangedEvent event) {
+        MovieShowtimes fresh = movieRepository.existsById(event.movieId()) ? load(event.movieId()) : null;
+        MovieShowtimes previous = fresh != null ? movies.put(event.movieId(), fresh) : movies.remove(event.movieId());
+        if (previous != null) {
+            previous.all.forEach(showtime -> showtimesBySchedule.remove(showtime.scheduleId, showtime));
+        }
+        if (fresh != null) {
+            fresh.all.forEach(showtime -> showtimesBySchedule.put(showtime.scheduleId, showtime));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatStatusChanged(SeatStatusChangedEvent event) {
+        Showtime showtime = showtimesBySchedule.get(event.scheduleId());
+        if (showtime != null) {
+            showtime.availableSeats = countAvailable(event.scheduleId());
+            MovieShowtimes movie = movies.get(showtime.movieId);
+            if (movie != null) {
+                movie.seatVersion.updateAndGet(SeatVersion::next);
+            }
+        }
+    }
+
+    private MovieShowtimes get(Long movieId) {
+        MovieShowtimes cached = movies.get(movieId);
+        if (cached != null) {
+            return cached;
+        }
+        MovieShowtimes loaded = load(movieId);
+        MovieShowtimes existing = movies.putIfAbsent(movieId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        loaded.all.forEach(showtime -> showtimesBySchedule.put(showtime.scheduleId, showtime));
+        return loaded;
+    }
+
+    private MovieShowtimes load(Long movieId) {
+        List<Object[]> rows = movieScheduleRepository.findShowtimeRows(movieId);
+        if (rows.isEmpty() && !movieRepository.existsById(movieId)) {
+            throw new AppException(ErrorCode.MOVIE_NOT_FOUND);
+        }
+        List<Showtime> all = new ArrayList<>(rows.size());
+        NavigableMap<LocalDate, List<Showtime>> byDate = new TreeMap<>();
+        for (Object[] row : rows) {
+            Long scheduleId = (Long) row[0];
+            LocalDateTime time = (LocalDateTime) row[1];
+            if (time == null) {
+                continue;
+            }
+            Showtime showtime = new Showtime(movieId, scheduleId, time, (String) row[2]);
+            showtime.availableSeats = countAvailable(scheduleId);
+            all.add(showtime);
+            byDate.computeIfAbsent(time.toLocalDate(), date -> new ArrayList<>()).add(showtime);
+        }
+        return new MovieShowtimes(List.copyOf(all), Collections.unmodifiableNavigableMap(byDate),
+                new AtomicReference<>(new SeatVersion(0, Instant.now().truncatedTo(ChronoUnit.SECONDS))));
+    }
+
+    private int countAvailable(Long scheduleId) {
+        try {
+            return seatInventory.availableCount(scheduleId);
+        } catch (AppException e) {
+            // Phòng chiếu chưa có ghế
+            return 0;
+        }
+    }
+
+    private List<ShowtimeResponse> toResponses(List<Showtime> showtimes) {
+        List<ShowtimeResponse> responses = new ArrayList<>(showtimes.size());
+        for (Showtime showtime : showtimes) {
+            ShowtimeResponse response = new ShowtimeResponse();
+            response.setScheduleId(showtime.scheduleId);
+            response.setShowDate(showtime.time.toLocalDate());
+            response.setShowTime(showtime.time.toLocalTime());
+            response.setCinemaRoomName(showtime.cinemaRoomName);
+            response.setAvailableSeats(showtime.availableSeats);
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    public record SeatVersion(long version, Instant changedAt) {
+
+        SeatVersion next() {
+            Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            return new SeatVersion(version + 1, now.isAfter(changedAt) ? now : changedAt);
+        }
+    }
+
+    private record MovieShowtimes(List<Showtime> all, NavigableMap<LocalDate, List<Showtime>> byDate,
+                                  AtomicReference<SeatVersion> seatVersion) {
+    }
+
+    private static final class Showtime {
+        private final Long movieId;
+        private final Long scheduleId;
+        private final LocalDateTime time;
+        private final String cinemaRoomName;
+        private volatile int availableSeats;
+
+        Showtime(Long movieId, Long scheduleId, LocalDateTime time, String cinemaRoomName) {
+            this.movieId = movieId;
+            this.scheduleId = scheduleId;
+            this.time = time;
+            this.cinemaRoomName = cinemaRoomName;
+        }
+    }
+}
@@ -1,31 +1,34 @@
 package org.example.movie.service;
 
+import org.example.movie.dto.projection.BookingRow;
+import org.example.movie.dto.request.BestAvailableRequest;
 import org.example.movie.dto.request.BookingSearchRequest;
 import org.example.movie.dto.request.SelectSeatsRequest;
 import org.example.movie.dto.request.TicketConfirmationRequest;
 import org.example.movie.dto.response.BookingListResponse;
+import org.example.movie.dto.response.PageResponse;
 import org.example.movie.dto.response.TicketConfirmationResponse;
 import org.example.movie.dto.response.TicketInfoResponse;
 import org.example.movie.entity.*;
 import org.example.movie.enums.InvoiceStatus;
 import org.example.movie.enums.SeatStatus;
+import org.example.movie.enums.TicketType;
+import org.example.movie.event.SeatStatusChangedEvent;
 import org.example.movie.exception.AppException;
 import org.example.movie.exception.ErrorCode;
 import org.example.movie.mapper.TicketMapper;
 import org.example.movie.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,6 +37,9 @@ public class TicketBookingService {
     @Autowired
     private InvoiceRepository invoiceRepository;
 
+    @Autowired
+    private TicketRepository ticketRepository;
+
     @Autowired
     private MemberRepository memberRepository;
 
@@ -44,101 +50,124 @@ public class TicketBookingService {
     private ScheduleSeatRepository scheduleSeatRepository;
 
     @Autowired
-    private MovieDateRepository movieDateRepository;
+    private TicketMapper ticketMapper;
+
+    @Autowired
+    private SeatInventory seatInventory;
 
     @Autowired
-    private TicketMapper ticketMapper;
+    private SeatHoldService seatHoldService;
+
+    @Autowired
+    private SeatMapService seatMapService;
+
+    @Autowired
+    private SeatAllocator seatAllocator;
+
+    @Autowired
+    private OutboxService outboxService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
-    @Cacheable(value = "bookingsCache", key = "#request.keyword")
-    public List<BookingListResponse> searchBookings(BookingSearchRequest request) {
-        List<Invoice> invoices = invoiceRepository.findByKeyword(request.getKeyword());
-        return invoices.stream().map(invoice -> {
-            BookingListResponse response = new BookingListResponse();
-            response.setBookingId(invoice.getInvoiceId());
-            response.setIdentityCard(invoice.getAccount().getIdentityCard());
-            response.setPhoneNumber(invoice.getAccount().getPhoneNumber());
-            response.setMovie(invoice.getMovieName());
-            response.setTime(invoice.getScheduleShowTime().toString());
-            return response;
-        }).collect(Collectors.toList());
+    @Autowired
+    private Pagination pagination;
+
+    /**
+     * Tìm đặt vé theo từ khóa, theo trang (invoiceId tăng dần). Mỗi trang được cache theo (keyword, cursor, size);
+     * request chính là khóa cache nên không được sửa sau khi gọi.
+     */
+    @Cacheable("bookingsCache")
+    public PageResponse<BookingListResponse> searchBookings(BookingSearchRequest request) {
+        return loadBookings(request);
     }
 
+    /**
+     * Danh sách đặt vé theo trang (invoiceId tăng dần). Mỗi trang được cache theo (cursor, size).
+     */
     @Cacheable(value = "bookingListCache")
-    public List<BookingListResponse> getBookingList() {
-        List<Invoice> invoices = invoiceRepository.findAll();
-        return invoices.stream().map(invoice -> {
-            BookingListResponse response = new BookingListResponse();
-            response.setBookingId(invoice.getInvoiceId());
-            response.setIdentityCard(invoice.getAccount().getIdentityCard());
-            response.setPhoneNumber(invoice.getAccount().getPhoneNumber());
-            response.setMovie(invoice.getMovieName());
-            response.setTime(invoice.getScheduleShowTime().toString());
-            return response;
-        }).collect(Collectors.toList());
+    public PageResponse<BookingListResponse> getBookingList(String cursor, Integer size) {
+        int pageSize = pagination.size(size);
+        List<BookingRow> rows = invoiceRepository.findPageAfter(pagination.longCursor(cursor), pagination.limit(pageSize));
+        return pagination.page(rows, pageSize, BookingRow::invoiceId, this::toBookingResponse);
+    }
+
+    /**
+     * Phần không cache của searchBookings, cũng là loader khi bookingsCache nạp lại ở nền.
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<BookingListResponse> loadBookings(BookingSearchRequest request) {
+        int pageSize = pagination.size(request.getSize());
+        List<BookingRow> rows = invoiceRepository.findByKeyword(request.getKeyword(),
+                pagination.longCursor(request.getCursor()), pagination.limit(pageSize));
+        return pagination.page(rows, pageSize, BookingRow::invoiceId, this::toBookingResponse);
+    }
+
+    private BookingListResponse toBookingResponse(BookingRow row) {
+        BookingListResponse response = new BookingListResponse();
+        response.setBookingId(row.invoiceId());
+        response.setIdentityCard(row.identityCard());
+        response.setPhoneNumber(row.phoneNumber());
+        response.setMovie(row.movieName());
+        response.setTime(row.scheduleShowTime() != null ? row.scheduleShowTime().toString() : null);
+        return response;
+    }
+
+    /**
+     * Chọn tự động nhóm ghế liền nhau tốt nhất rồi giữ ghế như selectSeats.
+     */
+    @Transactional
+    public TicketConfirmationResponse selectBestAvailable(BestAvailableRequest request) {
+        SelectSeatsRequest selection = new SelectSeatsRequest();
+        selection.setScheduleId(request.getScheduleId());
+        selection.setSeatIds(seatAllocator.findBestAvailable(request.getScheduleId(), request.getQuantity(),
+                request.getSeatType(), Set.of()));
+        return selectSeats(selection);
     }
 
     @Transactional
     public TicketConfirmationResponse selectSeats(SelectSeatsRequest request) {
+        // Giữ ghế trong bộ nhớ trước, từ chối ngay nếu ghế đã bị chiếm
+        List<Long> seatIds = seatMapService.resolveSelection(request);
+        seatInventory.claim(request.getScheduleId(), seatIds);
+
         // Tìm lịch chiếu
         MovieSchedule movieSchedule = movieScheduleRepository.findById(request.getScheduleId())
                 .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND));
 
-        // Tìm danh sách ghế
-        List<ScheduleSeat> seats = scheduleSeatRepository.findAllById(request.getScheduleSeatIds());
-        if (seats.isEmpty()) {
-            throw new AppException(ErrorCode.SEAT_NOT_FOUND);
-        }
-        if (seats.size() > 8) {
-            throw new AppException(ErrorCode.SEAT_LIMIT_EXCEEDED);
-        }
-
-        // Kiểm tra và cập nhật trạng thái ghế
-        for (ScheduleSeat seat : seats) {
-            if (seat.getSeatStatus() == SeatStatus.BOOKED) {
-                throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
-            }
-            seat.setSeatStatus(SeatStatus.BOOKED);
-            scheduleSeatRepository.save(seat);
-        }
+        // Lấy (hoặc tạo) dòng ScheduleSeat cho các ghế được chọn
+        List<ScheduleSeat> seats = seatMapService.materialize(movieSchedule, seatIds);
+        List<Long> scheduleSeatIds = seats.stream().map(ScheduleSeat::getScheduleSeatId).toList();
 
         // Tạo chuỗi ghế
         String seatString = seats.stream()
                 .map(seat -> seat.getSeatColumn() + seat.getSeatRow())
                 .collect(Collectors.joining(","));
 
-        // Tìm ngày chiếu
-        MovieDate movieDate = movieDateRepository.findByMovie_MovieId(movieSchedule.getMovie().getMovieId())
-                .stream().findFirst()
-                .orElseThrow(() -> new AppException(ErrorCode.SHOWTIME_NOT_FOUND));
-
-        // Xử lý thời gian chiếu
-        DateTimeFormatter formatter = new DateTimeFormatterBuilder()
-                .appendPattern("yyyy-MM-dd'T'HH:mm")
-                .optionalStart()
-                .appendPattern(":ss")
-                .optionalEnd()
-                .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
-                .toFormatter();
-
-        LocalDate showDate = movieDate.getShowDate().getShowDate();
-        LocalDateTime scheduleTime = LocalDateTime.parse(movieSchedule.getSchedule().getScheduleTime(), formatter);
-        LocalDateTime scheduleShowTime = showDate.atTime(scheduleTime.toLocalTime());
+        LocalDateTime scheduleShowTime = movieSchedule.getSchedule().getScheduleTime();
 
         // Tạo invoice
         Invoice invoice = Invoice.builder()
                 .movieName(movieSchedule.getMovie().getMovieNameVn())
                 .bookingDate(LocalDateTime.now())
                 .scheduleShowTime(scheduleShowTime)
-                .totalMoney(100000 * seats.size())
+                .totalMoney(BookingService.TICKET_PRICE * seats.size())
                 .useScore(0)
                 .addScore(0)
                 .status(InvoiceStatus.PENDING)
                 .seat(seatString)
+                .holdExpiresAt(seatHoldService.newHoldExpiry())
                 .build();
 
         invoice = invoiceRepository.save(invoice);
 
+        // Giữ ghế cho invoice bằng một câu lệnh có điều kiện, tự động trả lại nếu không được xác nhận trước khi hết hạn
+        if (scheduleSeatRepository.claimAvailableSeats(scheduleSeatIds, invoice) != scheduleSeatIds.size()) {
+            throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+        }
+        seatHoldService.hold(invoice.getInvoiceId(), request.getScheduleId(), seatIds, invoice.getHoldExpiresAt());
+        eventPublisher.publishEvent(new SeatStatusChangedEvent(request.getScheduleId(), seatIds, SeatStatus.HELD));
+
         // Tạo response
         TicketConfirmationResponse response = new TicketConfirmationResponse();
         response.setInvoiceId(invoice.getInvoiceId());
@@ -158,6 +187,10 @@ public class TicketBookingService {
         Invoice invoice = invoiceRepository.findById(request.getInvoiceId())
                 .orElseThrow(() -> new AppException(ErrorCode.INVOICE_NOT_FOUND));
 
+        if (invoice.getStatus() == InvoiceStatus.UNPAID) {
+            throw new AppException(ErrorCode.SEAT_HOLD_EXPIRED);
+        }
+
         // Kiểm tra Member
         Member member = checkMember(identityCard, phoneNumber);
 
@@ -178,17 +211,31 @@ public class TicketBookingService {
             invoice.setStatus(InvoiceStatus.PENDING); // Cập nhật trạng thái khi xác nhận
         }
 
+        // Suất chiếu và phòng chiếu lấy theo ghế của hóa đơn, không theo scheduleId client gửi lên
+        List<Object[]> showtime = movieScheduleRepository.findShowtimeByInvoiceId(invoice.getInvoiceId());
+        if (showtime.isEmpty()) {
+            throw new AppException(ErrorCode.SCHEDULE_SEAT_NOT_FOUND);
+        }
+        Long movieScheduleId = (Long) showtime.get(0)[0];
+        String cinemaRoomName = (String) showtime.get(0)[1];
+
+        // Chuyển ghế đang giữ sang BOOKED và hủy hẹn giờ hết hạn; chỉ xác nhận khi còn giữ đủ mọi ghế của hóa đơn
+        if (invoice.getHoldExpiresAt() != null) {
+            List<Long> seatIds = scheduleSeatRepository.findSeatIdsByInvoiceId(invoice.getInvoiceId());
+            if (scheduleSeatRepository.confirmHeldSeats(invoice.getInvoiceId()) != seatIds.size()) {
+                throw new AppException(ErrorCode.SEAT_HOLD_EXPIRED);
+            }
+            ticketRepository.insertTicketsForInvoice(invoice.getInvoiceId(), BookingService.TICKET_PRICE,
+                    TicketType.ADULT.ordinal());
+            invoice.setHoldExpiresAt(null);
+            outboxService.enqueueTicketEmail(invoice, member.getAccount().getEmail());
+            seatHoldService.complete(invoice.getInvoiceId());
+            eventPublisher.publishEvent(new SeatStatusChangedEvent(movieScheduleId, seatIds, SeatStatus.BOOKED));
+        }
+
         // Lưu invoice
         invoiceRepository.save(invoice);
 
-        // Lấy cinemaRoomName từ ScheduleSeat qua scheduleId
-        ScheduleSeat scheduleSeat = scheduleSeatRepository.findFirstBySchedule_ScheduleId(request.getScheduleId())
-                .orElseThrow(() -> new AppException(ErrorCode.SCHEDULE_SEAT_NOT_FOUND));
-        String cinemaRoomName = (scheduleSeat.getSeat() != null &&
-                scheduleSeat.getSeat().getCinemaRoom() != null)
-                ? scheduleSeat.getSeat().getCinemaRoom().getCinemaRoomName()
-                : "Room Not Found";
-
         // Tạo response bằng TicketMapper
         TicketInfoResponse response = ticketMapper.toInfoResponse(invoice);
         response.setCinemaRoomName(cinemaRoomName);
@@ -219,7 +266,12 @@ public class TicketBookingService {
 
     @Cacheable(value = "ticketInfoCache", key = "#bookingId")
     public TicketInfoResponse getTicketInfo(Long bookingId) {
-        Invoice invoice = invoiceRepository.findById(bookingId)
+        return loadTicketInfo(bookingId);
+    }
+
+    @Transactional(readOnly = true)
+    public TicketInfoResponse loadTicketInfo(Long bookingId) {
+        Invoice invoice = invoiceRepository.findWithAccountByInvoiceId(bookingId)
                 .orElseThrow(() -> new AppException(ErrorCode.INVOICE_NOT_FOUND));
         return ticketMapper.toInfoResponse(invoice);
     }
@@ -0,0 +1,217 @@
+package org.example.movie.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.example.movie.dto.response.WaitingRoomResponse;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Phòng chờ và kiểm soát tải cho các endpoint đặt vé.
+ * Mỗi lịch chiếu cấp token theo thứ tự, hạn mức được vào tăng đều admission-rate token mỗi giây
+ * (tính lười khi có request, không cần luồng nền) và có thể dồn tối đa burst suất khi không có ai chờ.
+ * Ngoài ra số thao tác đặt vé chạm database cùng lúc bị giới hạn bởi max-concurrent-bookings.
+ */
+@Service
+public class WaitingRoomService {
+
+    @Autowired
+    private WaitingRoomStore store;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.waiting-room.enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.waiting-room.admission-rate:50}")
+    private int admissionRate;
+
+    @Value("${booking.waiting-room.burst:100}")
+    private int burst;
+
+    @Value("${booking.waiting-room.token-ttl:30m}")
+    private Duration tokenTtl;
+
+    @Value("${booking.waiting-room.admission-window:5m}")
+    private Duration admissionWindow;
+
+    @Value("${booking.waiting-room.max-concurrent-bookings:20}")
+    private int maxConcurrentBookings;
+
+    @Value("${booking.waiting-room.permit-timeout:5s}")
+    private Duration permitTimeout;
+
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+
+    private final AtomicLong lastPurge = new AtomicLong(System.currentTimeMillis());
+
+    private Semaphore bookingPermits;
+    private Counter admittedCounter;
+    private Counter queuedCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void init() {
+        bookingPermits = new Semaphore(maxConcurrentBookings, true);
+        admittedCounter = Counter.builder("booking.waiting.room.admitted")
+                .description("Booking requests admitted by the waiting room")
+                .register(meterRegistry);
+        queuedCounter = Counter.builder("booking.waiting.room.queued")
+                .description("Booking requests told to wait in the waiting room")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("booking.waiting.room.busy")
+                .description("Booking requests rejected because no database permit became free in time")
+                .register(meterRegistry);
+        meterRegistry.gauge("booking.waiting.room.permits.available", bookingPermits, Semaphore::availablePermits);
+    }
+
+    public WaitingRoomResponse join(Long scheduleId) {
+        if (scheduleId == null) {
+            throw new AppException(ErrorCode.SHOWTIME_NOT_FOUND);
+        }
+        purgeExpiredTokens();
+        WaitingRoomStore.QueueToken token = new WaitingRoomStore.QueueToken(UUID.randomUUID().toString(), scheduleId,
+                currentUsername(), store.nextSequence(scheduleId), Instant.now(), null);
+        store.saveToken(token);
+        return toResponse(token);
+    }
+
+    public WaitingRoomResponse status(String token) {
+        return toResponse(findToken(token));
+    }
+
+    /**
+     * Trả về null nếu request được vào. Ngược lại trả về vị trí trong hàng chờ để client thử lại với token đó.
+     * Token lấy từ join, chỉ dùng được cho đúng tài khoản và lịch chiếu đã nhận nó. Sau lần đầu được vào,
+     * token chỉ còn hiệu lực trong admission-window rồi client phải xếp hàng lại.
+     */
+    public WaitingRoomResponse admit(Long scheduleId, String token) {
+        if (!enabled) {
+            return null;
+        }
+        if (token == null) {
+            throw new AppException(ErrorCode.QUEUE_TOKEN_REQUIRED);
+        }
+        WaitingRoomStore.QueueToken queueToken = findToken(token);
+        if (!queueToken.scheduleId().equals(scheduleId) || !queueToken.owner().equals(currentUsername())) {
+            throw new AppException(ErrorCode.QUEUE_TOKEN_INVALID);
+        }
+        Instant now = Instant.now();
+        if (queueToken.admittedAt() != null) {
+            if (queueToken.admittedAt().plus(admissionWindow).isBefore(now)) {
+                throw new AppException(ErrorCode.QUEUE_TOKEN_INVALID);
+            }
+            admittedCounter.increment();
+            return null;
+        }
+        WaitingRoomResponse response = toResponse(queueToken);
+        if (response.isAdmitted()) {
+            store.saveToken(queueToken.admit(now));
+            admittedCounter.increment();
+            return null;
+        }
+        queuedCounter.increment();
+        return response;
+    }
+
+    /**
+     * Chạy thao tác đặt vé khi còn suất truy cập database, chờ tối đa permit-timeout.
+     */
+    public <T> T withBookingPermit(Supplier<T> action) {
+        try {
+            if (!bookingPermits.tryAcquire(permitTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejectedCounter.increment();
+                throw new AppException(ErrorCode.SERVICE_BUSY);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.SERVICE_BUSY);
+        }
+        try {
+            return action.get();
+        } finally {
+            bookingPermits.release();
+        }
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+        return authentication.getName();
+    }
+
+    private WaitingRoomStore.QueueToken findToken(String token) {
+        WaitingRoomStore.QueueToken queueToken = store.findToken(token)
+                .orElseThrow(() -> new AppException(ErrorCode.QUEUE_TOKEN_INVALID));
+        if (queueToken.issuedAt().plus(tokenTtl).isBefore(Instant.now())) {
+            throw new AppException(ErrorCode.QUEUE_TOKEN_INVALID);
+        }
+        return queueToken;
+    }
+
+    private WaitingRoomResponse toResponse(WaitingRoomStore.QueueToken token) {
+        long position = Math.max(0, token.sequence() - admittedUpTo(token.scheduleId()));
+        WaitingRoomResponse response = new WaitingRoomResponse();
+        response.setToken(token.token());
+        response.setScheduleId(token.scheduleId());
+        response.setAdmitted(position == 0);
+        response.setPosition(position);
+        response.setEstimatedWaitSeconds((position + admissionRate - 1) / admissionRate);
+        return response;
+    }
+
+    private long admittedUpTo(Long scheduleId) {
+        while (true) {
+            long now = System.currentTimeMillis();
+            WaitingRoomStore.AdmissionState state = store.getAdmissionState(scheduleId);
+            WaitingRoomStore.AdmissionState next;
+            if (state == null) {
+                next = new WaitingRoomStore.AdmissionState(burst, now);
+            } else {
+                long gained = (now - state.updatedAtMillis()) * admissionRate / 1000;
+                if (gained <= 0) {
+                    return state.admitted();
+                }
+                // Không dồn quá burst suất so với số token đã cấp, phần dư bị bỏ
+                long cap = store.lastSequence(scheduleId) + burst;
+                long admitted = Math.min(cap, state.admitted() + gained);
+                if (admitted <= state.admitted()) {
+                    next = new WaitingRoomStore.AdmissionState(state.admitted(), now);
+                } else if (admitted == cap) {
+                    next = new WaitingRoomStore.AdmissionState(admitted, now);
+                } else {
+                    next = new WaitingRoomStore.AdmissionState(admitted,
+                            state.updatedAtMillis() + (admitted - state.admitted()) * 1000 / admissionRate);
+                }
+            }
+            if (store.compareAndSetAdmissionState(scheduleId, state, next)) {
+                return next.admitted();
+            }
+        }
+    }
+
+    private void purgeExpiredTokens() {
+        long now = System.currentTimeMillis();
+        long last = lastPurge.get();
+        if (now - last >= PURGE_INTERVAL_MILLIS && lastPurge.compareAndSet(last, now)) {
+            store.removeTokensIssuedBefore(Instant.ofEpochMilli(now).minus(tokenTtl));
+        }
+    }
+}
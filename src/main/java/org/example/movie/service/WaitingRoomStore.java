@@ -0,0 +1,50 @@
+package org.example.movie.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Nơi lưu trạng thái phòng chờ. Bản mặc định nằm trong bộ nhớ (InMemoryWaitingRoomStore);
+ * để dùng chung giữa nhiều instance chỉ cần cung cấp một bean @Primary cài đặt interface này (ví dụ trên Redis).
+ */
+public interface WaitingRoomStore {
+
+    /**
+     * Cấp số thứ tự tiếp theo (bắt đầu từ 1) cho lịch chiếu.
+     */
+    long nextSequence(Long scheduleId);
+
+    long lastSequence(Long scheduleId);
+
+    /**
+     * Trả về null nếu lịch chiếu chưa có trạng thái.
+     */
+    AdmissionState getAdmissionState(Long scheduleId);
+
+    /**
+     * Cập nhật nguyên tử; expected = null nghĩa là chỉ ghi khi chưa có trạng thái.
+     */
+    boolean compareAndSetAdmissionState(Long scheduleId, AdmissionState expected, AdmissionState updated);
+
+    void saveToken(QueueToken token);
+
+    Optional<QueueToken> findToken(String token);
+
+    void removeTokensIssuedBefore(Instant cutoff);
+
+    /**
+     * owner: tài khoản đã nhận token; admittedAt: lần đầu token được vào (null khi còn chờ).
+     */
+    record QueueToken(String token, Long scheduleId, String owner, long sequence, Instant issuedAt, Instant admittedAt) {
+
+        QueueToken admit(Instant now) {
+            return new QueueToken(token, scheduleId, owner, sequence, issuedAt, now);
+        }
+    }
+
+    /**
+     * admitted: mọi token có sequence <= admitted được vào; updatedAtMillis: thời điểm đã tính hạn mức đến.
+     */
+    record AdmissionState(long admitted, long updatedAtMillis) {
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.movie.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.movie.configuration.JwtFilter;
+import org.example.movie.configuration.JwtUtil;
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.entity.Account;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.repository.ScheduleSeatRepository;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AsyncDispatchSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JwtFilter jwtFilter;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    private BookingFixtures.Room room;
+    private Long scheduleId;
+    private String username;
+    private String bearer;
+
+    @BeforeEach
+    void setUp() {
+        // Dữ liệu mẫu cần quyền ADMIN; request bên dưới chỉ được xác thực bằng JWT thật
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"));
+        try {
+            room = fixtures.room("Room Async", "AB", 1);
+            scheduleId = fixtures.showtime(room, "Phim async", LocalDateTime.of(2030, 11, 2, 19, 0));
+            Account account = fixtures.account("async");
+            fixtures.member(account, 0);
+            username = account.getUsername();
+            bearer = "Bearer " + jwtUtil.generateToken(username, "MEMBER", account.getAccountId());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void asyncDispatchKeepsTheAuthenticatedMember() throws Exception {
+        String queueToken = objectMapper.readTree(mockMvc.perform(post("/api/member/waiting-room")
+                        .param("scheduleId", scheduleId.toString())
+                        .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("token").asText();
+
+        SelectSeatsRequest select = new SelectSeatsRequest();
+        select.setScheduleId(scheduleId);
+        select.setSeatIds(List.of(room.seat(0).getSeatId()));
+        MvcResult started = mockMvc.perform(post("/api/member/select-seats")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header("X-Queue-Token", queueToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(select)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Async dispatch vẫn đi qua phân quyền /api/member/** với SecurityContext của request đầu
+        String invoiceId = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(1, scheduleSeatRepository.countByInvoice_InvoiceIdAndSeatStatus(Long.valueOf(invoiceId),
+                SeatStatus.HELD));
+    }
+
+    @Test
+    void jwtFilterSavesTheContextForAsyncDispatch() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/member/select-seats");
+        request.addHeader(HttpHeaders.AUTHORIZATION, bearer);
+        try {
+            jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        // Container nạp lại SecurityContext từ request attribute khi async dispatch (JwtFilter không chạy lại)
+        SecurityContext saved = (SecurityContext) request
+                .getAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME);
+        assertNotNull(saved);
+        assertEquals(username, saved.getAuthentication().getName());
+    }
+
+    @Test
+    void memberEndpointsStillRejectAnonymousRequests() throws Exception {
+        SelectSeatsRequest select = new SelectSeatsRequest();
+        select.setScheduleId(scheduleId);
+        select.setSeatIds(List.of(room.seat(1).getSeatId()));
+        mockMvc.perform(post("/api/member/select-seats")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(select)))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.movie.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.movie.entity.Account;
+import org.example.movie.entity.Invoice;
+import org.example.movie.enums.InvoiceStatus;
+import org.example.movie.repository.InvoiceRepository;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookingExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void streamsBookingsInDateRange() throws Exception {
+        Account account = fixtures.account("export");
+        Invoice first = save(account, "Phim \"Xuất\", Phần 1", LocalDateTime.of(2041, 3, 1, 9, 30));
+        Invoice second = save(account, "Phim Xuất Phần 2", LocalDateTime.of(2041, 3, 2, 23, 59));
+        save(account, "Phim Ngoài Khoảng", LocalDateTime.of(2041, 3, 3, 0, 0));
+
+        String csv = mockMvc.perform(get("/api/employee/bookings/export")
+                        .param("from", "2041-03-01").param("to", "2041-03-02"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = csv.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("invoiceId,bookingDate,status,movieName"));
+        assertEquals(first.getInvoiceId() + ",2041-03-01T09:30,PAID,\"Phim \"\"Xuất\"\", Phần 1\",,A1,90000,0,9,"
+                + "export tester," + account.getIdentityCard() + ",", lines[1]);
+        assertTrue(lines[2].startsWith(second.getInvoiceId() + ","));
+
+        String ndjson = mockMvc.perform(get("/api/employee/bookings/export").param("format", "ndjson")
+                        .param("from", "2041-03-02").param("to", "2041-03-03"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode row = objectMapper.readTree(lines[0]);
+        assertEquals(second.getInvoiceId(), row.get("invoiceId").asLong());
+        assertEquals(account.getIdentityCard(), row.get("identityCard").asText());
+    }
+
+    @Test
+    @WithMockUser(roles = "EMPLOYEE")
+    void rejectsInvalidRequestsBeforeStreaming() throws Exception {
+        mockMvc.perform(get("/api/employee/bookings/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/employee/bookings/export").param("from", "2041-03-02").param("to", "2041-03-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Invoice save(Account account, String movieName, LocalDateTime bookingDate) {
+        return invoiceRepository.save(Invoice.builder()
+                .account(account)
+                .movieName(movieName)
+                .bookingDate(bookingDate)
+                .seat("A1")
+                .status(InvoiceStatus.PAID)
+                .totalMoney(90000)
+                .useScore(0)
+                .addScore(9)
+                .build());
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.movie.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.event.MovieChangedEvent;
+import org.example.movie.event.SeatStatusChangedEvent;
+import org.example.movie.service.CatalogVersion;
+import org.example.movie.service.ShowtimeReadModel;
+import org.example.movie.support.BookingFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CatalogConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ShowtimeReadModel showtimeReadModel;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void answersNotModifiedWithoutTouchingTheDatabase() throws Exception {
+        String eTag = mockMvc.perform(get("/api/public/movies"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(catalogVersion.current().eTag(), eTag);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/public/movies").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        catalogVersion.onMovieChanged(new MovieChangedEvent(0L));
+        mockMvc.perform(get("/api/public/movies").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogVersion.current().eTag()));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void showtimesRevalidateWhenSeatsChange() throws Exception {
+        BookingFixtures.Room room = fixtures.room("Room E", "A", 1);
+        LocalDate day = LocalDate.of(2031, 7, 1);
+        Long movieId = fixtures.movie(room, "Phim ETag", day, day, List.of(day.atTime(19, 0))).getMovieId();
+
+        String url = "/api/public/showtimes?movieId=" + movieId;
+        String eTag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isNotModified());
+
+        Long scheduleId = showtimeReadModel.getShowtimes(movieId).get(0).getScheduleId();
+        showtimeReadModel.onSeatStatusChanged(new SeatStatusChangedEvent(scheduleId, List.of(), SeatStatus.BOOKED));
+        String changed = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, changed);
+    }
+
+    @Test
+    void restartDoesNotReuseETags() throws Exception {
+        // Sau khi khởi động lại, số phiên bản đếm lại từ đầu nhưng ETag vẫn khác ETag client đã lưu
+        CatalogVersion before = new CatalogVersion();
+        Thread.sleep(5);
+        CatalogVersion restarted = new CatalogVersion();
+        assertNotEquals(before.current().eTag(), restarted.current().eTag());
+        ShowtimeReadModel.SeatVersion seats = new ShowtimeReadModel.SeatVersion(0, Instant.now());
+        assertNotEquals(before.forShowtimes(seats).eTag(), restarted.forShowtimes(seats).eTag());
+    }
+}
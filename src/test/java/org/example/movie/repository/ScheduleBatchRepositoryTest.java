@@ -0,0 +1,57 @@
+package org.example.movie.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ScheduleBatchRepositoryTest {
+
+    @Autowired
+    private ScheduleBatchRepository scheduleBatchRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Dựng lại cột chuỗi của schema cũ
+    @BeforeEach
+    void addLegacyColumn() {
+        jdbcTemplate.execute("ALTER TABLE movietheater_schedule ADD COLUMN schedule_time VARCHAR(255)");
+    }
+
+    @AfterEach
+    void dropLegacyColumn() {
+        jdbcTemplate.execute("ALTER TABLE movietheater_schedule DROP COLUMN schedule_time");
+    }
+
+    @Test
+    void migratesLegacyStringTimes() {
+        jdbcTemplate.update("INSERT INTO movietheater_schedule (schedule_time) VALUES ('2031-03-04T10:30')");
+        jdbcTemplate.update("INSERT INTO movietheater_schedule (schedule_time) VALUES ('2031-03-04T21:15:00')");
+        jdbcTemplate.update("INSERT INTO movietheater_schedule (schedule_time) VALUES ('not a time')");
+
+        assertEquals(2, scheduleBatchRepository.migrateLegacyScheduleTimes());
+        assertEquals(0, scheduleBatchRepository.migrateLegacyScheduleTimes());
+        // Dòng không đọc được chỉ bị đánh dấu một lần, lần chạy sau không đọc lại
+        assertEquals(List.of(ScheduleBatchRepository.INVALID_SCHEDULE_TIME + "not a time"), jdbcTemplate.queryForList(
+                "SELECT schedule_time FROM movietheater_schedule WHERE show_time IS NULL AND schedule_time IS NOT NULL",
+                String.class));
+        assertTrue(scheduleRepository.findAll().stream()
+                .anyMatch(schedule -> LocalDateTime.of(2031, 3, 4, 10, 30).equals(schedule.getScheduleTime())));
+        assertTrue(scheduleRepository.findAll().stream()
+                .anyMatch(schedule -> LocalDateTime.of(2031, 3, 4, 21, 15).equals(schedule.getScheduleTime())));
+    }
+}
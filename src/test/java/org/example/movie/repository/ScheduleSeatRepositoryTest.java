@@ -0,0 +1,133 @@
+package org.example.movie.repository;
+
+import org.example.movie.entity.Invoice;
+import org.example.movie.entity.Movie;
+import org.example.movie.entity.Schedule;
+import org.example.movie.entity.ScheduleSeat;
+import org.example.movie.enums.InvoiceStatus;
+import org.example.movie.enums.SeatStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ScheduleSeatRepositoryTest {
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<Long> seatIds;
+
+    @BeforeEach
+    void setUp() {
+        Movie movie = movieRepository.save(Movie.builder().movieNameVn("Race").build());
+        Schedule schedule = scheduleRepository.save(Schedule.builder().scheduleTime(LocalDateTime.of(2030, 1, 1, 20, 0)).build());
+        seatIds = new ArrayList<>();
+        for (int row = 1; row <= 4; row++) {
+            ScheduleSeat seat = scheduleSeatRepository.save(ScheduleSeat.builder()
+                    .schedule(schedule)
+                    .movie(movie)
+                    .seatColumn("A")
+                    .seatRow(row)
+                    .seatType(0)
+                    .seatStatus(SeatStatus.AVAILABLE)
+                    .build());
+            seatIds.add(seat.getScheduleSeatId());
+        }
+    }
+
+    @Test
+    void concurrentClaimsOnSameSeatsHaveExactlyOneWinner() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return transactionTemplate.execute(status -> {
+                    Invoice invoice = invoiceRepository.save(Invoice.builder()
+                            .status(InvoiceStatus.PENDING)
+                            .bookingDate(LocalDateTime.now())
+                            .build());
+                    if (scheduleSeatRepository.claimAvailableSeats(seatIds, invoice) != seatIds.size()) {
+                        status.setRollbackOnly();
+                        return null;
+                    }
+                    return invoice.getInvoiceId();
+                });
+            }));
+        }
+        start.countDown();
+        List<Long> winningInvoiceIds = new ArrayList<>();
+        for (Future<Long> result : results) {
+            Long invoiceId = result.get(30, TimeUnit.SECONDS);
+            if (invoiceId != null) {
+                winningInvoiceIds.add(invoiceId);
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, winningInvoiceIds.size());
+        Long winningInvoiceId = winningInvoiceIds.get(0);
+        for (ScheduleSeat seat : scheduleSeatRepository.findAllById(seatIds)) {
+            assertEquals(SeatStatus.HELD, seat.getSeatStatus());
+            assertEquals(1L, seat.getVersion());
+        }
+        assertEquals(seatIds.size(), transactionTemplate.execute(status ->
+                scheduleSeatRepository.findAllById(seatIds).stream()
+                        .filter(seat -> seat.getInvoice().getInvoiceId().equals(winningInvoiceId))
+                        .count()).intValue());
+    }
+
+    @Test
+    void claimFailsWhenAnyRequestedSeatIsTaken() {
+        Integer claimed = transactionTemplate.execute(status -> {
+            Invoice first = invoiceRepository.save(Invoice.builder().status(InvoiceStatus.PENDING).build());
+            return scheduleSeatRepository.claimAvailableSeats(seatIds.subList(0, 2), first);
+        });
+        assertEquals(2, claimed);
+
+        Integer overlapping = transactionTemplate.execute(status -> {
+            Invoice second = invoiceRepository.save(Invoice.builder().status(InvoiceStatus.PENDING).build());
+            return scheduleSeatRepository.claimAvailableSeats(seatIds.subList(1, 3), second);
+        });
+        assertEquals(1, overlapping);
+    }
+
+    @Test
+    void staleWriteFailsWithOptimisticLock() {
+        ScheduleSeat stale = scheduleSeatRepository.findById(seatIds.get(0)).orElseThrow();
+        ScheduleSeat fresh = scheduleSeatRepository.findById(seatIds.get(0)).orElseThrow();
+
+        fresh.setSeatStatus(SeatStatus.BOOKED);
+        scheduleSeatRepository.save(fresh);
+
+        stale.setSeatStatus(SeatStatus.AVAILABLE);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> scheduleSeatRepository.save(stale));
+    }
+}
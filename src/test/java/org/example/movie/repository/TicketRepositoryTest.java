@@ -0,0 +1,83 @@
+package org.example.movie.repository;
+
+import org.example.movie.entity.Invoice;
+import org.example.movie.entity.Movie;
+import org.example.movie.entity.Schedule;
+import org.example.movie.entity.ScheduleSeat;
+import org.example.movie.enums.InvoiceStatus;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.enums.TicketType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TicketRepositoryTest {
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void confirmedSeatsGetOneTicketEach() {
+        Movie movie = movieRepository.save(Movie.builder().movieNameVn("Tickets").build());
+        Schedule schedule = scheduleRepository.save(Schedule.builder().scheduleTime(LocalDateTime.of(2030, 2, 1, 20, 0)).build());
+        List<Long> scheduleSeatIds = new ArrayList<>();
+        for (String column : List.of("B", "A")) {
+            for (int row = 2; row >= 1; row--) {
+                scheduleSeatIds.add(scheduleSeatRepository.save(ScheduleSeat.builder()
+                        .schedule(schedule)
+                        .movie(movie)
+                        .seatColumn(column)
+                        .seatRow(row)
+                        .seatType(0)
+                        .seatStatus(SeatStatus.AVAILABLE)
+                        .build()).getScheduleSeatId());
+            }
+        }
+        Invoice invoice = invoiceRepository.save(Invoice.builder()
+                .status(InvoiceStatus.PENDING)
+                .bookingDate(LocalDateTime.now())
+                .build());
+        List<Long> booked = scheduleSeatIds.subList(0, 3);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(3, scheduleSeatRepository.claimAvailableSeats(booked, invoice));
+            assertEquals(3, scheduleSeatRepository.countByInvoice_InvoiceIdAndSeatStatus(invoice.getInvoiceId(),
+                    SeatStatus.HELD));
+            assertEquals(3, scheduleSeatRepository.confirmHeldSeats(invoice.getInvoiceId()));
+            assertEquals(3, ticketRepository.insertTicketsForInvoice(invoice.getInvoiceId(), 100000,
+                    TicketType.ADULT.ordinal()));
+            // Chạy lại không tạo vé trùng
+            assertEquals(0, ticketRepository.insertTicketsForInvoice(invoice.getInvoiceId(), 100000,
+                    TicketType.ADULT.ordinal()));
+        });
+
+        assertEquals(3, ticketRepository.findByInvoice_InvoiceId(invoice.getInvoiceId()).size());
+        assertEquals(List.of("B1", "A2", "B2"), ticketRepository.findSeatLabelsByInvoiceId(invoice.getInvoiceId()));
+        assertTrue(ticketRepository.findByScheduleSeat_ScheduleSeatId(scheduleSeatIds.get(3)).isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.movie.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.movie.dto.request.BookingSearchRequest;
+import org.example.movie.dto.response.BookingListResponse;
+import org.example.movie.dto.response.PageResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingCacheTest {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TicketBookingService ticketBookingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void regionsAreBoundedAndExpire() {
+        Cache<Object, Object> bookings = nativeCache("bookingsCache");
+        assertInstanceOf(LoadingCache.class, bookings);
+        assertEquals(500, bookings.policy().eviction().orElseThrow().getMaximum());
+        assertEquals(Duration.ofMinutes(5), bookings.policy().expireAfterWrite().orElseThrow().getExpiresAfter());
+        assertEquals(Duration.ofMinutes(1), bookings.policy().refreshAfterWrite().orElseThrow().getRefreshesAfter());
+
+        Cache<Object, Object> ticketInfo = nativeCache("ticketInfoCache");
+        assertEquals(10000, ticketInfo.policy().eviction().orElseThrow().getMaximum());
+        assertTrue(ticketInfo.policy().refreshAfterWrite().isEmpty());
+
+        // Vùng không khai báo dùng giá trị mặc định
+        Cache<Object, Object> other = nativeCache("otherCache");
+        assertEquals(1000, other.policy().eviction().orElseThrow().getMaximum());
+        assertEquals(Duration.ofMinutes(10), other.policy().expireAfterWrite().orElseThrow().getExpiresAfter());
+    }
+
+    @Test
+    void recordsHitsAndMissesPerRegion() {
+        BookingSearchRequest request = new BookingSearchRequest();
+        request.setKeyword("no-such-booking-" + UUID.randomUUID());
+        double hits = gets("bookingsCache", "hit");
+        double misses = gets("bookingsCache", "miss");
+
+        PageResponse<BookingListResponse> first = ticketBookingService.searchBookings(request);
+        PageResponse<BookingListResponse> second = ticketBookingService.searchBookings(request);
+
+        assertTrue(first.getItems().isEmpty());
+        assertSame(first, second);
+        assertEquals(misses + 1, gets("bookingsCache", "miss"));
+        assertEquals(hits + 1, gets("bookingsCache", "hit"));
+        for (String region : List.of("bookingsCache", "bookingListCache", "ticketInfoCache")) {
+            assertNotNull(meterRegistry.find("cache.evictions").tag("cache", region).functionCounter(), region);
+        }
+    }
+
+    private Cache<Object, Object> nativeCache(String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+
+    private double gets(String region, String result) {
+        FunctionCounter counter = meterRegistry.find("cache.gets").tag("cache", region).tag("result", result)
+                .functionCounter();
+        assertNotNull(counter, region + " " + result);
+        return counter.count();
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.movie.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.dto.request.TicketConfirmationRequest;
+import org.example.movie.dto.response.TicketConfirmationResponse;
+import org.example.movie.dto.response.TicketInfoResponse;
+import org.example.movie.entity.*;
+import org.example.movie.enums.InvoiceStatus;
+import org.example.movie.enums.OutboxStatus;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.*;
+import org.example.movie.support.BookingFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingConfirmationTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private TicketBookingService ticketBookingService;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private SeatHoldService seatHoldService;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Seat> seats;
+    private Long scheduleId;
+    private Long accountId;
+    private String identityCard;
+    private Long memberId;
+
+    @BeforeEach
+    @WithMockUser(roles = "ADMIN")
+    void setUp() {
+        Account account = fixtures.account("confirm");
+        accountId = account.getAccountId();
+        identityCard = account.getIdentityCard();
+        memberId = fixtures.member(account, 10).getMemberId();
+        BookingFixtures.Room room = fixtures.room("Room 9", "A", 4);
+        seats = room.seats();
+        scheduleId = fixtures.showtime(room, "Phim xác nhận", LocalDateTime.of(2030, 7, 1, 18, 0));
+    }
+
+    @Test
+    void confirmationWithScoreAndPromotionUsesOneReadAndOnlyWrites() {
+        Long invoiceId = bookingService.reserveSeats(scheduleId,
+                List.of(seats.get(0).getSeatId(), seats.get(1).getSeatId()), accountId);
+        Long promotionId = promotionRepository.save(Promotion.builder()
+                .title("Half")
+                .discountLevel(50)
+                .startTime(LocalDateTime.now().minusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1))
+                .build()).getPromotionId();
+        TicketConfirmationRequest request = TicketConfirmationRequest.builder()
+                .invoiceId(invoiceId)
+                .scheduleId(scheduleId)
+                .useScore(2)
+                .promotionId(promotionId)
+                .build();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        TicketConfirmationResponse response = bookingService.confirmBooking(request, accountId);
+
+        // 1 SELECT + trừ điểm + ghế BOOKED + tạo vé + outbox email + cập nhật hóa đơn
+        assertEquals(6, statistics.getPrepareStatementCount());
+        assertEquals((200000 - 2 * 10000) / 2, response.getTotalPrice());
+        assertEquals(8, memberRepository.findById(memberId).orElseThrow().getScore());
+        Invoice invoice = invoiceRepository.findById(invoiceId).orElseThrow();
+        assertEquals(InvoiceStatus.PAID, invoice.getStatus());
+        assertNull(invoice.getHoldExpiresAt());
+        assertEquals(2, ticketRepository.findByInvoice_InvoiceId(invoiceId).size());
+        List<OutboxMessage> emails = outboxMessageRepository.findByEventTypeAndAggregateId(OutboxService.TICKET_EMAIL, invoiceId);
+        assertEquals(1, emails.size());
+        assertEquals(OutboxStatus.PENDING, emails.get(0).getStatus());
+        assertTrue(emails.get(0).getRecipient().startsWith("confirm-"));
+    }
+
+    @Test
+    void plainConfirmationTakesFiveStatements() {
+        Long invoiceId = bookingService.reserveSeats(scheduleId, List.of(seats.get(2).getSeatId()), accountId);
+        TicketConfirmationRequest request = TicketConfirmationRequest.builder()
+                .invoiceId(invoiceId)
+                .scheduleId(scheduleId)
+                .build();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        bookingService.confirmBooking(request, accountId);
+        assertEquals(5, statistics.getPrepareStatementCount());
+
+        AppException again = assertThrows(AppException.class, () -> bookingService.confirmBooking(request, accountId));
+        assertEquals(ErrorCode.INVOICE_ALREADY_CONFIRMED, again.getErrorCode());
+    }
+
+    @Test
+    void rejectsExpiredPromotionAndMissingScore() {
+        Long invoiceId = bookingService.reserveSeats(scheduleId, List.of(seats.get(3).getSeatId()), accountId);
+        Long expired = promotionRepository.save(Promotion.builder()
+                .title("Old")
+                .discountLevel(10)
+                .endTime(LocalDateTime.now().minusDays(1))
+                .build()).getPromotionId();
+
+        AppException promotion = assertThrows(AppException.class, () -> bookingService.confirmBooking(
+                TicketConfirmationRequest.builder().invoiceId(invoiceId).scheduleId(scheduleId)
+                        .promotionId(expired).build(), accountId));
+        assertEquals(ErrorCode.INVALID_PROMOTION, promotion.getErrorCode());
+
+        AppException score = assertThrows(AppException.class, () -> bookingService.confirmBooking(
+                TicketConfirmationRequest.builder().invoiceId(invoiceId).scheduleId(scheduleId)
+                        .useScore(50).build(), accountId));
+        assertEquals(ErrorCode.INSUFFICIENT_SCORE, score.getErrorCode());
+        assertEquals(InvoiceStatus.PENDING, invoiceRepository.findById(invoiceId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void expiryKeepsSeatsConfirmedAfterItsRead() throws Exception {
+        List<Long> seatIds = List.of(seats.get(0).getSeatId());
+        Long invoiceId = bookingService.reserveSeats(scheduleId, seatIds, accountId);
+        LocalDateTime expiredAt = LocalDateTime.now().minusSeconds(1);
+        // Lần xác nhận đã chuyển ghế sang BOOKED nhưng hóa đơn vẫn PENDING khi luồng hết hạn đọc nó
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertEquals(1, scheduleSeatRepository.confirmHeldSeats(invoiceId));
+            Invoice invoice = invoiceRepository.findById(invoiceId).orElseThrow();
+            invoice.setHoldExpiresAt(expiredAt);
+            invoiceRepository.save(invoice);
+        });
+
+        seatHoldService.hold(invoiceId, scheduleId, seatIds, expiredAt);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (seatHoldService.isActive(invoiceId) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // Hóa đơn không còn ghế HELD thì không bị chuyển sang UNPAID, phần còn lại thuộc về lần xác nhận
+        assertFalse(seatHoldService.isActive(invoiceId));
+        assertEquals(InvoiceStatus.PENDING, invoiceRepository.findById(invoiceId).orElseThrow().getStatus());
+        assertFalse(seatInventory.isAvailable(scheduleId, seatIds));
+        assertTrue(scheduleSeatRepository.findAll().stream()
+                .filter(seat -> seat.getSeat() != null && seatIds.contains(seat.getSeat().getSeatId()))
+                .allMatch(seat -> seat.getSeatStatus() == SeatStatus.BOOKED));
+    }
+
+    @Test
+    void employeeConfirmationRequiresEveryHeldSeatAndUsesTheInvoiceSchedule() {
+        SelectSeatsRequest select = new SelectSeatsRequest();
+        select.setScheduleId(scheduleId);
+        select.setSeatIds(List.of(seats.get(0).getSeatId(), seats.get(1).getSeatId()));
+        Long partial = ticketBookingService.selectSeats(select).getInvoiceId();
+        // Một ghế của hóa đơn không còn HELD khi xác nhận
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ScheduleSeat released = scheduleSeatRepository.findAll().stream()
+                    .filter(seat -> seat.getInvoice() != null && partial.equals(seat.getInvoice().getInvoiceId())
+                            && seats.get(1).getSeatId().equals(seat.getSeat().getSeatId()))
+                    .findFirst().orElseThrow();
+            released.setSeatStatus(SeatStatus.AVAILABLE);
+        });
+
+        AppException e = assertThrows(AppException.class, () -> ticketBookingService.confirmBooking(
+                TicketConfirmationRequest.builder().invoiceId(partial).scheduleId(scheduleId).build(),
+                identityCard, null));
+        assertEquals(ErrorCode.SEAT_HOLD_EXPIRED, e.getErrorCode());
+        assertEquals(1, scheduleSeatRepository.countByInvoice_InvoiceIdAndSeatStatus(partial, SeatStatus.HELD));
+        assertTrue(ticketRepository.findByInvoice_InvoiceId(partial).isEmpty());
+
+        // scheduleId của client sai vẫn xác nhận đúng suất chiếu của hóa đơn
+        select.setSeatIds(List.of(seats.get(2).getSeatId(), seats.get(3).getSeatId()));
+        Long invoiceId = ticketBookingService.selectSeats(select).getInvoiceId();
+        TicketInfoResponse info = ticketBookingService.confirmBooking(
+                TicketConfirmationRequest.builder().invoiceId(invoiceId).scheduleId(-1L).build(), identityCard, null);
+        assertEquals("Room 9", info.getCinemaRoomName());
+        assertEquals(2, scheduleSeatRepository.countByInvoice_InvoiceIdAndSeatStatus(invoiceId, SeatStatus.BOOKED));
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.entity.Seat;
+import org.example.movie.exception.AppException;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * So sánh thông lượng và p99 giữa luồng @Transactional hiện tại (BookingService.selectSeats)
+ * và hàng đợi theo lịch chiếu (BookingLaneService).
+ * Chạy bằng: mvn test -Dtest=BookingLaneBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookingLaneBenchmarkTest {
+
+    private static final int SEATS = 800;
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS_PER_CLIENT = 10;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingLaneService bookingLaneService;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    private List<Seat> seats;
+    private List<Long> scheduleIds;
+    private Long accountId;
+
+    @BeforeEach
+    @WithMockUser(roles = "ADMIN")
+    void setUp() {
+        accountId = fixtures.account("bench").getAccountId();
+        // 20 cột x 40 hàng = SEATS ghế
+        BookingFixtures.Room room = fixtures.room("Bench", "ABCDEFGHIJKLMNOPQRST", SEATS / 20);
+        seats = room.seats();
+        LocalDate showDate = LocalDate.of(2031, 1, 1);
+        scheduleIds = fixtures.showtimes(room, "Benchmark",
+                showDate.atTime(10, 0), showDate.atTime(14, 0), showDate.atTime(18, 0));
+    }
+
+    @Test
+    void compareTransactionalPathWithLanes() throws Exception {
+        // Lịch chiếu đầu tiên dùng để làm nóng JIT và connection pool
+        run("warm-up", scheduleIds.get(0), request -> bookingService.selectSeats(request, accountId));
+        Result transactional = run("@Transactional", scheduleIds.get(1),
+                request -> bookingService.selectSeats(request, accountId));
+        Result lanes = run("lanes", scheduleIds.get(2),
+                request -> bookingLaneService.submit(request, accountId).join());
+
+        assertEquals(CLIENTS * REQUESTS_PER_CLIENT, transactional.completed());
+        assertEquals(CLIENTS * REQUESTS_PER_CLIENT, lanes.completed());
+        System.out.printf("Lane speed-up: throughput x%.2f, p99 x%.2f%n",
+                lanes.throughput() / transactional.throughput(), transactional.p99Millis() / lanes.p99Millis());
+    }
+
+    private Result run(String name, Long scheduleId, Function<SelectSeatsRequest, Long> selectSeats) throws Exception {
+        Random random = new Random(42);
+        List<List<SelectSeatsRequest>> workload = new ArrayList<>();
+        for (int client = 0; client < CLIENTS; client++) {
+            List<SelectSeatsRequest> requests = new ArrayList<>();
+            for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                int first = random.nextInt(SEATS - 1);
+                SelectSeatsRequest request = new SelectSeatsRequest();
+                request.setScheduleId(scheduleId);
+                request.setSeatIds(List.of(seats.get(first).getSeatId(), seats.get(first + 1).getSeatId()));
+                requests.add(request);
+            }
+            workload.add(requests);
+        }
+
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        AtomicInteger index = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> clients = new ArrayList<>();
+        long begin;
+        try (ExecutorService executor = Executors.newFixedThreadPool(CLIENTS)) {
+            for (List<SelectSeatsRequest> requests : workload) {
+                clients.add(executor.submit(() -> {
+                    start.await();
+                    for (SelectSeatsRequest request : requests) {
+                        long requestStart = System.nanoTime();
+                        try {
+                            selectSeats.apply(request);
+                        } catch (AppException | CompletionException e) {
+                            rejected.incrementAndGet();
+                        }
+                        latencies[index.getAndIncrement()] = System.nanoTime() - requestStart;
+                    }
+                    return null;
+                }));
+            }
+            begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> client : clients) {
+                client.get(5, TimeUnit.MINUTES);
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        Arrays.sort(latencies);
+        Result result = new Result(latencies.length, latencies.length / seconds,
+                latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1e6);
+        System.out.printf("%-15s %d requests (%d rejected) in %.2fs: %.0f req/s, p50 %.2fms, p99 %.2fms%n",
+                name, latencies.length, rejected.get(), seconds, result.throughput(),
+                latencies[latencies.length / 2] / 1e6, result.p99Millis());
+        return result;
+    }
+
+    private record Result(int completed, double throughput, double p99Millis) {
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.*;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingLaneServiceTest {
+
+    @Autowired
+    private BookingLaneService bookingLaneService;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    private List<Seat> seats;
+    private Long scheduleId;
+    private Long accountId;
+
+    @BeforeEach
+    @WithMockUser(roles = "ADMIN")
+    void setUp() {
+        accountId = fixtures.account("lane").getAccountId();
+        BookingFixtures.Room room = fixtures.room("Room 5", "C", 40);
+        seats = room.seats();
+        scheduleId = fixtures.showtime(room, "Phim hàng đợi", LocalDateTime.of(2030, 5, 1, 21, 0));
+    }
+
+    @Test
+    void conflictingSelectionsHaveExactlyOneWinner() throws Exception {
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(bookingLaneService.submit(select(0, 1), accountId));
+        }
+        int succeeded = 0;
+        for (CompletableFuture<Long> result : results) {
+            try {
+                assertNotNull(result.get(10, TimeUnit.SECONDS));
+                succeeded++;
+            } catch (ExecutionException e) {
+                AppException cause = assertInstanceOf(AppException.class, e.getCause());
+                assertEquals(ErrorCode.SEAT_ALREADY_BOOKED, cause.getErrorCode());
+            }
+        }
+        assertEquals(1, succeeded);
+    }
+
+    @Test
+    void disjointSelectionsAreAllCommitted() throws Exception {
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(bookingLaneService.submit(select(2 * i, 2 * i + 1), accountId));
+        }
+        Set<Long> invoiceIds = new HashSet<>();
+        for (CompletableFuture<Long> result : results) {
+            invoiceIds.add(result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(10, invoiceIds.size());
+        List<Long> selectedSeatIds = seats.subList(0, 20).stream().map(Seat::getSeatId).toList();
+        assertEquals(20, scheduleSeatRepository.findAll().stream()
+                .filter(seat -> seat.getSeat() != null && selectedSeatIds.contains(seat.getSeat().getSeatId()))
+                .filter(seat -> seat.getSeatStatus() == SeatStatus.HELD)
+                .count());
+    }
+
+    private SelectSeatsRequest select(int... slots) {
+        SelectSeatsRequest request = new SelectSeatsRequest();
+        request.setScheduleId(scheduleId);
+        request.setSeatIds(Arrays.stream(slots).mapToObj(slot -> seats.get(slot).getSeatId()).toList());
+        return request;
+    }
+}
@@ -0,0 +1,212 @@
+package org.example.movie.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.movie.dto.request.BulkBookingItemRequest;
+import org.example.movie.dto.request.BulkBookingRequest;
+import org.example.movie.dto.response.BulkBookingResponse;
+import org.example.movie.entity.*;
+import org.example.movie.enums.BulkBookingStatus;
+import org.example.movie.enums.InvoiceStatus;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.*;
+import org.example.movie.support.BookingFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkBookingServiceTest {
+
+    @Autowired
+    private BulkBookingService bulkBookingService;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private MovieScheduleRepository movieScheduleRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String identityCard;
+    private Long accountId;
+    private List<Long> scheduleIds;
+    private List<Long> seatIds;
+
+    @BeforeEach
+    @WithMockUser(roles = "ADMIN")
+    void setUp() {
+        Account account = fixtures.account("bulk");
+        identityCard = account.getIdentityCard();
+        accountId = account.getAccountId();
+        fixtures.member(account, 0);
+        BookingFixtures.Room room = fixtures.room("Room B", "ABCDEF", 5);
+        seatIds = room.seats().stream().map(Seat::getSeatId).toList();
+        scheduleIds = new ArrayList<>();
+        for (int day = 1; day <= 2; day++) {
+            scheduleIds.add(fixtures.showtime(room, "Phim đoàn " + day, LocalDateTime.of(2030, 9, day, 9, 0)));
+        }
+    }
+
+    @Test
+    void booksSeatsAcrossSchedulesWithStatementCountIndependentOfQuantity() {
+        BulkBookingResponse warmUp = bulkBookingService.submit(request(item(scheduleIds.get(0), 1)));
+        assertEquals(BulkBookingStatus.COMPLETED, warmUp.getStatus());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        bulkBookingService.submit(request(item(scheduleIds.get(0), 3)));
+        long smallOrder = statistics.getPrepareStatementCount();
+        statistics.clear();
+        BulkBookingResponse response = bulkBookingService.submit(request(item(scheduleIds.get(0), 12)));
+        assertEquals(smallOrder, statistics.getPrepareStatementCount());
+
+        assertEquals(BulkBookingStatus.COMPLETED, response.getStatus());
+        assertEquals(12, response.getProcessedSeats());
+        Long invoiceId = response.getInvoiceIds().get(0);
+        assertEquals(InvoiceStatus.PAID, invoiceRepository.findById(invoiceId).orElseThrow().getStatus());
+        assertEquals(12, ticketRepository.findByInvoice_InvoiceId(invoiceId).size());
+        assertEquals(12, scheduleSeatRepository.countByInvoice_InvoiceIdAndSeatStatus(invoiceId, SeatStatus.BOOKED));
+        assertEquals(16, scheduleSeatRepository.findTakenSeatIdsByMovieScheduleId(scheduleIds.get(0)).size());
+        assertEquals(response, bulkBookingService.getStatus(response.getJobId()));
+    }
+
+    @Test
+    void failsAsAWholeWhenOneScheduleLacksSeats() {
+        BulkBookingResponse response = bulkBookingService.submit(request(
+                item(scheduleIds.get(0), 5), item(scheduleIds.get(1), 31)));
+
+        assertEquals(BulkBookingStatus.FAILED, response.getStatus());
+        assertEquals(ErrorCode.NOT_ENOUGH_SEATS.getCode(), response.getErrorCode());
+        assertNull(response.getInvoiceIds());
+        assertTrue(scheduleSeatRepository.findTakenSeatIdsByMovieScheduleId(scheduleIds.get(0)).isEmpty());
+        assertTrue(invoiceRepository.findByAccount_AccountIdAndStatus(accountId, InvoiceStatus.PAID).isEmpty());
+
+        // Ghế giữ trong bộ nhớ đã được trả lại, đặt lại toàn bộ phòng vẫn được
+        assertEquals(BulkBookingStatus.COMPLETED,
+                bulkBookingService.submit(request(item(scheduleIds.get(0), 30))).getStatus());
+    }
+
+    @Test
+    void syncOrderOnTakenSeatFailsAndReplaysTheFailure() {
+        Long movieScheduleId = scheduleIds.get(0);
+        MovieSchedule movieSchedule = movieScheduleRepository.findById(movieScheduleId).orElseThrow();
+        // Bộ nhớ đã nạp lịch chiếu, sau đó instance khác đặt hết ghế trực tiếp trong database
+        assertEquals(30, seatInventory.availableCount(movieScheduleId));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Invoice other = invoiceRepository.save(Invoice.builder().status(InvoiceStatus.PAID).build());
+            scheduleSeatRepository.insertBookedSeats(movieSchedule.getSchedule().getScheduleId(),
+                    movieSchedule.getMovie().getMovieId(), seatIds, other.getInvoiceId());
+        });
+
+        // Như request thật có Idempotency-Key: kết quả FAILED được ghi sau khi đơn rollback
+        BulkBookingRequest request = request(item(movieScheduleId, 2));
+        String key = "bulk-" + UUID.randomUUID();
+        BulkBookingResponse response = idempotencyService.executeRecorded(key, "employee-bulk-booking", request,
+                BulkBookingResponse.class, recorder -> bulkBookingService.submit(request, recorder));
+
+        assertEquals(BulkBookingStatus.FAILED, response.getStatus());
+        assertEquals(ErrorCode.SEAT_ALREADY_BOOKED.getCode(), response.getErrorCode());
+        assertTrue(invoiceRepository.findByAccount_AccountIdAndStatus(accountId, InvoiceStatus.PAID).isEmpty());
+        assertTrue(idempotencyRecordRepository.existsById(scopedKey(key)));
+        assertEquals(response, idempotencyService.executeRecorded(key, "employee-bulk-booking", request,
+                BulkBookingResponse.class, recorder -> fail("Replayed request must not run again")));
+    }
+
+    @Test
+    void orderLosingTheIdempotencyRaceIsRolledBack() throws Exception {
+        Long movieScheduleId = scheduleIds.get(1);
+        BulkBookingRequest request = request(item(movieScheduleId, 4));
+        String key = "bulk-" + UUID.randomUUID();
+        BulkBookingResponse other = new BulkBookingResponse();
+        other.setJobId("other-instance");
+        other.setStatus(BulkBookingStatus.COMPLETED);
+        String otherBody = objectMapper.writeValueAsString(other);
+        String requestHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8)));
+
+        BulkBookingResponse response = idempotencyService.executeRecorded(key, "employee-bulk-booking", request,
+                BulkBookingResponse.class, recorder -> {
+                    // Instance khác ghi kết quả cho cùng key sau khi lần gọi này đã kiểm tra key
+                    idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                            .idempotencyKey(scopedKey(key))
+                            .requestHash(requestHash)
+                            .responseBody(otherBody)
+                            .createdAt(LocalDateTime.now())
+                            .build());
+                    return bulkBookingService.submit(request, recorder);
+                });
+
+        // Kết quả ghi cùng transaction đặt vé: thua thì đơn rollback, không có bộ ghế và hóa đơn thứ hai
+        assertEquals("other-instance", response.getJobId());
+        assertTrue(scheduleSeatRepository.findTakenSeatIdsByMovieScheduleId(movieScheduleId).isEmpty());
+        assertEquals(30, seatInventory.availableCount(movieScheduleId));
+        assertTrue(invoiceRepository.findByAccount_AccountIdAndStatus(accountId, InvoiceStatus.PAID).isEmpty());
+    }
+
+    private String scopedKey(String key) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return "employee-bulk-booking:" + (authentication != null ? authentication.getName() : "anonymous") + ":" + key;
+    }
+
+    private BulkBookingRequest request(BulkBookingItemRequest... items) {
+        BulkBookingRequest request = new BulkBookingRequest();
+        request.setIdentityCard(identityCard);
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    private BulkBookingItemRequest item(Long scheduleId, int quantity) {
+        BulkBookingItemRequest item = new BulkBookingItemRequest();
+        item.setScheduleId(scheduleId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.movie.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.movie.dto.request.BookingSearchRequest;
+import org.example.movie.dto.response.BookingListResponse;
+import org.example.movie.dto.response.EmployeeResponse;
+import org.example.movie.dto.response.MemberListResponse;
+import org.example.movie.dto.response.PageResponse;
+import org.example.movie.dto.response.TicketInfoResponse;
+import org.example.movie.entity.Account;
+import org.example.movie.entity.Employee;
+import org.example.movie.entity.Invoice;
+import org.example.movie.entity.Member;
+import org.example.movie.enums.InvoiceStatus;
+import org.example.movie.repository.AccountRepository;
+import org.example.movie.repository.EmployeeRepository;
+import org.example.movie.repository.InvoiceRepository;
+import org.example.movie.repository.MemberRepository;
+import org.example.movie.support.BookingFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Số câu SQL của các danh sách không được tăng theo số dòng.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FetchPlanTest {
+
+    private static final int ROWS = 20;
+
+    @Autowired
+    private TicketBookingService ticketBookingService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void listsBookingsInOneQuery() {
+        String marker = "Fetch " + UUID.randomUUID().toString().substring(0, 8);
+        String cursor = String.valueOf(lastInvoiceId());
+        List<Long> invoiceIds = new ArrayList<>();
+        for (Account account : accounts(ROWS)) {
+            fixtures.member(account, 0);
+            invoiceIds.add(invoiceRepository.save(Invoice.builder().account(account).movieName(marker)
+                    .scheduleShowTime(LocalDateTime.of(2031, 1, 1, 20, 0)).status(InvoiceStatus.PAID)
+                    .build()).getInvoiceId());
+        }
+
+        PageResponse<BookingListResponse> page = queries(1, () -> ticketBookingService.getBookingList(cursor, ROWS));
+        assertEquals(ROWS, page.getItems().size());
+        BookingSearchRequest search = new BookingSearchRequest();
+        search.setKeyword(marker);
+        PageResponse<BookingListResponse> found = queries(1, () -> ticketBookingService.loadBookings(search));
+        assertEquals(ROWS, found.getItems().size());
+        TicketInfoResponse info = queries(1, () -> ticketBookingService.loadTicketInfo(invoiceIds.get(0)));
+        assertNotNull(info.getMemberId());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void listsMembersInOneQuery() {
+        String cursor = String.valueOf(lastMemberId());
+        accounts(ROWS).forEach(account -> fixtures.member(account, 0));
+
+        PageResponse<MemberListResponse> page = queries(1, () -> accountService.getAllMembers(cursor, ROWS));
+        assertEquals(ROWS, page.getItems().size());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void listsEmployeesInOneQuery() {
+        String marker = "Staff" + UUID.randomUUID().toString().substring(0, 6);
+        for (Account account : accounts(ROWS)) {
+            account.setFullName(marker + " " + account.getUsername());
+            accountRepository.save(account);
+            employeeRepository.save(Employee.builder().employeeId(account.getUsername().substring(0, 10))
+                    .account(account).build());
+        }
+
+        PageResponse<EmployeeResponse> page = queries(1, () -> employeeService.getEmployeeList(marker, null, ROWS));
+        assertEquals(ROWS, page.getItems().size());
+    }
+
+    private <T> T queries(long expected, Supplier<T> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = call.get();
+        assertEquals(expected, statistics.getPrepareStatementCount());
+        return result;
+    }
+
+    private List<Account> accounts(int count) {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            accounts.add(fixtures.account("F"));
+        }
+        return accounts;
+    }
+
+    private long lastInvoiceId() {
+        return invoiceRepository.findAll().stream().mapToLong(Invoice::getInvoiceId).max().orElse(0);
+    }
+
+    private long lastMemberId() {
+        return memberRepository.findAll().stream().mapToLong(Member::getMemberId).max().orElse(0);
+    }
+}
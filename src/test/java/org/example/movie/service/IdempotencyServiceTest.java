@@ -0,0 +1,147 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.entity.IdempotencyRecord;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void replaysStoredResponseWithoutRunningActionAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        SelectSeatsRequest request = request(1L, 10L, 11L);
+
+        Long first = idempotencyService.execute("key-replay", "test", request, Long.class,
+                () -> 100L + calls.incrementAndGet());
+        Long second = idempotencyService.execute("key-replay", "test", request, Long.class,
+                () -> 100L + calls.incrementAndGet());
+
+        assertEquals(101L, first);
+        assertEquals(first, second);
+        assertEquals(1, calls.get());
+        assertTrue(idempotencyRecordRepository.existsById("test:anonymous:key-replay"));
+
+        AppException reused = assertThrows(AppException.class, () -> idempotencyService.execute("key-replay", "test",
+                request(1L, 12L), Long.class, () -> (long) calls.incrementAndGet()));
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, reused.getErrorCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void fallsBackToPersistedRecord() {
+        idempotencyRecordRepository.save(IdempotencyRecord.builder()
+                .idempotencyKey("test:anonymous:key-stored")
+                .requestHash(hashOf(request(2L, 20L)))
+                .responseBody("555")
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        Long replayed = idempotencyService.execute("key-stored", "test", request(2L, 20L), Long.class,
+                () -> fail("action must not run for a stored key"));
+        assertEquals(555L, replayed);
+    }
+
+    @Test
+    void failuresAreNotStored() {
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(AppException.class, () -> idempotencyService.execute("key-failure", "test", request(3L, 30L),
+                Long.class, () -> {
+                    calls.incrementAndGet();
+                    throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+                }));
+        Long retried = idempotencyService.execute("key-failure", "test", request(3L, 30L), Long.class,
+                () -> (long) calls.incrementAndGet());
+        assertEquals(2L, retried);
+    }
+
+    @Test
+    void collapsesConcurrentAsyncRequests() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Long> pending = new CompletableFuture<>();
+        SelectSeatsRequest request = request(4L, 40L);
+
+        CompletableFuture<Long> first = idempotencyService.executeAsync("key-async", "test", request, Long.class, recorder -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<Long> second = idempotencyService.executeAsync("key-async", "test", request, Long.class, recorder -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(-1L);
+        });
+        assertFalse(second.isDone());
+
+        pending.complete(77L);
+        assertEquals(77L, first.get(5, TimeUnit.SECONDS));
+        assertEquals(77L, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void asyncRecordCommitsWithTheActionTransaction() throws Exception {
+        SelectSeatsRequest request = request(5L, 50L);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Kết quả đã ghi nhưng transaction rollback: không để lại bản ghi, key dùng lại được
+        CompletableFuture<Long> rolledBack = idempotencyService.executeAsync("key-tx", "test", request, Long.class,
+                recorder -> CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+                    recorder.accept(88L);
+                    throw new AppException(ErrorCode.SEAT_ALREADY_BOOKED);
+                })));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> rolledBack.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AppException.class, failure.getCause());
+        assertFalse(idempotencyRecordRepository.existsById("test:anonymous:key-tx"));
+        assertNull(idempotencyService.replay("key-tx", "test", request, Long.class));
+
+        CompletableFuture<Long> committed = idempotencyService.executeAsync("key-tx", "test", request, Long.class,
+                recorder -> CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+                    recorder.accept(89L);
+                    return 89L;
+                })));
+        assertEquals(89L, committed.get(5, TimeUnit.SECONDS));
+        assertTrue(idempotencyRecordRepository.existsById("test:anonymous:key-tx"));
+        assertEquals(89L, idempotencyService.replay("key-tx", "test", request, Long.class).get(5, TimeUnit.SECONDS));
+    }
+
+    private SelectSeatsRequest request(Long scheduleId, Long... seatIds) {
+        SelectSeatsRequest request = new SelectSeatsRequest();
+        request.setScheduleId(scheduleId);
+        request.setSeatIds(List.of(seatIds));
+        return request;
+    }
+
+    // Lấy hash bằng chính service: chạy một key phụ rồi đọc lại bản ghi đã lưu
+    private String hashOf(SelectSeatsRequest request) {
+        idempotencyService.execute("hash-probe-" + request.getScheduleId(), "probe", request, Long.class, () -> 0L);
+        return idempotencyRecordRepository.findById("probe:anonymous:hash-probe-" + request.getScheduleId())
+                .orElseThrow()
+                .getRequestHash();
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.movie.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.movie.dto.response.MovieResponse;
+import org.example.movie.entity.Movie;
+import org.example.movie.event.MovieChangedEvent;
+import org.example.movie.repository.MovieRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MovieSearchIndexTest {
+
+    @Autowired
+    private MovieSearchIndex movieSearchIndex;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void foldsDiacritics() {
+        assertEquals("nguoi nhen: khong con nha", MovieSearchIndex.fold("Người Nhện: Không Còn Nhà"));
+        assertEquals("dat rung phuong nam", MovieSearchIndex.fold("Đất Rừng Phương Nam"));
+    }
+
+    @Test
+    void matchesFoldedPrefixAndInfixTermsAndRanksNamesFirst() {
+        Movie spider = save("Người Nhện Xa Nhà Lần Ba", "Spider Wanderer", "Tom Hollandia", "Jon Wattsen");
+        Movie forest = save("Đất Rừng Phương Nam Lần Ba", "Southern Forest", "Tuan Tran", "Nguyen Quang Dung");
+        Movie cameo = save("Phim Khách Mời Lần Ba", "Guest Star", "Nhen Cameo", "Someone");
+
+        assertEquals(List.of(spider.getMovieId()), ids(movieSearchIndex.search("nguoi nhen xa")));
+        assertEquals(List.of(spider.getMovieId()), ids(movieSearchIndex.search("NGƯỜI nhện")));
+        assertEquals(List.of(forest.getMovieId()), ids(movieSearchIndex.search("dat rung")));
+        // Tiền tố và chuỗi con
+        assertEquals(List.of(spider.getMovieId()), ids(movieSearchIndex.search("wander")));
+        assertEquals(List.of(spider.getMovieId()), ids(movieSearchIndex.search("ollandi")));
+        // Khớp tên phim xếp trước khớp diễn viên
+        assertEquals(List.of(spider.getMovieId(), cameo.getMovieId()), ids(movieSearchIndex.search("nhen lan ba")));
+        assertTrue(movieSearchIndex.search("nhen southern").isEmpty());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        movieSearchIndex.search("phuong nam");
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void followsMovieChanges() {
+        Movie movie = save("Hành Tinh Cát Phần Hai", "Dunetopia Two", "Timothee", "Villeneuvo");
+        assertEquals(List.of(movie.getMovieId()), ids(movieSearchIndex.search("hanh tinh cat")));
+
+        movie.setMovieNameVn("Hành Tinh Đá Phần Hai");
+        movieRepository.save(movie);
+        movieSearchIndex.onMovieChanged(new MovieChangedEvent(movie.getMovieId()));
+        assertTrue(movieSearchIndex.search("hanh tinh cat").isEmpty());
+        assertEquals(List.of(movie.getMovieId()), ids(movieSearchIndex.search("hanh tinh da")));
+
+        movieRepository.delete(movie);
+        movieSearchIndex.onMovieChanged(new MovieChangedEvent(movie.getMovieId()));
+        assertTrue(movieSearchIndex.search("dunetopia").isEmpty());
+    }
+
+    private Movie save(String nameVn, String nameEnglish, String actor, String director) {
+        // Dựng chỉ mục trước để phim mới đi qua đường cập nhật từng phim
+        movieSearchIndex.search(null);
+        Movie movie = movieRepository.save(Movie.builder()
+                .movieNameVn(nameVn)
+                .movieNameEnglish(nameEnglish)
+                .actor(actor)
+                .director(director)
+                .fromDate(LocalDate.of(2031, 1, 1))
+                .toDate(LocalDate.of(2031, 2, 1))
+                .build());
+        movieSearchIndex.onMovieChanged(new MovieChangedEvent(movie.getMovieId()));
+        return movie;
+    }
+
+    private List<Long> ids(List<MovieResponse> movies) {
+        return movies.stream().map(MovieResponse::getMovieId).toList();
+    }
+}
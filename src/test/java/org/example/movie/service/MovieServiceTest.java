@@ -0,0 +1,70 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.response.ShowtimeResponse;
+import org.example.movie.entity.Movie;
+import org.example.movie.entity.MovieSchedule;
+import org.example.movie.entity.ScheduleSeat;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.enums.SeatType;
+import org.example.movie.repository.*;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "booking.seat-map.materialized=true")
+@ActiveProfiles("test")
+class MovieServiceTest {
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private MovieDateRepository movieDateRepository;
+
+    @Autowired
+    private MovieScheduleRepository movieScheduleRepository;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void addMovieMaterializesFullRunInBulk() {
+        BookingFixtures.Room room = fixtures.room("Room 1", "ABCDEF", 10,
+                row -> row <= 2 ? SeatType.REGULAR : SeatType.VIP);
+
+        LocalDate fromDate = LocalDate.of(2030, 1, 1);
+        LocalDate toDate = fromDate.plusDays(29);
+        Movie movie = fixtures.movie(room, "Phim dài ngày", fromDate, toDate, fromDate.datesUntil(toDate.plusDays(1))
+                .flatMap(date -> List.of(10, 13, 16, 19, 22).stream().map(hour -> date.atTime(hour, 0)))
+                .toList());
+
+        assertEquals(30, movieDateRepository.findByMovie_MovieId(movie.getMovieId()).size());
+        List<MovieSchedule> schedules = movieScheduleRepository.findByMovie_MovieId(movie.getMovieId());
+        assertEquals(150, schedules.size());
+        List<ScheduleSeat> scheduleSeats = scheduleSeatRepository.findByMovieMovieId(movie.getMovieId());
+        assertEquals(9000, scheduleSeats.size());
+        assertTrue(scheduleSeats.stream().allMatch(seat -> seat.getSeatStatus() == SeatStatus.AVAILABLE
+                && seat.getSeat() != null));
+        assertEquals(60, scheduleSeatRepository.findBySchedule_ScheduleIdAndMovie_MovieId(
+                schedules.get(0).getSchedule().getScheduleId(), movie.getMovieId()).size());
+
+        // Lọc theo ngày trong database, kết quả theo thứ tự giờ chiếu
+        LocalDate day = fromDate.plusDays(3);
+        List<ShowtimeResponse> showtimes = bookingService.getShowtimesByDate(movie.getMovieId(), day);
+        assertEquals(List.of(10, 13, 16, 19, 22), showtimes.stream().map(showtime -> showtime.getShowTime().getHour()).toList());
+        assertTrue(showtimes.stream().allMatch(showtime -> showtime.getShowDate().equals(day)));
+        assertEquals(150, bookingService.getShowtimes(movie.getMovieId(), null).size());
+    }
+}
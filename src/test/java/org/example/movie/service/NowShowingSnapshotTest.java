@@ -0,0 +1,96 @@
+package org.example.movie.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.movie.dto.response.NowShowingMovieResponse;
+import org.example.movie.dto.response.ShowtimeResponse;
+import org.example.movie.entity.Movie;
+import org.example.movie.event.MovieChangedEvent;
+import org.example.movie.repository.MovieRepository;
+import org.example.movie.support.BookingFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NowShowingSnapshotTest {
+
+    @Autowired
+    private NowShowingSnapshot nowShowingSnapshot;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void rebuildsAfterMovieChangesAndServesWithoutQueries() throws Exception {
+        BookingFixtures.Room room = fixtures.room("Room N", "A", 1);
+        LocalDate today = LocalDate.now();
+        LocalDateTime tomorrow = today.plusDays(1).atTime(20, 0);
+        // Suất đã qua không được đưa vào ảnh chụp
+        Long movieId = fixtures.movie(room, "Phim Đang Chiếu", today.minusDays(1), today.plusDays(3),
+                List.of(today.minusDays(1).atTime(20, 0), tomorrow)).getMovieId();
+
+        // MovieChangedEvent kích hoạt dựng lại trên luồng nền
+        NowShowingSnapshot.Snapshot snapshot = await(candidate -> find(candidate, movieId).isPresent());
+        NowShowingMovieResponse entry = find(snapshot, movieId).orElseThrow();
+        assertEquals(List.of(tomorrow.toLocalDate()), entry.getShowDates());
+        assertEquals(1, entry.getShowtimes().size());
+        ShowtimeResponse showtime = entry.getShowtimes().get(0);
+        assertEquals(tomorrow.toLocalTime(), showtime.getShowTime());
+        assertEquals("Room N", showtime.getCinemaRoomName());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertSame(nowShowingSnapshot.get(), nowShowingSnapshot.get());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // Lần dựng định kỳ không có thay đổi giữ nguyên ảnh chụp và ETag
+        NowShowingSnapshot.Snapshot unchanged = nowShowingSnapshot.rebuild();
+        assertSame(unchanged, nowShowingSnapshot.rebuild());
+        assertEquals(unchanged.eTag(), nowShowingSnapshot.get().eTag());
+
+        // Phim hết lịch chiếu thì rời khỏi ảnh chụp
+        Movie movie = movieRepository.findById(movieId).orElseThrow();
+        movie.setToDate(today.minusDays(1));
+        movieRepository.save(movie);
+        nowShowingSnapshot.onMovieChanged(new MovieChangedEvent(movieId));
+        assertNotEquals(unchanged.eTag(), await(candidate -> find(candidate, movieId).isEmpty()).eTag());
+    }
+
+    private NowShowingSnapshot.Snapshot await(Predicate<NowShowingSnapshot.Snapshot> condition)
+            throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            NowShowingSnapshot.Snapshot snapshot = nowShowingSnapshot.get();
+            if (condition.test(snapshot)) {
+                return snapshot;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Now-showing snapshot was not rebuilt");
+    }
+
+    private Optional<NowShowingMovieResponse> find(NowShowingSnapshot.Snapshot snapshot, Long movieId) {
+        return snapshot.response().getMovies().stream()
+                .filter(entry -> entry.getMovie().getMovieId().equals(movieId))
+                .findFirst();
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.movie.service;
+
+import org.example.movie.entity.OutboxMessage;
+import org.example.movie.enums.OutboxStatus;
+import org.example.movie.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxDispatcherTest {
+
+    private static final LocalSmtpServer SMTP;
+
+    static {
+        try {
+            SMTP = new LocalSmtpServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", SMTP::getPort);
+        registry.add("booking.outbox.enabled", () -> "true");
+        registry.add("booking.outbox.poll-interval", () -> "200ms");
+        registry.add("booking.outbox.backoff", () -> "100ms");
+    }
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        SMTP.close();
+    }
+
+    @Test
+    void deliversPendingMessage() throws InterruptedException {
+        OutboxMessage message = outboxMessageRepository.save(message("deliver@example.com", 1L));
+        outboxDispatcher.wakeUp();
+
+        OutboxMessage sent = awaitStatus(message.getOutboxId(), OutboxStatus.SENT);
+        assertEquals(1, sent.getAttempts());
+        assertNotNull(sent.getSentAt());
+        assertTrue(SMTP.getMessages().stream().anyMatch(body -> body.contains("deliver@example.com")));
+    }
+
+    @Test
+    void retriesAfterTemporaryFailure() throws InterruptedException {
+        SMTP.failNext(1);
+        OutboxMessage message = outboxMessageRepository.save(message("retry@example.com", 2L));
+        outboxDispatcher.wakeUp();
+
+        OutboxMessage sent = awaitStatus(message.getOutboxId(), OutboxStatus.SENT);
+        assertEquals(2, sent.getAttempts());
+        assertNull(sent.getLastError());
+    }
+
+    private OutboxMessage awaitStatus(Long outboxId, OutboxStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            OutboxMessage current = outboxMessageRepository.findById(outboxId).orElseThrow();
+            if (current.getStatus() == status) {
+                return current;
+            }
+            Thread.sleep(50);
+        }
+        fail("Outbox message " + outboxId + " did not reach " + status);
+        return null;
+    }
+
+    private OutboxMessage message(String recipient, Long invoiceId) {
+        LocalDateTime now = LocalDateTime.now();
+        return OutboxMessage.builder()
+                .eventType(OutboxService.TICKET_EMAIL)
+                .aggregateId(invoiceId)
+                .recipient(recipient)
+                .subject("Your e-ticket")
+                .body("Booking ID: " + invoiceId)
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+}
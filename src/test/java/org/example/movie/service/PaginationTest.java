@@ -0,0 +1,224 @@
+package org.example.movie.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.movie.configuration.JwtUtil;
+import org.example.movie.dto.request.BookingSearchRequest;
+import org.example.movie.dto.response.BookedTicketResponse;
+import org.example.movie.dto.response.BookingListResponse;
+import org.example.movie.dto.response.CinemaRoomResponse;
+import org.example.movie.dto.response.MovieResponse;
+import org.example.movie.dto.response.PageResponse;
+import org.example.movie.dto.response.ScoreHistoryResponse;
+import org.example.movie.entity.Account;
+import org.example.movie.entity.CinemaRoom;
+import org.example.movie.entity.Invoice;
+import org.example.movie.entity.Movie;
+import org.example.movie.enums.InvoiceStatus;
+import org.example.movie.event.MovieChangedEvent;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.CinemaRoomRepository;
+import org.example.movie.repository.InvoiceRepository;
+import org.example.movie.repository.MovieRepository;
+import org.example.movie.support.BookingFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PaginationTest {
+
+    @Autowired
+    private Pagination pagination;
+
+    @Autowired
+    private CinemaRoomService cinemaRoomService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private CinemaRoomRepository cinemaRoomRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private MovieSearchIndex movieSearchIndex;
+
+    @Autowired
+    private TicketBookingService ticketBookingService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void capsPageSize() {
+        assertEquals(50, pagination.size(null));
+        assertEquals(200, pagination.size(10_000));
+        assertThrows(AppException.class, () -> pagination.size(0));
+        assertThrows(AppException.class, () -> pagination.longCursor("abc"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void walksCinemaRoomsWithOneQueryPerPage() {
+        String keyword = "Keyset " + UUID.randomUUID().toString().substring(0, 8);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(cinemaRoomRepository.save(CinemaRoom.builder().cinemaRoomName(keyword + " " + i)
+                    .seatQuantity(0).build()).getCinemaRoomId());
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            PageResponse<CinemaRoomResponse> page = cinemaRoomService.getCinemaRoomList(keyword, cursor, 2);
+            assertEquals(1, statistics.getPrepareStatementCount());
+            assertTrue(page.getItems().size() <= 2);
+            page.getItems().forEach(room -> seen.add(room.getCinemaRoomId()));
+            assertEquals(page.getNextCursor() != null, page.isHasMore());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void pagesMovieSearchResults() {
+        String marker = "Trangphim" + UUID.randomUUID().toString().substring(0, 6);
+        movieSearchIndex.search(null);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Movie movie = movieRepository.save(Movie.builder().movieNameVn(marker + " " + i)
+                    .fromDate(LocalDate.of(2031, 1, 1)).toDate(LocalDate.of(2031, 2, 1)).build());
+            movieSearchIndex.onMovieChanged(new MovieChangedEvent(movie.getMovieId()));
+            expected.add(movie.getMovieId());
+        }
+
+        PageResponse<MovieResponse> first = bookingService.getMovies(marker, null, 2);
+        PageResponse<MovieResponse> second = bookingService.getMovies(marker, first.getNextCursor(), 2);
+
+        assertTrue(first.isHasMore());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+        List<Long> seen = new ArrayList<>();
+        first.getItems().forEach(movie -> seen.add(movie.getMovieId()));
+        second.getItems().forEach(movie -> seen.add(movie.getMovieId()));
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void movieSearchCursorSeeksPastAMovieThatStoppedMatching() {
+        String marker = "Trangdoi" + UUID.randomUUID().toString().substring(0, 6);
+        movieSearchIndex.search(null);
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Movie movie = movieRepository.save(Movie.builder().movieNameVn(marker + " " + i)
+                    .fromDate(LocalDate.of(2031, 3, 1)).toDate(LocalDate.of(2031, 4, 1)).build());
+            movieSearchIndex.onMovieChanged(new MovieChangedEvent(movie.getMovieId()));
+            movies.add(movie);
+        }
+        PageResponse<MovieResponse> first = bookingService.getMovies(marker, null, 2);
+
+        // Phim cuối trang đầu bị đổi tên, không còn khớp câu tìm
+        Movie renamed = movies.get(1);
+        renamed.setMovieNameVn("Phim khác");
+        movieRepository.save(renamed);
+        movieSearchIndex.onMovieChanged(new MovieChangedEvent(renamed.getMovieId()));
+        PageResponse<MovieResponse> second = bookingService.getMovies(marker, first.getNextCursor(), 2);
+
+        assertEquals(List.of(movies.get(0).getMovieId(), movies.get(1).getMovieId()),
+                first.getItems().stream().map(MovieResponse::getMovieId).toList());
+        assertEquals(List.of(movies.get(2).getMovieId(), movies.get(3).getMovieId()),
+                second.getItems().stream().map(MovieResponse::getMovieId).toList());
+        assertFalse(second.isHasMore());
+        AppException invalid = assertThrows(AppException.class, () -> bookingService.getMovies(marker, "%%%", 2));
+        assertEquals(ErrorCode.INVALID_REQUEST, invalid.getErrorCode());
+    }
+
+    @Test
+    void pagesBookingSearchAndMemberHistory() {
+        Account account = fixtures.account("pages");
+        String marker = "Trangve" + UUID.randomUUID().toString().substring(0, 6);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            expected.add(invoiceRepository.save(Invoice.builder().account(account).movieName(marker)
+                    .bookingDate(LocalDateTime.now()).status(InvoiceStatus.PENDING).useScore(100).totalMoney(100000)
+                    .build()).getInvoiceId());
+        }
+
+        BookingSearchRequest search = new BookingSearchRequest();
+        search.setKeyword(marker);
+        search.setSize(2);
+        PageResponse<BookingListResponse> first = ticketBookingService.searchBookings(search);
+        BookingSearchRequest next = new BookingSearchRequest();
+        next.setKeyword(marker);
+        next.setCursor(first.getNextCursor());
+        next.setSize(2);
+        PageResponse<BookingListResponse> second = ticketBookingService.searchBookings(next);
+        assertTrue(first.isHasMore());
+        assertFalse(second.isHasMore());
+        List<Long> seen = new ArrayList<>();
+        first.getItems().forEach(booking -> seen.add(booking.getBookingId()));
+        second.getItems().forEach(booking -> seen.add(booking.getBookingId()));
+        assertEquals(expected, seen);
+
+        // AccountService đọc accountId từ JWT trong credentials của người dùng hiện tại
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                account.getUsername(), jwtUtil.generateToken(account.getUsername(), "MEMBER", account.getAccountId()),
+                List.of(new SimpleGrantedAuthority("ROLE_MEMBER"))));
+        try {
+            PageResponse<BookedTicketResponse> tickets = accountService.getBookedTicketsForCurrentUser(null, 2);
+            assertEquals(expected.subList(0, 2), tickets.getItems().stream().map(BookedTicketResponse::getInvoiceId).toList());
+            assertEquals(List.of(expected.get(2)), accountService.getBookedTicketsForCurrentUser(tickets.getNextCursor(), 2)
+                    .getItems().stream().map(BookedTicketResponse::getInvoiceId).toList());
+
+            LocalDate today = LocalDate.now();
+            PageResponse<ScoreHistoryResponse> history = accountService.getScoreHistory("using", today, today, null, 2);
+            assertEquals(2, history.getItems().size());
+            assertTrue(history.isHasMore());
+            PageResponse<ScoreHistoryResponse> rest = accountService.getScoreHistory("using", today, today,
+                    history.getNextCursor(), 2);
+            assertEquals(1, rest.getItems().size());
+            assertFalse(rest.isHasMore());
+            assertTrue(accountService.getScoreHistory("using", today.minusDays(2), today.minusDays(1), null, 2)
+                    .getItems().isEmpty());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
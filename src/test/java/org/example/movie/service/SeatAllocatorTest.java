@@ -0,0 +1,135 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.request.BestAvailableRequest;
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.SeatType;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatAllocatorTest {
+
+    private static final String COLUMNS = "ABCDEFG";
+    private static final int ROWS = 5;
+
+    @Autowired
+    private SeatAllocator seatAllocator;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private BookingLaneService bookingLaneService;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    private Map<Long, Seat> seatsById;
+    private Long scheduleId;
+    private Long accountId;
+
+    @BeforeEach
+    @WithMockUser(roles = "ADMIN")
+    void setUp() {
+        accountId = fixtures.account("allocator").getAccountId();
+        BookingFixtures.Room room = fixtures.room("Room 7", COLUMNS, ROWS,
+                row -> row == ROWS ? SeatType.VIP : SeatType.REGULAR);
+        seatsById = room.seats().stream().collect(Collectors.toMap(Seat::getSeatId, Function.identity()));
+        scheduleId = fixtures.showtime(room, "Phim chọn ghế", LocalDateTime.of(2030, 6, 1, 19, 0));
+    }
+
+    @Test
+    void picksCenteredBlockInMiddleRow() {
+        List<String> picked = labels(seatAllocator.findBestAvailable(scheduleId, 3, null, Set.of()));
+        assertEquals(List.of("C3", "D3", "E3"), picked);
+    }
+
+    @Test
+    void skipsTakenAndExcludedSeats() {
+        seatInventory.claim(scheduleId, List.of(seatId("D3")));
+        List<String> picked = labels(seatAllocator.findBestAvailable(scheduleId, 2, null, Set.of(seatId("E3"))));
+
+        assertFalse(picked.contains("D3"));
+        assertFalse(picked.contains("E3"));
+        assertEquals(2, picked.size());
+        assertEquals(picked.get(0).charAt(1), picked.get(1).charAt(1));
+        assertEquals(1, COLUMNS.indexOf(picked.get(1).charAt(0)) - COLUMNS.indexOf(picked.get(0).charAt(0)));
+    }
+
+    @Test
+    void honoursSeatTypeAndReportsWhenNothingFits() {
+        List<String> vip = labels(seatAllocator.findBestAvailable(scheduleId, 4, SeatType.VIP, Set.of()));
+        assertTrue(vip.stream().allMatch(label -> label.endsWith(String.valueOf(ROWS))));
+
+        AppException tooWide = assertThrows(AppException.class,
+                () -> seatAllocator.findBestAvailable(scheduleId, COLUMNS.length() + 1, null, Set.of()));
+        assertEquals(ErrorCode.NO_CONTIGUOUS_SEATS, tooWide.getErrorCode());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void aisleBreaksContiguousBlocks() {
+        // Phòng không có cột D: lối đi giữa C và E
+        BookingFixtures.Room aisleRoom = fixtures.room("Room Aisle", "ABCEFGH", 1);
+        aisleRoom.seats().forEach(seat -> seatsById.put(seat.getSeatId(), seat));
+        Long aisleScheduleId = fixtures.showtime(aisleRoom, "Phim lối đi", LocalDateTime.of(2030, 6, 2, 19, 0));
+
+        assertEquals(List.of("E1", "F1", "G1"),
+                labels(seatAllocator.findBestAvailable(aisleScheduleId, 3, null, Set.of())));
+        AppException acrossAisle = assertThrows(AppException.class,
+                () -> seatAllocator.findBestAvailable(aisleScheduleId, 5, null, Set.of()));
+        assertEquals(ErrorCode.NO_CONTIGUOUS_SEATS, acrossAisle.getErrorCode());
+    }
+
+    @Test
+    void concurrentRequestsThroughLaneGetDisjointBlocks() throws Exception {
+        BestAvailableRequest request = new BestAvailableRequest();
+        request.setScheduleId(scheduleId);
+        request.setQuantity(3);
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(bookingLaneService.submitBestAvailable(request, accountId));
+        }
+        int succeeded = 0;
+        for (CompletableFuture<Long> result : results) {
+            try {
+                assertNotNull(result.get(10, TimeUnit.SECONDS));
+                succeeded++;
+            } catch (ExecutionException e) {
+                AppException cause = assertInstanceOf(AppException.class, e.getCause());
+                assertEquals(ErrorCode.NO_CONTIGUOUS_SEATS, cause.getErrorCode());
+            }
+        }
+        // Mỗi hàng 7 ghế: nhóm giữa C-E được chọn trước, hai bên chỉ còn 2 ghế liền nhau
+        assertEquals(ROWS, succeeded);
+        assertFalse(seatInventory.isAvailable(scheduleId, List.of(seatId("C1"), seatId("D3"), seatId("E5"))));
+    }
+
+    private Long seatId(String label) {
+        return seatsById.values().stream()
+                .filter(seat -> (seat.getSeatColumn() + seat.getSeatRow()).equals(label))
+                .findFirst().orElseThrow().getSeatId();
+    }
+
+    private List<String> labels(List<Long> seatIds) {
+        return seatIds.stream().map(seatsById::get).map(seat -> seat.getSeatColumn() + seat.getSeatRow()).toList();
+    }
+}
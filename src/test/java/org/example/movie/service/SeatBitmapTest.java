@@ -0,0 +1,108 @@
+package org.example.movie.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.entity.Seat;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SeatBitmapTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private TicketBookingService ticketBookingService;
+
+    private BookingFixtures.Room room;
+    private List<Seat> seats;
+    private Long scheduleId;
+
+    @BeforeEach
+    @WithMockUser(roles = "ADMIN")
+    void setUp() {
+        room = fixtures.room("Room 4", "B", 10);
+        seats = room.seats();
+        scheduleId = fixtures.showtime(room, "Phim bitmap", LocalDateTime.of(2030, 4, 1, 18, 0));
+    }
+
+    @Test
+    void bitmapIsVersionedAndReturnsChangesSinceVersion() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/api/public/seats/bitmap")
+                        .param("scheduleId", scheduleId.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        JsonNode full = objectMapper.readTree(first.getContentAsString());
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertEquals("\"" + full.get("version").asText() + "\"", etag);
+        assertTrue(full.get("full").asBoolean());
+        assertEquals(10, full.get("seatCount").asInt());
+        assertEquals("AAA=", full.get("bitmap").asText());
+
+        mockMvc.perform(get("/api/public/seats/bitmap").param("scheduleId", scheduleId.toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        SelectSeatsRequest select = new SelectSeatsRequest();
+        select.setScheduleId(scheduleId);
+        select.setSeatIds(List.of(seats.get(3).getSeatId(), seats.get(9).getSeatId()));
+        ticketBookingService.selectSeats(select);
+
+        mockMvc.perform(get("/api/public/seats/bitmap").param("scheduleId", scheduleId.toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        JsonNode delta = objectMapper.readTree(mockMvc.perform(get("/api/public/seats/bitmap")
+                        .param("scheduleId", scheduleId.toString())
+                        .param("since", full.get("version").asText()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertFalse(delta.get("full").asBoolean());
+        assertNotEquals(full.get("version").asText(), delta.get("version").asText());
+        assertEquals(List.of(3, 9), objectMapper.convertValue(delta.get("takenSlots"), List.class));
+        assertTrue(delta.get("releasedSlots").isEmpty());
+        assertTrue(delta.get("bitmap").isNull());
+    }
+
+    @Test
+    void layoutIsIndexedBySlotAndCacheable() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/public/seats/layout")
+                        .param("cinemaRoomId", room.id().toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        JsonNode layout = objectMapper.readTree(response.getContentAsString());
+        assertEquals(seats.stream().map(Seat::getSeatId).toList(),
+                objectMapper.convertValue(layout.get("seatIds"), objectMapper.getTypeFactory()
+                        .constructCollectionType(List.class, Long.class)));
+        assertEquals(10, layout.get("seatRows").size());
+
+        mockMvc.perform(get("/api/public/seats/layout").param("cinemaRoomId", room.id().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, response.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.movie.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.movie.entity.Invoice;
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.InvoiceStatus;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.repository.InvoiceRepository;
+import org.example.movie.repository.ScheduleSeatRepository;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatHoldServiceTest {
+
+    @Autowired
+    private SeatHoldService seatHoldService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private List<Long> seatIds;
+    private Long scheduleId;
+    private Long accountId;
+
+    @BeforeEach
+    @WithMockUser(roles = "ADMIN")
+    void setUp() {
+        accountId = fixtures.account("hold").getAccountId();
+        BookingFixtures.Room room = fixtures.room("Room H", "AB", 2);
+        seatIds = room.seats().stream().map(Seat::getSeatId).toList();
+        scheduleId = fixtures.showtime(room, "Phim giữ ghế", LocalDateTime.of(2030, 8, 1, 18, 0));
+    }
+
+    @Test
+    void expiredHoldReleasesSeatsThroughTheDelayQueue() throws Exception {
+        List<Long> held = seatIds.subList(0, 3);
+        double created = count("booking.seat.holds.created");
+        double expired = count("booking.seat.holds.expired");
+        double released = count("booking.seat.holds.released.seats");
+
+        Long invoiceId = bookingService.reserveSeats(scheduleId, held, accountId);
+        assertEquals(created + 1, count("booking.seat.holds.created"));
+        assertFalse(seatInventory.isAvailable(scheduleId, held));
+
+        // Rút ngắn hạn giữ ghế: hóa đơn hết hạn sau một khoảng ngắn, hẹn giờ cũ trong hàng đợi bị bỏ qua
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(200_000_000);
+        Invoice invoice = invoiceRepository.findById(invoiceId).orElseThrow();
+        invoice.setHoldExpiresAt(expiresAt);
+        invoiceRepository.save(invoice);
+        seatHoldService.hold(invoiceId, scheduleId, held, expiresAt);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (seatHoldService.isActive(invoiceId) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertFalse(seatHoldService.isActive(invoiceId));
+        assertEquals(InvoiceStatus.UNPAID, invoiceRepository.findById(invoiceId).orElseThrow().getStatus());
+        assertEquals(0, scheduleSeatRepository.countByInvoice_InvoiceIdAndSeatStatus(invoiceId, SeatStatus.HELD));
+        assertTrue(seatInventory.isAvailable(scheduleId, held));
+        assertEquals(expired + 1, count("booking.seat.holds.expired"));
+        assertEquals(released + held.size(), count("booking.seat.holds.released.seats"));
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name).count();
+    }
+}
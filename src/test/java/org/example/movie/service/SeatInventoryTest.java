@@ -0,0 +1,116 @@
+package org.example.movie.service;
+
+import org.example.movie.entity.Seat;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatInventoryTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private List<Long> seatIds;
+    private Long scheduleId;
+
+    @BeforeEach
+    @WithMockUser(roles = "ADMIN")
+    void setUp() {
+        BookingFixtures.Room room = fixtures.room("Room I", "ABCDEFGHIJ", 1);
+        seatIds = room.seats().stream().map(Seat::getSeatId).toList();
+        scheduleId = fixtures.showtime(room, "Phim tồn ghế", LocalDateTime.of(2030, 10, 1, 19, 0));
+    }
+
+    @Test
+    void concurrentOverlappingClaimsHaveOneWinnerPerSeat() throws Exception {
+        // Mỗi luồng giữ hai ghế liền nhau, các cặp chồng lên nhau nên mỗi ghế bị nhiều luồng tranh
+        List<List<Long>> requests = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int first = i % (seatIds.size() - 1);
+            requests.add(List.of(seatIds.get(first), seatIds.get(first + 1)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (List<Long> request : requests) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        seatInventory.claim(scheduleId, request);
+                        return true;
+                    } catch (AppException e) {
+                        assertEquals(ErrorCode.SEAT_ALREADY_BOOKED, e.getErrorCode());
+                        return false;
+                    }
+                }));
+            }
+
+            Map<Long, Integer> winnersBySeat = new HashMap<>();
+            for (int i = 0; i < THREADS; i++) {
+                if (results.get(i).get(10, TimeUnit.SECONDS)) {
+                    requests.get(i).forEach(seatId -> winnersBySeat.merge(seatId, 1, Integer::sum));
+                }
+            }
+            assertFalse(winnersBySeat.isEmpty());
+            assertTrue(winnersBySeat.values().stream().allMatch(winners -> winners == 1));
+            assertEquals(seatIds.size() - winnersBySeat.size(), seatInventory.availableCount(scheduleId));
+            assertFalse(seatInventory.isAvailable(scheduleId, winnersBySeat.keySet()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rolledBackTransactionReturnsItsSeats() {
+        List<Long> rolledBack = seatIds.subList(0, 2);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            seatInventory.claim(scheduleId, rolledBack);
+            assertFalse(seatInventory.isAvailable(scheduleId, rolledBack));
+            status.setRollbackOnly();
+        });
+        assertTrue(seatInventory.isAvailable(scheduleId, rolledBack));
+
+        List<Long> committed = seatIds.subList(2, 4);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> seatInventory.claim(scheduleId, committed));
+        assertFalse(seatInventory.isAvailable(scheduleId, committed));
+        assertEquals(seatIds.size() - committed.size(), seatInventory.availableCount(scheduleId));
+    }
+
+    @Test
+    void releasedSeatsCanBeClaimedAgain() {
+        List<Long> pair = seatIds.subList(4, 6);
+        seatInventory.claim(scheduleId, pair);
+        AppException taken = assertThrows(AppException.class, () -> seatInventory.claim(scheduleId, pair.subList(1, 2)));
+        assertEquals(ErrorCode.SEAT_ALREADY_BOOKED, taken.getErrorCode());
+
+        seatInventory.release(scheduleId, pair);
+        seatInventory.claim(scheduleId, pair.subList(1, 2));
+        assertTrue(seatInventory.isAvailable(scheduleId, pair.subList(0, 1)));
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.movie.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.dto.request.TicketConfirmationRequest;
+import org.example.movie.dto.response.SeatResponse;
+import org.example.movie.dto.response.TicketInfoResponse;
+import org.example.movie.entity.Account;
+import org.example.movie.entity.Movie;
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.enums.SeatType;
+import org.example.movie.event.MovieChangedEvent;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.example.movie.repository.MovieRepository;
+import org.example.movie.repository.MovieScheduleRepository;
+import org.example.movie.repository.ScheduleSeatRepository;
+import org.example.movie.support.BookingFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatMapServiceTest {
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private TicketBookingService ticketBookingService;
+
+    @Autowired
+    private MovieScheduleRepository movieScheduleRepository;
+
+    @Autowired
+    private ScheduleSeatRepository scheduleSeatRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Movie movie;
+    private List<Seat> seats;
+    private Long movieScheduleId;
+
+    @BeforeEach
+    @WithMockUser(roles = "ADMIN")
+    void setUp() {
+        BookingFixtures.Room room = fixtures.room("Room 2", "AB", 10);
+        seats = room.seats();
+
+        LocalDate showDate = LocalDate.of(2030, 2, 1);
+        movie = fixtures.movie(room, "Phim lớp phủ", showDate, showDate.plusDays(6),
+                showDate.datesUntil(showDate.plusDays(7)).map(date -> date.atTime(20, 0)).toList());
+        movieScheduleId = fixtures.scheduleIds(movie).get(0);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void movingAMovieToAnotherRoomReloadsItsSeatInventory() {
+        assertEquals(20, seatInventory.availableCount(movieScheduleId));
+        BookingFixtures.Room other = fixtures.room("Room 2 mới", "A", 3);
+
+        Movie moved = movieRepository.findById(movie.getMovieId()).orElseThrow();
+        moved.setCinemaRoom(other.cinemaRoom());
+        movieRepository.save(moved);
+        eventPublisher.publishEvent(new MovieChangedEvent(moved.getMovieId()));
+
+        // Bitset được nạp lại theo phòng mới: ghế phòng mới giữ được, ghế phòng cũ không còn thuộc lịch chiếu
+        assertEquals(3, seatInventory.availableCount(movieScheduleId));
+        seatInventory.claim(movieScheduleId, List.of(other.seat(0).getSeatId()));
+        AppException e = assertThrows(AppException.class,
+                () -> seatInventory.claim(movieScheduleId, List.of(seats.get(0).getSeatId())));
+        assertEquals(ErrorCode.SEAT_NOT_FOUND, e.getErrorCode());
+    }
+
+    @Test
+    void newSchedulesAreServedFromRoomTemplate() {
+        assertEquals(7, movieScheduleRepository.findByMovie_MovieId(movie.getMovieId()).size());
+        assertTrue(scheduleSeatRepository.findByMovieMovieId(movie.getMovieId()).isEmpty());
+
+        List<SeatResponse> seatMap = bookingService.getSeats(movieScheduleId);
+        assertEquals(20, seatMap.size());
+        assertTrue(seatMap.stream().allMatch(seat -> seat.getSeatStatus() == SeatStatus.AVAILABLE
+                && seat.getScheduleSeatId() == null && seat.getSeatId() != null));
+    }
+
+    @Test
+    void selectingSeatsMaterializesOnlyTheOverlay() {
+        SelectSeatsRequest request = new SelectSeatsRequest();
+        request.setScheduleId(movieScheduleId);
+        request.setSeatIds(List.of(seats.get(0).getSeatId(), seats.get(1).getSeatId()));
+        ticketBookingService.selectSeats(request);
+
+        assertEquals(2, scheduleSeatRepository.findByMovieMovieId(movie.getMovieId()).size());
+        List<SeatResponse> seatMap = bookingService.getSeats(movieScheduleId);
+        assertEquals(20, seatMap.size());
+        List<SeatResponse> held = seatMap.stream().filter(seat -> seat.getSeatStatus() == SeatStatus.HELD).toList();
+        assertEquals(List.of(seats.get(0).getSeatId(), seats.get(1).getSeatId()),
+                held.stream().map(SeatResponse::getSeatId).toList());
+        assertTrue(held.stream().allMatch(seat -> seat.getScheduleSeatId() != null));
+
+        SelectSeatsRequest overlapping = new SelectSeatsRequest();
+        overlapping.setScheduleId(movieScheduleId);
+        overlapping.setSeatIds(List.of(seats.get(1).getSeatId(), seats.get(2).getSeatId()));
+        AppException e = assertThrows(AppException.class, () -> ticketBookingService.selectSeats(overlapping));
+        assertEquals(ErrorCode.SEAT_ALREADY_BOOKED, e.getErrorCode());
+        assertEquals(2, scheduleSeatRepository.findByMovieMovieId(movie.getMovieId()).size());
+    }
+
+    @Test
+    void readsSeatMapInOneQuery() {
+        SelectSeatsRequest request = new SelectSeatsRequest();
+        request.setScheduleId(movieScheduleId);
+        request.setSeatIds(List.of(seats.get(3).getSeatId()));
+        ticketBookingService.selectSeats(request);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<SeatResponse> seatMap = bookingService.getSeats(movieScheduleId);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(seats.stream().map(Seat::getSeatId).toList(), seatMap.stream().map(SeatResponse::getSeatId).toList());
+        assertEquals(SeatStatus.HELD, seatMap.get(3).getSeatStatus());
+        assertEquals(SeatType.REGULAR, seatMap.get(0).getSeatType());
+
+        AppException e = assertThrows(AppException.class, () -> bookingService.getSeats(-1L));
+        assertEquals(ErrorCode.SHOWTIME_NOT_FOUND, e.getErrorCode());
+    }
+
+    @Test
+    void legacyScheduleSeatIdsMustBelongToTheRequestedSchedule() {
+        Long otherScheduleId = fixtures.scheduleIds(movie).get(1);
+        SelectSeatsRequest other = new SelectSeatsRequest();
+        other.setScheduleId(otherScheduleId);
+        other.setSeatIds(List.of(seats.get(4).getSeatId()));
+        ticketBookingService.selectSeats(other);
+        Long otherScheduleSeatId = bookingService.getSeats(otherScheduleId).get(4).getScheduleSeatId();
+
+        SelectSeatsRequest legacy = new SelectSeatsRequest();
+        legacy.setScheduleId(movieScheduleId);
+        legacy.setScheduleSeatIds(List.of(otherScheduleSeatId));
+        AppException e = assertThrows(AppException.class, () -> ticketBookingService.selectSeats(legacy));
+        assertEquals(ErrorCode.SEAT_NOT_FOUND, e.getErrorCode());
+        assertTrue(scheduleSeatRepository.findTakenSeatIdsByMovieScheduleId(movieScheduleId).isEmpty());
+    }
+
+    @Test
+    void confirmingAHoldReturnsTheRoomOfTheSchedule() {
+        Account account = fixtures.account("overlay");
+        fixtures.member(account, 0);
+        SelectSeatsRequest select = new SelectSeatsRequest();
+        select.setScheduleId(movieScheduleId);
+        select.setSeatIds(List.of(seats.get(5).getSeatId()));
+        Long invoiceId = ticketBookingService.selectSeats(select).getInvoiceId();
+
+        // Lịch chiếu mới chỉ có dòng ScheduleSeat của ghế được chọn, tên phòng lấy từ phòng chiếu
+        TicketConfirmationRequest confirm = new TicketConfirmationRequest();
+        confirm.setInvoiceId(invoiceId);
+        confirm.setScheduleId(movieScheduleId);
+        TicketInfoResponse info = ticketBookingService.confirmBooking(confirm, account.getIdentityCard(), null);
+        assertEquals("Room 2", info.getCinemaRoomName());
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.movie.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.movie.dto.request.SelectSeatsRequest;
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.event.SeatStatusChangedEvent;
+import org.example.movie.support.BookingFixtures;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SeatMapStreamServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private TicketBookingService ticketBookingService;
+
+    @Autowired
+    private SeatMapStreamService seatMapStreamService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.seat-stream.buffer-size}")
+    private int bufferSize;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void streamSendsSnapshotThenDeltas() throws Exception {
+        BookingFixtures.Room room = fixtures.room("Room 3", "A", 5);
+        List<Seat> seats = room.seats();
+        Long scheduleId = fixtures.showtime(room, "Phim trực tiếp", LocalDateTime.of(2030, 3, 1, 19, 0));
+
+        MvcResult result = mockMvc.perform(get("/api/public/seats/stream").param("scheduleId", scheduleId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = result.getResponse();
+        assertTrue(response.getContentAsString().startsWith("event:snapshot"));
+        assertFalse(response.getContentAsString().contains("event:delta"));
+
+        SelectSeatsRequest select = new SelectSeatsRequest();
+        select.setScheduleId(scheduleId);
+        select.setSeatIds(List.of(seats.get(2).getSeatId()));
+        ticketBookingService.selectSeats(select);
+
+        String expected = "\"seatIds\":[" + seats.get(2).getSeatId() + "],\"seatStatus\":\"HELD\"";
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(response.getContentAsString().contains("event:delta"));
+        assertTrue(response.getContentAsString().contains(expected));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void slowSubscriberIsDisconnectedWithoutDelayingOthers() throws Exception {
+        BookingFixtures.Room room = fixtures.room("Room 3S", "A", 2);
+        Long seatId = room.seat(0).getSeatId();
+        Long scheduleId = fixtures.showtime(room, "Phim trực tiếp chậm", LocalDateTime.of(2030, 3, 2, 19, 0));
+        double dropped = meterRegistry.counter("booking.seat.stream.dropped").count();
+
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountingEmitter slow = new CountingEmitter(unblock);
+        CountingEmitter fast = new CountingEmitter(null);
+        try {
+            seatMapStreamService.subscribe(scheduleId, slow);
+            seatMapStreamService.subscribe(scheduleId, fast);
+
+            // Phát theo từng đợt nhỏ hơn hàng đợi, chờ subscriber nhanh đọc hết mỗi đợt;
+            // subscriber chậm bị chặn ở delta đầu tiên nên hàng đợi của nó đầy dần rồi tràn
+            int batch = bufferSize / 2;
+            int published = 0;
+            while (published <= bufferSize + 1) {
+                for (int i = 0; i < batch; i++, published++) {
+                    seatMapStreamService.onSeatStatusChanged(new SeatStatusChangedEvent(
+                            scheduleId, List.of(seatId), published % 2 == 0 ? SeatStatus.HELD : SeatStatus.AVAILABLE));
+                }
+                long deadline = System.currentTimeMillis() + 5000;
+                while (fast.deltas.get() < published && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertEquals(published, fast.deltas.get());
+            }
+
+            assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+            assertEquals(dropped + 1, meterRegistry.counter("booking.seat.stream.dropped").count());
+        } finally {
+            unblock.countDown();
+        }
+        assertEquals(0, slow.deltas.get());
+    }
+
+    /**
+     * Emitter không gắn với response: ghi nhận số delta đã nhận, có thể chặn lần gửi delta như một client đọc chậm.
+     */
+    private static final class CountingEmitter extends SseEmitter {
+        private final CountDownLatch unblock;
+        private final AtomicInteger deltas = new AtomicInteger();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        CountingEmitter(CountDownLatch unblock) {
+            this.unblock = unblock;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            boolean delta = builder.build().iterator().next().getData().toString().startsWith("event:delta");
+            if (delta && unblock != null) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("client gone");
+            }
+            if (delta) {
+                deltas.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+            super.complete();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.movie.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.movie.dto.response.ShowtimeResponse;
+import org.example.movie.entity.*;
+import org.example.movie.support.BookingFixtures;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ShowtimeReadModelTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingFixtures fixtures;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void servesShowtimesFromMemoryAndTracksAvailableSeats() {
+        BookingFixtures.Room room = fixtures.room("Room S", "A", 6);
+        List<Seat> seats = room.seats();
+        LocalDate firstDay = LocalDate.of(2031, 5, 1);
+        Long movieId = fixtures.movie(room, "Phim lịch chiếu", firstDay, firstDay.plusDays(1),
+                List.of(firstDay.plusDays(1).atTime(20, 0), firstDay.atTime(18, 0), firstDay.atTime(9, 30)))
+                .getMovieId();
+
+        List<ShowtimeResponse> firstDayShowtimes = bookingService.getShowtimesByDate(movieId, firstDay);
+        assertEquals(List.of(9, 18), firstDayShowtimes.stream().map(showtime -> showtime.getShowTime().getHour()).toList());
+        assertTrue(firstDayShowtimes.stream().allMatch(showtime -> showtime.getAvailableSeats() == 6
+                && "Room S".equals(showtime.getCinemaRoomName())));
+
+        Account account = fixtures.account("showtime");
+        Long scheduleId = firstDayShowtimes.get(1).getScheduleId();
+        bookingService.reserveSeats(scheduleId, List.of(seats.get(0).getSeatId(), seats.get(1).getSeatId()),
+                account.getAccountId());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<ShowtimeResponse> all = bookingService.getShowtimes(movieId, null);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(3, all.size());
+        assertEquals(4, all.stream().filter(showtime -> showtime.getScheduleId().equals(scheduleId))
+                .findFirst().orElseThrow().getAvailableSeats());
+        assertEquals(1, bookingService.getShowtimes(movieId, firstDay.plusDays(1).toString()).size());
+        assertEquals(2, bookingService.getShowtimesBetween(movieId, firstDay.atTime(9, 30), firstDay.plusDays(1).atTime(20, 0)).size());
+    }
+}
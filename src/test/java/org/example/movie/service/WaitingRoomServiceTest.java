@@ -0,0 +1,125 @@
+package org.example.movie.service;
+
+import org.example.movie.dto.response.WaitingRoomResponse;
+import org.example.movie.exception.AppException;
+import org.example.movie.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "booking.waiting-room.burst=2",
+        "booking.waiting-room.admission-rate=1",
+        "booking.waiting-room.max-concurrent-bookings=1",
+        "booking.waiting-room.permit-timeout=100ms",
+        "booking.waiting-room.admission-window=300ms"
+})
+@ActiveProfiles("test")
+class WaitingRoomServiceTest {
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Test
+    @WithMockUser("queue-member")
+    void admitsBurstThenQueuesInOrder() {
+        Long scheduleId = 9001L;
+
+        assertNull(waitingRoomService.admit(scheduleId, waitingRoomService.join(scheduleId).getToken()));
+        assertNull(waitingRoomService.admit(scheduleId, waitingRoomService.join(scheduleId).getToken()));
+
+        WaitingRoomResponse third = waitingRoomService.admit(scheduleId, waitingRoomService.join(scheduleId).getToken());
+        WaitingRoomResponse fourth = waitingRoomService.admit(scheduleId, waitingRoomService.join(scheduleId).getToken());
+        assertNotNull(third);
+        assertNotNull(fourth);
+        assertFalse(fourth.isAdmitted());
+        assertEquals(third.getPosition() + 1, fourth.getPosition());
+        assertTrue(fourth.getEstimatedWaitSeconds() >= fourth.getPosition());
+
+        WaitingRoomResponse status = waitingRoomService.status(fourth.getToken());
+        assertEquals(scheduleId, status.getScheduleId());
+        assertTrue(status.getPosition() <= fourth.getPosition());
+    }
+
+    @Test
+    @WithMockUser("queue-member")
+    void rejectsUnknownOrForeignToken() {
+        AppException unknown = assertThrows(AppException.class, () -> waitingRoomService.status("no-such-token"));
+        assertEquals(ErrorCode.QUEUE_TOKEN_INVALID, unknown.getErrorCode());
+
+        WaitingRoomResponse joined = waitingRoomService.join(9002L);
+        AppException foreign = assertThrows(AppException.class,
+                () -> waitingRoomService.admit(9003L, joined.getToken()));
+        assertEquals(ErrorCode.QUEUE_TOKEN_INVALID, foreign.getErrorCode());
+    }
+
+    @Test
+    @WithMockUser("queue-member")
+    void tokenIsRequiredAndBoundToItsAccountAndWindow() throws Exception {
+        Long scheduleId = 9004L;
+        AppException missing = assertThrows(AppException.class, () -> waitingRoomService.admit(scheduleId, null));
+        assertEquals(ErrorCode.QUEUE_TOKEN_REQUIRED, missing.getErrorCode());
+
+        String token = waitingRoomService.join(scheduleId).getToken();
+        assertNull(waitingRoomService.admit(scheduleId, token));
+        assertNull(waitingRoomService.admit(scheduleId, token));
+
+        // Token của tài khoản khác không dùng được
+        SecurityContext context = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(SecurityContextHolder.createEmptyContext());
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("other-member", null, "ROLE_MEMBER"));
+        try {
+            AppException foreign = assertThrows(AppException.class, () -> waitingRoomService.admit(scheduleId, token));
+            assertEquals(ErrorCode.QUEUE_TOKEN_INVALID, foreign.getErrorCode());
+        } finally {
+            SecurityContextHolder.setContext(context);
+        }
+
+        // Hết admission-window kể từ lần đầu được vào thì phải xếp hàng lại
+        Thread.sleep(400);
+        AppException expired = assertThrows(AppException.class, () -> waitingRoomService.admit(scheduleId, token));
+        assertEquals(ErrorCode.QUEUE_TOKEN_INVALID, expired.getErrorCode());
+    }
+
+    @Test
+    void boundsConcurrentBookings() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = executor.submit(() -> waitingRoomService.withBookingPermit(() -> {
+                holding.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }));
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+            AppException busy = assertThrows(AppException.class, () -> waitingRoomService.withBookingPermit(() -> 2));
+            assertEquals(ErrorCode.SERVICE_BUSY, busy.getErrorCode());
+
+            release.countDown();
+            assertEquals(1, first.get(5, TimeUnit.SECONDS));
+            assertEquals(3, waitingRoomService.withBookingPermit(() -> 3));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.movie.support;
+
+import org.example.movie.dto.request.AddMovieRequest;
+import org.example.movie.entity.Account;
+import org.example.movie.entity.CinemaRoom;
+import org.example.movie.entity.Member;
+import org.example.movie.entity.Movie;
+import org.example.movie.entity.MovieSchedule;
+import org.example.movie.entity.Seat;
+import org.example.movie.enums.AccountStatus;
+import org.example.movie.enums.SeatStatus;
+import org.example.movie.enums.SeatType;
+import org.example.movie.repository.AccountRepository;
+import org.example.movie.repository.CinemaRoomRepository;
+import org.example.movie.repository.MemberRepository;
+import org.example.movie.repository.MovieScheduleRepository;
+import org.example.movie.repository.SeatRepository;
+import org.example.movie.service.MovieService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Dữ liệu mẫu dùng chung cho các test @SpringBootTest: phòng chiếu kèm ghế, phim kèm lịch chiếu, tài khoản, thành viên.
+ * Tên đăng nhập, email, CMND được gắn hậu tố ngẫu nhiên vì các test dùng chung database của context.
+ * Tạo phim đi qua MovieService.addMovie nên caller cần quyền ADMIN (@WithMockUser(roles = "ADMIN")).
+ */
+@Component
+public class BookingFixtures {
+
+    @Autowired
+    private CinemaRoomRepository cinemaRoomRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private MovieScheduleRepository movieScheduleRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    /**
+     * Phòng chiếu có rows hàng, mỗi hàng một ghế thường cho từng ký tự trong columns.
+     */
+    public Room room(String name, String columns, int rows) {
+        return room(name, columns, rows, row -> SeatType.REGULAR);
+    }
+
+    /**
+     * Như room(name, columns, rows) nhưng loại ghế theo hàng. Ghế được lưu theo hàng rồi theo cột,
+     * nên thứ tự trong Room.seats() cũng là thứ tự Seat.id.
+     */
+    public Room room(String name, String columns, int rows, IntFunction<SeatType> seatTypeOfRow) {
+        CinemaRoom cinemaRoom = cinemaRoomRepository.save(CinemaRoom.builder().cinemaRoomName(name)
+                .seatQuantity(columns.length() * rows).build());
+        List<Seat> seats = new ArrayList<>();
+        for (int row = 1; row <= rows; row++) {
+            for (char column : columns.toCharArray()) {
+                seats.add(Seat.builder().seatColumn(String.valueOf(column)).seatRow(row)
+                        .seatStatus(SeatStatus.AVAILABLE).seatType(seatTypeOfRow.apply(row))
+                        .cinemaRoom(cinemaRoom).build());
+            }
+        }
+        return new Room(cinemaRoom, seatRepository.saveAll(seats));
+    }
+
+    /**
+     * Phim chiếu trong phòng room từ fromDate đến toDate với các giờ chiếu scheduleTimes.
+     */
+    public Movie movie(Room room, String name, LocalDate fromDate, LocalDate toDate, List<LocalDateTime> scheduleTimes) {
+        AddMovieRequest request = new AddMovieRequest();
+        request.setMovieNameVn(name);
+        request.setFromDate(fromDate);
+        request.setToDate(toDate);
+        request.setCinemaRoom(room.id());
+        request.setScheduleTimes(scheduleTimes);
+        return movieService.addMovie(request);
+    }
+
+    /**
+     * Phim chiếu một ngày với các giờ chiếu cho trước, trả về MovieSchedule.id theo thứ tự giờ chiếu.
+     */
+    public List<Long> showtimes(Room room, String name, LocalDateTime... scheduleTimes) {
+        LocalDate day = scheduleTimes[0].toLocalDate();
+        Movie movie = movie(room, name, day, day, List.of(scheduleTimes));
+        return scheduleIds(movie);
+    }
+
+    /**
+     * Phim chiếu đúng một suất, trả về MovieSchedule.id của suất đó.
+     */
+    public Long showtime(Room room, String name, LocalDateTime scheduleTime) {
+        return showtimes(room, name, scheduleTime).get(0);
+    }
+
+    public List<Long> scheduleIds(Movie movie) {
+        return movieScheduleRepository.findByMovie_MovieId(movie.getMovieId()).stream()
+                .sorted((first, second) -> first.getSchedule().getScheduleTime()
+                        .compareTo(second.getSchedule().getScheduleTime()))
+                .map(MovieSchedule::getId)
+                .toList();
+    }
+
+    /**
+     * Tài khoản ACTIVE; username, email và CMND có dạng prefix-<hậu tố ngẫu nhiên>.
+     */
+    public Account account(String prefix) {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+        return accountRepository.save(Account.builder()
+                .username(prefix + "-" + suffix)
+                .password("secret")
+                .fullName(prefix + " tester")
+                .email(prefix + "-" + suffix + "@example.com")
+                .identityCard("ID-" + suffix)
+                .status(AccountStatus.ACTIVE)
+                .build());
+    }
+
+    public Member member(Account account, int score) {
+        return memberRepository.save(Member.builder().account(account).score(score).build());
+    }
+
+    public record Room(CinemaRoom cinemaRoom, List<Seat> seats) {
+
+        public Long id() {
+            return cinemaRoom.getCinemaRoomId();
+        }
+
+        public Seat seat(int index) {
+            return seats.get(index);
+        }
+    }
+}